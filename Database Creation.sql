@@ -59,7 +59,10 @@ CREATE TABLE categories (
     name VARCHAR(150) NOT NULL,
     slug VARCHAR(150) UNIQUE,
     is_active BOOLEAN DEFAULT TRUE,
-    FOREIGN KEY (parent_category_id) REFERENCES categories(id)
+    updated_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    FOREIGN KEY (parent_category_id) REFERENCES categories(id),
+    /* Last-Modified / ETag for the category endpoints */
+    INDEX idx_categories_updated (updated_at)
 );
 
 INSERT INTO categories (name,slug,is_active)
@@ -84,10 +87,30 @@ CREATE TABLE products (
     selling_price DECIMAL(12,2) NOT NULL,
     mrp DECIMAL(12,2),
     is_active BOOLEAN DEFAULT TRUE,
+    /* denormalized sort keys: kept by review writes and the popularity job */
+    avg_rating DECIMAL(3,2) NOT NULL DEFAULT 0,
+    popularity BIGINT NOT NULL DEFAULT 0,
+    /* last avg_rating refresh; counts toward the listing's Last-Modified without touching updated_at */
+    rating_updated_at TIMESTAMP(3) NULL,
+    /* denormalized primary image path, kept by ProductImageService */
+    primary_image VARCHAR(500),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
     FOREIGN KEY (shop_id) REFERENCES shops(id),
-    FOREIGN KEY (category_id) REFERENCES categories(id)
+    FOREIGN KEY (category_id) REFERENCES categories(id),
+    /* keyset pagination: newest first, optionally within a category */
+    INDEX idx_products_active_created (is_active, created_at, id),
+    INDEX idx_products_active_category_created (is_active, category_id, created_at, id),
+    /* keyset pagination for sort=price_asc|price_desc|rating|popularity */
+    INDEX idx_products_active_price (is_active, selling_price, id),
+    INDEX idx_products_active_category_price (is_active, category_id, selling_price, id),
+    INDEX idx_products_active_rating (is_active, avg_rating, id),
+    INDEX idx_products_active_category_rating (is_active, category_id, avg_rating, id),
+    INDEX idx_products_active_popularity (is_active, popularity, id),
+    INDEX idx_products_active_category_popularity (is_active, category_id, popularity, id),
+    /* Last-Modified / ETag for the product listing */
+    INDEX idx_products_updated (updated_at),
+    INDEX idx_products_rating_updated (rating_updated_at)
 );
 
 INSERT INTO products (shop_id,category_id,sku,name,short_description,description,selling_price,mrp,is_active)
@@ -106,12 +129,37 @@ CREATE TABLE product_images (
     is_primary BOOLEAN DEFAULT FALSE,
     sort_image_order INT DEFAULT 0,
     is_deleted BOOLEAN DEFAULT FALSE,
-    FOREIGN KEY (product_id) REFERENCES products(id)
+    updated_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    FOREIGN KEY (product_id) REFERENCES products(id),
+    /* bulk primary-image lookup for listing pages */
+    INDEX idx_product_images_primary (product_id, is_deleted, is_primary, sort_image_order),
+    /* Last-Modified / ETag per product and for the whole catalog */
+    INDEX idx_product_images_product_updated (product_id, updated_at),
+    INDEX idx_product_images_updated (updated_at)
 );
 
 INSERT INTO product_images (product_id,image_path,is_primary)
 VALUES (1,'/images/tshirt1.png',TRUE);
 
+UPDATE products p SET p.primary_image = (
+    SELECT pi.image_path FROM product_images pi
+    WHERE pi.product_id = p.id AND pi.is_deleted = FALSE
+    ORDER BY pi.is_primary DESC, pi.sort_image_order ASC, pi.id ASC
+    LIMIT 1);
+
+/* ============================================================
+   PRODUCT CHANGE LOG
+   Written in the same transaction as product and image writes;
+   consumers poll it by seq instead of re-scanning the catalog.
+   Purged by seq order once older than product.changes.retention-days
+   ============================================================ */
+CREATE TABLE product_changes (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    change_type VARCHAR(20) NOT NULL,
+    changed_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
+
 
 /* ============================================================
    INVENTORY 
@@ -126,6 +174,17 @@ CREATE TABLE inventory (
 INSERT INTO inventory (product_id,quantity,reserved)
 VALUES (1,50,0);
 
+/* opt-in for flash-sale products: while a product has rows here its stock is
+   split across them and checkouts lock one stripe, not the single inventory row */
+CREATE TABLE inventory_stripes (
+    product_id BIGINT NOT NULL,
+    stripe INT NOT NULL,
+    quantity INT NOT NULL DEFAULT 0,
+    reserved INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id, stripe),
+    FOREIGN KEY (product_id) REFERENCES inventory(product_id)
+);
+
 
 /* ============================================================
    VARIANT TABLES
@@ -185,7 +244,9 @@ CREATE TABLE carts (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     user_id BIGINT NOT NULL UNIQUE,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    FOREIGN KEY (user_id) REFERENCES users(id)
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    /* abandoned cart sweeper walks carts oldest first */
+    INDEX idx_carts_updated_at (updated_at)
 );
 
 INSERT INTO carts (user_id) VALUES (1);
@@ -201,7 +262,9 @@ CREATE TABLE cart_items (
     quantity INT NOT NULL,
     price_at_add DECIMAL(12,2) NOT NULL,
     FOREIGN KEY (cart_id) REFERENCES carts(id),
-    FOREIGN KEY (product_id) REFERENCES products(id)
+    FOREIGN KEY (product_id) REFERENCES products(id),
+    /* one line per product: add-to-cart upserts on this key */
+    UNIQUE KEY uq_cart_items_cart_product (cart_id, product_id)
 );
 
 
@@ -255,6 +318,26 @@ CREATE TABLE payments (
 );
 
 
+/* ============================================================
+   IDEMPOTENCY KEYS
+   ============================================================ */
+/* one row per Idempotency-Key a user sent to checkout or payment; written in the
+   same transaction as the order or payment it stands for */
+CREATE TABLE idempotency_keys (
+    user_id BIGINT NOT NULL,
+    scope VARCHAR(30) NOT NULL,
+    idempotency_key VARCHAR(100) NOT NULL,
+    /* SHA-256 of the request body, so a key reused for another request is rejected */
+    fingerprint CHAR(64) NOT NULL,
+    response_body MEDIUMTEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, scope, idempotency_key),
+    /* expiry cleanup deletes in expires_at order */
+    INDEX idx_idempotency_keys_expires_at (expires_at)
+);
+
+
 /* ============================================================
    REVIEWS (soft delete)
    ============================================================ */
@@ -268,7 +351,9 @@ CREATE TABLE reviews (
     is_deleted BOOLEAN DEFAULT FALSE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (product_id) REFERENCES products(id),
-    FOREIGN KEY (user_id) REFERENCES users(id)
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    /* first page of reviews and the rating histogram on the product page */
+    INDEX idx_reviews_product_created (product_id, is_deleted, created_at)
 );
 
 
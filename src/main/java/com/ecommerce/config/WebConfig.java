@@ -36,6 +36,7 @@ public class WebConfig implements WebMvcConfigurer {
 						"/api/products/",
 						"/api/products/[0-9]*",
 						"/api/products/*", 
+						"/api/products/*/detail",
 						"/api/products/search/**",
 
 						// Category browsing
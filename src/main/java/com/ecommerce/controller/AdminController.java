@@ -8,7 +8,9 @@ import com.ecommerce.enums.UserRole;
 import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.AdminLogsRepository;
+import com.ecommerce.repository.impl.CachingProductRepository;
 import com.ecommerce.service.AdminService;
+import com.ecommerce.service.impl.AbandonedCartSweeper;
 import com.ecommerce.service.impl.DtoMapper;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,6 +20,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -29,6 +32,12 @@ public class AdminController {
 	@Autowired
 	private AdminLogsRepository adminLogsRepository;
 
+	@Autowired
+	private CachingProductRepository productCache;
+
+	@Autowired
+	private AbandonedCartSweeper cartSweeper;
+
 	private Long checkAndGetAdmin(HttpServletRequest req) {
 		User currentUser = (User) req.getAttribute("currentUser");
 
@@ -142,4 +151,15 @@ public class AdminController {
 				.ok(adminLogsRepository.findRecent(limit).stream().map(DtoMapper::adminLogToResponse).toList());
 	}
 
-}
\ No newline at end of file
+	@GetMapping("/cache/products")
+	public ResponseEntity<Map<String, Object>> getProductCacheStats(HttpServletRequest req) {
+		checkAndGetAdmin(req);
+		return ResponseEntity.ok(productCache.cacheStats());
+	}
+
+	@GetMapping("/carts/sweeper")
+	public ResponseEntity<Map<String, Object>> getCartSweeperStats(HttpServletRequest req) {
+		checkAndGetAdmin(req);
+		return ResponseEntity.ok(cartSweeper.stats());
+	}
+}
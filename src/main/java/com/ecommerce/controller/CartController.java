@@ -1,6 +1,7 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.ApiResponse;
+import com.ecommerce.dto.CartBatchRequest;
 import com.ecommerce.dto.CartRequest;
 import com.ecommerce.dto.CartResponse;
 import com.ecommerce.model.CartItem;
@@ -91,6 +92,21 @@ public class CartController {
 		return ResponseEntity.ok(new ApiResponse<>(true, "Cart cleared successfully"));
 	}
 
+	// Offline sync: applies all operations in one transaction and returns the resulting cart
+	@PostMapping("/batch")
+	public ResponseEntity<ApiResponse<CartResponse>> applyBatch(@RequestBody CartBatchRequest batchRequest,
+			HttpServletRequest request) {
+
+		Long userId = (Long) request.getAttribute("currentUserId");
+
+		log.info("POST /api/cart/batch - User: {} applying {} operations", userId,
+				batchRequest.getOperations() == null ? 0 : batchRequest.getOperations().size());
+
+		CartResponse cartResponse = cartService.applyOperations(userId, batchRequest.getOperations());
+
+		return ResponseEntity.ok(new ApiResponse<>(true, "Cart updated successfully", cartResponse));
+	}
+
 	@GetMapping("/validate")
 	public ResponseEntity<ApiResponse<CartResponse>> validateCart(HttpServletRequest request) {
 
@@ -100,6 +116,12 @@ public class CartController {
 
 		CartResponse cartResponse = cartService.validateCart(userId);
 
+		// Every unavailable or repriced item is listed in warnings
+		if (cartResponse.isHasInvalidItems() || cartResponse.isHasPriceChanges()) {
+			return ResponseEntity.badRequest()
+					.body(new ApiResponse<>(false, "Some items in your cart need attention", cartResponse));
+		}
+
 		return ResponseEntity.ok(new ApiResponse<>(true, "Cart is valid for checkout", cartResponse));
 	}
 }
\ No newline at end of file
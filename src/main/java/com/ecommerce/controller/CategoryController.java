@@ -5,11 +5,13 @@ import com.ecommerce.enums.UserRole;
 import com.ecommerce.model.Category;
 import com.ecommerce.model.User;
 import com.ecommerce.service.CategoryService;
+import com.ecommerce.util.HttpCaching;
 
 import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -48,12 +50,28 @@ public class CategoryController {
 	}
 
 	@GetMapping
-	public ResponseEntity<ApiResponse<?>> listActive() {
+	public ResponseEntity<ApiResponse<?>> listActive(WebRequest request) {
+		if (HttpCaching.notModified(request, "categories", service.getActiveLastModified()))
+			return null;
+
 		return ResponseEntity.ok(new ApiResponse<>(true, "OK", service.listActive()));
 	}
 
+	// Whole active tree with product counts; categoryId adds that category's breadcrumb trail
+	@GetMapping("/tree")
+	public ResponseEntity<ApiResponse<?>> tree(@RequestParam(required = false) Long categoryId,
+			WebRequest request) {
+		if (HttpCaching.notModified(request, "category-tree", service.getTreeLastModified()))
+			return null;
+
+		return ResponseEntity.ok(new ApiResponse<>(true, "OK", service.getTree(categoryId)));
+	}
+
 	@GetMapping("/{id}")
-	public ResponseEntity<ApiResponse<Category>> getById(@PathVariable Long id) {
+	public ResponseEntity<ApiResponse<Category>> getById(@PathVariable Long id, WebRequest request) {
+		if (HttpCaching.notModified(request, "category-" + id, service.getLastModified()))
+			return null;
+
 		Category c = service.getById(id);
 		return ResponseEntity.ok(new ApiResponse<>(true, "OK", c));
 	}
@@ -71,6 +71,17 @@ public class InventoryController {
 		return ResponseEntity.ok(response);
 	}
 
+	// Opt-in for flash sales: spreads the product's stock over this many rows; 1 turns striping off
+	@PostMapping("/{productId}/stripes")
+	public ResponseEntity<InventoryResponse> setStripes(@PathVariable Long productId, @RequestParam int count,
+			HttpServletRequest req) {
+
+		allowAdminOrShopkeeper(req);
+
+		InventoryResponse response = inventoryService.setStripes(productId, count);
+		return ResponseEntity.ok(response);
+	}
+
 	@PostMapping("/{productId}/reserve")
 	public ResponseEntity<InventoryResponse> reserveStock(@PathVariable Long productId, @RequestParam int quantity,
 			HttpServletRequest req) {
@@ -2,8 +2,11 @@ package com.ecommerce.controller;
 
 import com.ecommerce.dto.OrderRequest;
 import com.ecommerce.dto.OrderResponse;
+import com.ecommerce.enums.IdempotencyScope;
 import com.ecommerce.model.Order;
+import com.ecommerce.service.IdempotencyService;
 import com.ecommerce.service.OrderService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,20 +22,27 @@ public class OrderController {
 	private static final Logger log = LoggerFactory.getLogger(OrderController.class);
 
 	private final OrderService orderService;
+	private final IdempotencyService idempotencyService;
 
-	public OrderController(OrderService orderService) {
+	public OrderController(OrderService orderService, IdempotencyService idempotencyService) {
 		this.orderService = orderService;
+		this.idempotencyService = idempotencyService;
 	}
 
+	// A retry with the same Idempotency-Key gets the orders created the first time
 	@PostMapping("/checkout")
-	public ResponseEntity<List<Order>> checkout(@RequestBody OrderRequest request, HttpServletRequest httpRequest) {
+	public ResponseEntity<List<Order>> checkout(@RequestBody OrderRequest request,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+			HttpServletRequest httpRequest) {
 
 		// Extract userId from JWT token
 		Long userId = (Long) httpRequest.getAttribute("currentUserId");
 
 		log.info("POST /api/orders/checkout - User: {} placing order", userId);
 
-		List<Order> orders = orderService.placeOrder(userId, request);
+		List<Order> orders = idempotencyService.execute(userId, IdempotencyScope.PLACE_ORDER, idempotencyKey, request,
+				new TypeReference<List<Order>>() {
+				}, () -> orderService.placeOrder(userId, request));
 
 		log.info("User: {} - Created {} order(s)", userId, orders.size());
 
@@ -1,8 +1,11 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.PaymentRequest;
+import com.ecommerce.enums.IdempotencyScope;
 import com.ecommerce.model.Payment;
+import com.ecommerce.service.IdempotencyService;
 import com.ecommerce.service.PaymentService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,19 +19,26 @@ public class PaymentController {
 	private static final Logger log = LoggerFactory.getLogger(PaymentController.class);
 
 	private final PaymentService paymentService;
+	private final IdempotencyService idempotencyService;
 
-	public PaymentController(PaymentService paymentService) {
+	public PaymentController(PaymentService paymentService, IdempotencyService idempotencyService) {
 		this.paymentService = paymentService;
+		this.idempotencyService = idempotencyService;
 	}
 
+	// A retry with the same Idempotency-Key gets the first attempt's payment, success or failure
 	@PostMapping
-	public ResponseEntity<Payment> makePayment(@RequestBody PaymentRequest request, HttpServletRequest httpRequest) {
+	public ResponseEntity<Payment> makePayment(@RequestBody PaymentRequest request,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+			HttpServletRequest httpRequest) {
 
 		Long userId = (Long) httpRequest.getAttribute("currentUserId");
 
 		log.info("POST /api/payments - User: {} processing payment for order: {}", userId, request.getOrderId());
 
-		Payment payment = paymentService.processPayment(request);
+		Payment payment = idempotencyService.execute(userId, IdempotencyScope.PROCESS_PAYMENT, idempotencyKey, request,
+				new TypeReference<Payment>() {
+				}, () -> paymentService.processPayment(request));
 
 		log.info("User: {} - Payment {} for order: {}", userId, payment.getStatus(), request.getOrderId());
 
@@ -1,16 +1,35 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.FacetedSearchResponse;
+import com.ecommerce.dto.ProductDetailResponse;
+import com.ecommerce.dto.ProductImportResponse;
 import com.ecommerce.dto.ProductRequest;
 import com.ecommerce.dto.ProductResponse;
+import com.ecommerce.dto.ProductSummaryResponse;
+import com.ecommerce.dto.ShopProductSummaryResponse;
+import com.ecommerce.enums.ProductSort;
 import com.ecommerce.enums.UserRole;
 import com.ecommerce.model.User;
+import com.ecommerce.service.ProductDetailService;
+import com.ecommerce.service.ProductExportService;
+import com.ecommerce.service.ProductImportService;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.util.HttpCaching;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,9 +38,19 @@ import java.util.Optional;
 public class ProductController {
 
 	private final ProductService productService;
-
-	public ProductController(ProductService productService) {
+	private final ProductImportService productImportService;
+	private final ProductExportService productExportService;
+	private final ProductDetailService productDetailService;
+	private final long exportTimeoutMillis;
+
+	public ProductController(ProductService productService, ProductImportService productImportService,
+			ProductExportService productExportService, ProductDetailService productDetailService,
+			@Value("${product.export.timeout-ms:1800000}") long exportTimeoutMillis) {
 		this.productService = productService;
+		this.productImportService = productImportService;
+		this.productExportService = productExportService;
+		this.productDetailService = productDetailService;
+		this.exportTimeoutMillis = exportTimeoutMillis;
 	}
 
 	private User getAuthenticatedUser(HttpServletRequest req) {
@@ -50,6 +79,79 @@ public class ProductController {
 		return new ResponseEntity<>(resp, HttpStatus.CREATED);
 	}
 
+	// Body is read as a stream: text/csv with a header row, or application/x-ndjson
+	@PostMapping("/manage/import")
+	public ResponseEntity<?> importProducts(@RequestParam Long shopId, HttpServletRequest req) throws IOException {
+
+		User user = getAuthenticatedUser(req);
+
+		if (user.getRole() != UserRole.SHOPKEEPER && user.getRole() != UserRole.ADMIN) {
+			return ResponseEntity.status(403).body("Only shopkeepers or admin can import products.");
+		}
+
+		if (user.getRole() == UserRole.SHOPKEEPER && !productService.shopBelongsToUser(shopId, user.getId())) {
+			return ResponseEntity.status(403).body("You cannot import products into a shop you do not own.");
+		}
+
+		String contentType = req.getContentType() == null ? "" : req.getContentType().toLowerCase();
+		ProductImportResponse resp = contentType.contains("json")
+				? productImportService.importNdjson(shopId, req.getInputStream())
+				: productImportService.importCsv(shopId, req.getInputStream());
+		return ResponseEntity.ok(resp);
+	}
+
+	// Admins may export the whole catalog; shopkeepers only their own shop
+	@GetMapping("/manage/export")
+	public ResponseEntity<?> exportProducts(@RequestParam(required = false) Long shopId,
+			@RequestParam(defaultValue = "ndjson") String format,
+			@RequestParam(defaultValue = "true") boolean activeOnly, HttpServletRequest req) {
+
+		User user = getAuthenticatedUser(req);
+
+		if (user.getRole() != UserRole.ADMIN) {
+			if (user.getRole() != UserRole.SHOPKEEPER || shopId == null
+					|| !productService.shopBelongsToUser(shopId, user.getId())) {
+				return ResponseEntity.status(403).body("You can export only your own shop's products.");
+			}
+		}
+
+		boolean csv = "csv".equalsIgnoreCase(format);
+		if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+			return ResponseEntity.badRequest().body("format must be ndjson or csv");
+		}
+
+		StreamingResponseBody body = out -> {
+			if (csv)
+				productExportService.exportCsv(shopId, activeOnly, out);
+			else
+				productExportService.exportNdjson(shopId, activeOnly, out);
+		};
+
+		// Only this request gets the long timeout; other async requests keep the server default
+		WebAsyncUtils.getAsyncManager(req).getAsyncWebRequest().setTimeout(exportTimeoutMillis);
+
+		return ResponseEntity.ok()
+				.contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+						: new MediaType("application", "x-ndjson"))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=\"products." + (csv ? "csv" : "ndjson") + "\"")
+				.body(body);
+	}
+
+	// Change feed for downstream indexes and feeds: poll with the previous nextSince
+	@GetMapping("/manage/changes")
+	public ResponseEntity<?> getChanges(@RequestParam(defaultValue = "0") long since,
+			@RequestParam(defaultValue = "500") int limit, HttpServletRequest req) {
+
+		User user = getAuthenticatedUser(req);
+
+		if (user.getRole() != UserRole.ADMIN) {
+			return ResponseEntity.status(403).body("Only admin can read the product change feed.");
+		}
+
+		return ResponseEntity.ok(productService.getChangesSince(since, limit));
+	}
+
 	@PutMapping("/manage/{id}")
 	public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody ProductRequest request,
 			HttpServletRequest req) {
@@ -68,15 +170,44 @@ public class ProductController {
 	}
 
 	@GetMapping("/{id}")
-	public ResponseEntity<ProductResponse> getProduct(@PathVariable Long id) {
+	public ResponseEntity<ProductResponse> getProduct(@PathVariable Long id, WebRequest request) {
+		if (HttpCaching.notModified(request, "product-" + id, productService.getProductLastModified(id)))
+			return null;
+
 		Optional<ProductResponse> opt = productService.getProductById(id);
 		return opt.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
 	}
 
+	// Product page in one round trip: images, variant matrix, stock, rating and newest reviews
+	@GetMapping("/{id}/detail")
+	public ResponseEntity<ProductDetailResponse> getProductDetail(@PathVariable Long id) {
+		Optional<ProductDetailResponse> opt = productDetailService.getProductDetail(id);
+		return opt.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	// sort=price_asc|price_desc|newest|rating|popularity; minPrice/maxPrice are inclusive
 	@GetMapping
-	public ResponseEntity<List<ProductResponse>> listActive(@RequestParam(required = false) Long categoryId,
-			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
-		List<ProductResponse> list = productService.searchProducts(null, categoryId, page, size);
+	public ResponseEntity<?> listActive(@RequestParam(required = false) Long categoryId,
+			@RequestParam(required = false) BigDecimal minPrice, @RequestParam(required = false) BigDecimal maxPrice,
+			@RequestParam(required = false) String sort, @RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "20") int size, @RequestParam(required = false) String cursor,
+			WebRequest request) {
+
+		// Rating refreshes move Last-Modified; popularity changes without it, so that order is never 304'd
+		ProductSort order = ProductSort.fromParam(sort);
+		boolean cacheable = order != ProductSort.POPULARITY;
+		if (cacheable
+				&& HttpCaching.notModified(request, "products", productService.getCatalogLastModified(categoryId)))
+			return null;
+
+		// Passing cursor (empty for the first page) switches to keyset paging
+		if (cursor != null) {
+			return ResponseEntity
+					.ok(productService.searchProductsPage(null, categoryId, minPrice, maxPrice, sort, cursor, size));
+		}
+
+		List<ProductSummaryResponse> list = productService.searchProducts(null, categoryId, minPrice, maxPrice, sort,
+				page, size);
 		return ResponseEntity.ok(list);
 	}
 
@@ -85,7 +216,7 @@ public class ProductController {
 
 		User user = (User) req.getAttribute("currentUser");
 
-		List<ProductResponse> list = productService.getProductsByShop(shopId);
+		List<ShopProductSummaryResponse> list = productService.getProductsByShop(shopId);
 		return ResponseEntity.ok(list);
 	}
 
@@ -109,15 +240,40 @@ public class ProductController {
 		return ResponseEntity.ok("Product marked inactive (soft-deleted)");
 	}
 
+	// Without sort or a price range, text queries are ranked by relevance
 	@GetMapping("/search")
-	public ResponseEntity<List<ProductResponse>> search(@RequestParam(required = false) String q,
-			@RequestParam(required = false) Long categoryId, @RequestParam(defaultValue = "0") int page,
-			@RequestParam(defaultValue = "20") int size) {
+	public ResponseEntity<?> search(@RequestParam(required = false) String q,
+			@RequestParam(required = false) Long categoryId, @RequestParam(required = false) BigDecimal minPrice,
+			@RequestParam(required = false) BigDecimal maxPrice, @RequestParam(required = false) String sort,
+			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size,
+			@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean fuzzy) {
+
+		if (fuzzy) {
+			return ResponseEntity.ok(productService.fuzzySearchProducts(q, categoryId, page, size));
+		}
+
+		if (cursor != null) {
+			return ResponseEntity
+					.ok(productService.searchProductsPage(q, categoryId, minPrice, maxPrice, sort, cursor, size));
+		}
 
-		List<ProductResponse> list = productService.searchProducts(q, categoryId, page, size);
+		List<ProductSummaryResponse> list = productService.searchProducts(q, categoryId, minPrice, maxPrice, sort,
+				page, size);
 		return ResponseEntity.ok(list);
 	}
 
+	// Repeatable filters are OR-ed within a facet and AND-ed across facets
+	@GetMapping("/search/faceted")
+	public ResponseEntity<FacetedSearchResponse> facetedSearch(@RequestParam(required = false) String q,
+			@RequestParam(required = false) List<Long> categoryId, @RequestParam(required = false) List<Long> shopId,
+			@RequestParam(required = false) List<String> priceBand, @RequestParam(required = false) Boolean inStock,
+			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+
+		FacetedSearchResponse resp = productService.facetedSearch(q, categoryId, shopId, priceBand, inStock, page,
+				size);
+		return ResponseEntity.ok(resp);
+	}
+
 	@GetMapping("/search/suggest")
 	public ResponseEntity<List<String>> searchSuggestions(@RequestParam String q) {
 
@@ -7,10 +7,12 @@ import com.ecommerce.enums.UserRole;
 import com.ecommerce.service.ProductImageService;
 import com.ecommerce.service.ProductService;
 import com.ecommerce.dto.ApiResponse;
+import com.ecommerce.util.HttpCaching;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -57,7 +59,11 @@ public class ProductImageController {
 	}
 
 	@GetMapping("/products/{productId}/images")
-	public ResponseEntity<ApiResponse<List<ProductImage>>> getImages(@PathVariable Long productId) {
+	public ResponseEntity<ApiResponse<List<ProductImage>>> getImages(@PathVariable Long productId,
+			WebRequest request) {
+		if (HttpCaching.notModified(request, "images-" + productId, service.getImagesLastModified(productId)))
+			return null;
+
 		return ResponseEntity.ok(new ApiResponse<>(true, "Fetched", service.getImagesByProduct(productId)));
 	}
 
@@ -0,0 +1,23 @@
+package com.ecommerce.dto;
+
+import java.util.List;
+
+public class CartBatchRequest {
+
+	private List<CartOperationRequest> operations;
+
+	public CartBatchRequest() {
+	}
+
+	public CartBatchRequest(List<CartOperationRequest> operations) {
+		this.operations = operations;
+	}
+
+	public List<CartOperationRequest> getOperations() {
+		return operations;
+	}
+
+	public void setOperations(List<CartOperationRequest> operations) {
+		this.operations = operations;
+	}
+}
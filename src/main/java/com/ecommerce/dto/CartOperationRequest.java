@@ -0,0 +1,48 @@
+package com.ecommerce.dto;
+
+public class CartOperationRequest {
+
+	// add | update | remove
+	private String op;
+	private Long productId;
+	private Integer quantity;
+
+	public CartOperationRequest() {
+	}
+
+	public CartOperationRequest(String op, Long productId, Integer quantity) {
+		this.op = op;
+		this.productId = productId;
+		this.quantity = quantity;
+	}
+
+	public String getOp() {
+		return op;
+	}
+
+	public void setOp(String op) {
+		this.op = op;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+
+	public Integer getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(Integer quantity) {
+		this.quantity = quantity;
+	}
+
+	@Override
+	public String toString() {
+		return "CartOperationRequest{" + "op='" + op + '\'' + ", productId=" + productId + ", quantity=" + quantity
+				+ '}';
+	}
+}
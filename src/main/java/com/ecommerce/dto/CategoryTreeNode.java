@@ -0,0 +1,82 @@
+package com.ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CategoryTreeNode {
+
+	private Long id;
+	private Long parentCategoryId;
+	private String name;
+	private String slug;
+	private long productCount;
+	private long subtreeProductCount;
+	private List<CategoryTreeNode> children = new ArrayList<>();
+
+	public CategoryTreeNode() {
+	}
+
+	public CategoryTreeNode(Long id, Long parentCategoryId, String name, String slug, long productCount) {
+		this.id = id;
+		this.parentCategoryId = parentCategoryId;
+		this.name = name;
+		this.slug = slug;
+		this.productCount = productCount;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getParentCategoryId() {
+		return parentCategoryId;
+	}
+
+	public void setParentCategoryId(Long parentCategoryId) {
+		this.parentCategoryId = parentCategoryId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getSlug() {
+		return slug;
+	}
+
+	public void setSlug(String slug) {
+		this.slug = slug;
+	}
+
+	public long getProductCount() {
+		return productCount;
+	}
+
+	public void setProductCount(long productCount) {
+		this.productCount = productCount;
+	}
+
+	public long getSubtreeProductCount() {
+		return subtreeProductCount;
+	}
+
+	public void setSubtreeProductCount(long subtreeProductCount) {
+		this.subtreeProductCount = subtreeProductCount;
+	}
+
+	public List<CategoryTreeNode> getChildren() {
+		return children;
+	}
+
+	public void setChildren(List<CategoryTreeNode> children) {
+		this.children = children;
+	}
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.dto;
+
+import java.util.List;
+
+public class CategoryTreeResponse {
+
+	private List<CategoryTreeNode> roots;
+	private List<CategoryResponse> breadcrumbs;
+
+	public CategoryTreeResponse() {
+	}
+
+	public CategoryTreeResponse(List<CategoryTreeNode> roots, List<CategoryResponse> breadcrumbs) {
+		this.roots = roots;
+		this.breadcrumbs = breadcrumbs;
+	}
+
+	public List<CategoryTreeNode> getRoots() {
+		return roots;
+	}
+
+	public void setRoots(List<CategoryTreeNode> roots) {
+		this.roots = roots;
+	}
+
+	public List<CategoryResponse> getBreadcrumbs() {
+		return breadcrumbs;
+	}
+
+	public void setBreadcrumbs(List<CategoryResponse> breadcrumbs) {
+		this.breadcrumbs = breadcrumbs;
+	}
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.dto;
+
+import java.util.List;
+
+public class FacetedSearchResponse {
+
+	private List<ProductSummaryResponse> items;
+	private long total;
+	private List<FacetCount> categories;
+	private List<FacetCount> shops;
+	private List<FacetCount> priceBands;
+	private List<FacetCount> stock;
+
+	public List<ProductSummaryResponse> getItems() {
+		return items;
+	}
+
+	public void setItems(List<ProductSummaryResponse> items) {
+		this.items = items;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void setTotal(long total) {
+		this.total = total;
+	}
+
+	public List<FacetCount> getCategories() {
+		return categories;
+	}
+
+	public void setCategories(List<FacetCount> categories) {
+		this.categories = categories;
+	}
+
+	public List<FacetCount> getShops() {
+		return shops;
+	}
+
+	public void setShops(List<FacetCount> shops) {
+		this.shops = shops;
+	}
+
+	public List<FacetCount> getPriceBands() {
+		return priceBands;
+	}
+
+	public void setPriceBands(List<FacetCount> priceBands) {
+		this.priceBands = priceBands;
+	}
+
+	public List<FacetCount> getStock() {
+		return stock;
+	}
+
+	public void setStock(List<FacetCount> stock) {
+		this.stock = stock;
+	}
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.ProductChange;
+
+import java.util.List;
+
+public class ProductChangeFeedResponse {
+
+	private List<ProductChange> changes;
+	private long nextSince;
+	private boolean hasMore;
+
+	public ProductChangeFeedResponse() {
+	}
+
+	public ProductChangeFeedResponse(List<ProductChange> changes, long nextSince, boolean hasMore) {
+		this.changes = changes;
+		this.nextSince = nextSince;
+		this.hasMore = hasMore;
+	}
+
+	public List<ProductChange> getChanges() {
+		return changes;
+	}
+
+	public void setChanges(List<ProductChange> changes) {
+		this.changes = changes;
+	}
+
+	public long getNextSince() {
+		return nextSince;
+	}
+
+	public void setNextSince(long nextSince) {
+		this.nextSince = nextSince;
+	}
+
+	public boolean isHasMore() {
+		return hasMore;
+	}
+
+	public void setHasMore(boolean hasMore) {
+		this.hasMore = hasMore;
+	}
+}
@@ -0,0 +1,74 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.ProductImage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductDetailResponse {
+
+	private ProductResponse product;
+	private List<ProductImage> images;
+	private List<ProductVariantGroupDetailResponse> variants;
+	private InventoryResponse inventory;
+	private RatingSummaryResponse rating;
+	private List<ReviewResponse> reviews;
+	// Sections that failed or timed out and were left empty
+	private List<String> unavailable = new ArrayList<>();
+
+	public ProductResponse getProduct() {
+		return product;
+	}
+
+	public void setProduct(ProductResponse product) {
+		this.product = product;
+	}
+
+	public List<ProductImage> getImages() {
+		return images;
+	}
+
+	public void setImages(List<ProductImage> images) {
+		this.images = images;
+	}
+
+	public List<ProductVariantGroupDetailResponse> getVariants() {
+		return variants;
+	}
+
+	public void setVariants(List<ProductVariantGroupDetailResponse> variants) {
+		this.variants = variants;
+	}
+
+	public InventoryResponse getInventory() {
+		return inventory;
+	}
+
+	public void setInventory(InventoryResponse inventory) {
+		this.inventory = inventory;
+	}
+
+	public RatingSummaryResponse getRating() {
+		return rating;
+	}
+
+	public void setRating(RatingSummaryResponse rating) {
+		this.rating = rating;
+	}
+
+	public List<ReviewResponse> getReviews() {
+		return reviews;
+	}
+
+	public void setReviews(List<ReviewResponse> reviews) {
+		this.reviews = reviews;
+	}
+
+	public List<String> getUnavailable() {
+		return unavailable;
+	}
+
+	public void setUnavailable(List<String> unavailable) {
+		this.unavailable = unavailable;
+	}
+}
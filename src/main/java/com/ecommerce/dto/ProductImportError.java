@@ -0,0 +1,41 @@
+package com.ecommerce.dto;
+
+public class ProductImportError {
+
+	private long row;
+	private String sku;
+	private String message;
+
+	public ProductImportError() {
+	}
+
+	public ProductImportError(long row, String sku, String message) {
+		this.row = row;
+		this.sku = sku;
+		this.message = message;
+	}
+
+	public long getRow() {
+		return row;
+	}
+
+	public void setRow(long row) {
+		this.row = row;
+	}
+
+	public String getSku() {
+		return sku;
+	}
+
+	public void setSku(String sku) {
+		this.sku = sku;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImportResponse {
+
+	private long totalRows;
+	private long imported;
+	private long failed;
+	private long elapsedMs;
+	private double rowsPerSecond;
+	private boolean errorsTruncated;
+	private List<ProductImportError> errors = new ArrayList<>();
+
+	public long getTotalRows() {
+		return totalRows;
+	}
+
+	public void setTotalRows(long totalRows) {
+		this.totalRows = totalRows;
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	public void setImported(long imported) {
+		this.imported = imported;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public void setFailed(long failed) {
+		this.failed = failed;
+	}
+
+	public long getElapsedMs() {
+		return elapsedMs;
+	}
+
+	public void setElapsedMs(long elapsedMs) {
+		this.elapsedMs = elapsedMs;
+	}
+
+	public double getRowsPerSecond() {
+		return rowsPerSecond;
+	}
+
+	public void setRowsPerSecond(double rowsPerSecond) {
+		this.rowsPerSecond = rowsPerSecond;
+	}
+
+	public boolean isErrorsTruncated() {
+		return errorsTruncated;
+	}
+
+	public void setErrorsTruncated(boolean errorsTruncated) {
+		this.errorsTruncated = errorsTruncated;
+	}
+
+	public List<ProductImportError> getErrors() {
+		return errors;
+	}
+
+	public void setErrors(List<ProductImportError> errors) {
+		this.errors = errors;
+	}
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.dto;
+
+import java.util.List;
+
+public class ProductPageResponse {
+
+	private List<ProductSummaryResponse> items;
+	private String nextCursor;
+
+	public ProductPageResponse() {
+	}
+
+	public ProductPageResponse(List<ProductSummaryResponse> items, String nextCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<ProductSummaryResponse> getItems() {
+		return items;
+	}
+
+	public void setItems(List<ProductSummaryResponse> items) {
+		this.items = items;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductVariantGroupDetailResponse {
+
+	private Long id;
+	private String groupName;
+	private List<ProductVariantValueDetailResponse> values = new ArrayList<>();
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getGroupName() {
+		return groupName;
+	}
+
+	public void setGroupName(String groupName) {
+		this.groupName = groupName;
+	}
+
+	public List<ProductVariantValueDetailResponse> getValues() {
+		return values;
+	}
+
+	public void setValues(List<ProductVariantValueDetailResponse> values) {
+		this.values = values;
+	}
+}
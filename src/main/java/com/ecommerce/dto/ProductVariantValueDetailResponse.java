@@ -0,0 +1,43 @@
+package com.ecommerce.dto;
+
+import java.math.BigDecimal;
+
+public class ProductVariantValueDetailResponse {
+
+	private Long id;
+	private String valueName;
+	private Integer quantity;
+	private BigDecimal priceOffset;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getValueName() {
+		return valueName;
+	}
+
+	public void setValueName(String valueName) {
+		this.valueName = valueName;
+	}
+
+	public Integer getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(Integer quantity) {
+		this.quantity = quantity;
+	}
+
+	public BigDecimal getPriceOffset() {
+		return priceOffset;
+	}
+
+	public void setPriceOffset(BigDecimal priceOffset) {
+		this.priceOffset = priceOffset;
+	}
+}
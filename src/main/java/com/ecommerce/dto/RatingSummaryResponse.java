@@ -0,0 +1,43 @@
+package com.ecommerce.dto;
+
+import java.util.Map;
+
+public class RatingSummaryResponse {
+
+	private double average;
+	private long count;
+	private Map<Integer, Long> distribution;
+
+	public RatingSummaryResponse() {
+	}
+
+	public RatingSummaryResponse(double average, long count, Map<Integer, Long> distribution) {
+		this.average = average;
+		this.count = count;
+		this.distribution = distribution;
+	}
+
+	public double getAverage() {
+		return average;
+	}
+
+	public void setAverage(double average) {
+		this.average = average;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	public Map<Integer, Long> getDistribution() {
+		return distribution;
+	}
+
+	public void setDistribution(Map<Integer, Long> distribution) {
+		this.distribution = distribution;
+	}
+}
@@ -0,0 +1,32 @@
+package com.ecommerce.dto;
+
+public class ShopProductSummaryResponse extends ProductSummaryResponse {
+
+	private Long categoryId;
+	private String sku;
+	private Boolean isActive;
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(Long categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public String getSku() {
+		return sku;
+	}
+
+	public void setSku(String sku) {
+		this.sku = sku;
+	}
+
+	public Boolean getIsActive() {
+		return isActive;
+	}
+
+	public void setIsActive(Boolean isActive) {
+		this.isActive = isActive;
+	}
+}
@@ -0,0 +1,5 @@
+package com.ecommerce.enums;
+
+public enum CartUpsertResult {
+	INSERTED, MERGED, REJECTED
+}
@@ -0,0 +1,5 @@
+package com.ecommerce.enums;
+
+public enum IdempotencyScope {
+	PLACE_ORDER, PROCESS_PAYMENT
+}
@@ -0,0 +1,5 @@
+package com.ecommerce.enums;
+
+public enum ProductChangeType {
+	CREATED, UPDATED, PRICE_CHANGED, DELETED, IMAGES_CHANGED
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.enums;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.ProductSummary;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/*
+ * Listing orders. Each sorts on one indexed column with id as tie-breaker, and
+ * knows how to write and read that column's value in a keyset cursor.
+ */
+public enum ProductSort {
+
+	NEWEST("created_at", true), PRICE_ASC("selling_price", false), PRICE_DESC("selling_price", true),
+	RATING("avg_rating", true), POPULARITY("popularity", true);
+
+	private final String column;
+	private final boolean descending;
+
+	ProductSort(String column, boolean descending) {
+		this.column = column;
+		this.descending = descending;
+	}
+
+	public String getColumn() {
+		return column;
+	}
+
+	public boolean isDescending() {
+		return descending;
+	}
+
+	public String param() {
+		return name().toLowerCase(Locale.ROOT);
+	}
+
+	// null when no sort was requested
+	public static ProductSort fromParam(String value) {
+		if (value == null || value.isBlank())
+			return null;
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("sort must be one of price_asc, price_desc, newest, rating, popularity");
+		}
+	}
+
+	public String keyOf(ProductSummary p) {
+		return switch (this) {
+		case NEWEST -> p.getCreatedAt().toString();
+		case PRICE_ASC, PRICE_DESC -> BigDecimal.valueOf(p.getSellingPrice()).toPlainString();
+		case RATING -> BigDecimal.valueOf(p.getAvgRating()).toPlainString();
+		case POPULARITY -> Long.toString(p.getPopularity());
+		};
+	}
+
+	// Cursor key as a JDBC parameter for this sort's column
+	public Object parseKey(String key) {
+		try {
+			return switch (this) {
+			case NEWEST -> Timestamp.valueOf(LocalDateTime.parse(key));
+			case PRICE_ASC, PRICE_DESC, RATING -> new BigDecimal(key);
+			case POPULARITY -> Long.parseLong(key);
+			};
+		} catch (DateTimeParseException | NumberFormatException e) {
+			throw new BadRequestException("Invalid cursor");
+		}
+	}
+}
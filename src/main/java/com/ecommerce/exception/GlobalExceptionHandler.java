@@ -55,6 +55,19 @@ public class GlobalExceptionHandler {
 		return new ResponseEntity<>(body, HttpStatus.UNAUTHORIZED);
 	}
 
+	@ExceptionHandler(ServiceUnavailableException.class)
+	public ResponseEntity<Map<String, Object>> handleServiceUnavailable(ServiceUnavailableException ex) {
+
+		Map<String, Object> body = new HashMap<>();
+		body.put("timestamp", LocalDateTime.now().toString());
+		body.put("error", "Service Unavailable");
+		body.put("message", ex.getMessage());
+		body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+		body.put("success", false);
+
+		return new ResponseEntity<>(body, HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
 	@ExceptionHandler(HttpMessageNotReadableException.class)
 	public ResponseEntity<Map<String, Object>> handleHttpMessageNotReadable(HttpMessageNotReadableException ex) {
 
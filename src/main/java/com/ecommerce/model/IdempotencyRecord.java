@@ -0,0 +1,42 @@
+package com.ecommerce.model;
+
+// A completed request stored under its Idempotency-Key; see idempotency_keys
+public class IdempotencyRecord {
+
+	private String fingerprint;
+	private String responseBody;
+	private boolean expired;
+
+	public IdempotencyRecord() {
+	}
+
+	public IdempotencyRecord(String fingerprint, String responseBody, boolean expired) {
+		this.fingerprint = fingerprint;
+		this.responseBody = responseBody;
+		this.expired = expired;
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public void setFingerprint(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	public String getResponseBody() {
+		return responseBody;
+	}
+
+	public void setResponseBody(String responseBody) {
+		this.responseBody = responseBody;
+	}
+
+	public boolean isExpired() {
+		return expired;
+	}
+
+	public void setExpired(boolean expired) {
+		this.expired = expired;
+	}
+}
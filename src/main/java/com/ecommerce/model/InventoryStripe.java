@@ -0,0 +1,52 @@
+package com.ecommerce.model;
+
+// One slice of a striped product's stock; see inventory_stripes
+public class InventoryStripe {
+
+	private Long productId;
+	private Integer stripe;
+	private Integer quantity;
+	private Integer reserved;
+
+	public InventoryStripe() {
+	}
+
+	public InventoryStripe(Long productId, Integer stripe, Integer quantity, Integer reserved) {
+		this.productId = productId;
+		this.stripe = stripe;
+		this.quantity = quantity;
+		this.reserved = reserved;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+
+	public Integer getStripe() {
+		return stripe;
+	}
+
+	public void setStripe(Integer stripe) {
+		this.stripe = stripe;
+	}
+
+	public Integer getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(Integer quantity) {
+		this.quantity = quantity;
+	}
+
+	public Integer getReserved() {
+		return reserved;
+	}
+
+	public void setReserved(Integer reserved) {
+		this.reserved = reserved;
+	}
+}
@@ -0,0 +1,85 @@
+package com.ecommerce.model;
+
+import java.math.BigDecimal;
+
+// Live purchase state of a product: its shop and both active flags, and the current price
+public class ProductAvailability {
+
+	private Long productId;
+	private String name;
+	private Long shopId;
+	private String shopName;
+	private String primaryImage;
+	private BigDecimal currentPrice;
+	private boolean available;
+
+	public ProductAvailability() {
+	}
+
+	public ProductAvailability(Long productId, String name, Long shopId, String shopName, String primaryImage,
+			BigDecimal currentPrice, boolean available) {
+		this.productId = productId;
+		this.name = name;
+		this.shopId = shopId;
+		this.shopName = shopName;
+		this.primaryImage = primaryImage;
+		this.currentPrice = currentPrice;
+		this.available = available;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Long getShopId() {
+		return shopId;
+	}
+
+	public void setShopId(Long shopId) {
+		this.shopId = shopId;
+	}
+
+	public String getShopName() {
+		return shopName;
+	}
+
+	public void setShopName(String shopName) {
+		this.shopName = shopName;
+	}
+
+	public String getPrimaryImage() {
+		return primaryImage;
+	}
+
+	public void setPrimaryImage(String primaryImage) {
+		this.primaryImage = primaryImage;
+	}
+
+	public BigDecimal getCurrentPrice() {
+		return currentPrice;
+	}
+
+	public void setCurrentPrice(BigDecimal currentPrice) {
+		this.currentPrice = currentPrice;
+	}
+
+	public boolean isAvailable() {
+		return available;
+	}
+
+	public void setAvailable(boolean available) {
+		this.available = available;
+	}
+}
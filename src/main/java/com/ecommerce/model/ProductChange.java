@@ -0,0 +1,55 @@
+package com.ecommerce.model;
+
+import com.ecommerce.enums.ProductChangeType;
+
+import java.time.LocalDateTime;
+
+public class ProductChange {
+
+	private long seq;
+	private Long productId;
+	private ProductChangeType changeType;
+	private LocalDateTime changedAt;
+
+	public ProductChange() {
+	}
+
+	public ProductChange(long seq, Long productId, ProductChangeType changeType, LocalDateTime changedAt) {
+		this.seq = seq;
+		this.productId = productId;
+		this.changeType = changeType;
+		this.changedAt = changedAt;
+	}
+
+	public long getSeq() {
+		return seq;
+	}
+
+	public void setSeq(long seq) {
+		this.seq = seq;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+
+	public ProductChangeType getChangeType() {
+		return changeType;
+	}
+
+	public void setChangeType(ProductChangeType changeType) {
+		this.changeType = changeType;
+	}
+
+	public LocalDateTime getChangedAt() {
+		return changedAt;
+	}
+
+	public void setChangedAt(LocalDateTime changedAt) {
+		this.changedAt = changedAt;
+	}
+}
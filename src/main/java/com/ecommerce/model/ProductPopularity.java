@@ -0,0 +1,58 @@
+package com.ecommerce.model;
+
+public class ProductPopularity {
+
+	// Five points per unit ordered, one per view; products.popularity uses the same weighting
+	public static final long ORDER_VOLUME_WEIGHT = 5;
+
+	private Long productId;
+	private String name;
+	private long orderVolume;
+	private long views;
+
+	public ProductPopularity() {
+	}
+
+	public ProductPopularity(Long productId, String name, long orderVolume, long views) {
+		this.productId = productId;
+		this.name = name;
+		this.orderVolume = orderVolume;
+		this.views = views;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public long getOrderVolume() {
+		return orderVolume;
+	}
+
+	public void setOrderVolume(long orderVolume) {
+		this.orderVolume = orderVolume;
+	}
+
+	public long getViews() {
+		return views;
+	}
+
+	public void setViews(long views) {
+		this.views = views;
+	}
+
+	public long getScore() {
+		return orderVolume * ORDER_VOLUME_WEIGHT + views;
+	}
+}
@@ -0,0 +1,59 @@
+package com.ecommerce.model;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+public class ProductSearchCriteria {
+
+	private String query;
+	private Collection<Long> categoryIds;
+	private BigDecimal minPrice;
+	private BigDecimal maxPrice;
+
+	public ProductSearchCriteria() {
+	}
+
+	public ProductSearchCriteria(String query, Collection<Long> categoryIds, BigDecimal minPrice,
+			BigDecimal maxPrice) {
+		this.query = query;
+		this.categoryIds = categoryIds;
+		this.minPrice = minPrice;
+		this.maxPrice = maxPrice;
+	}
+
+	public boolean hasPriceRange() {
+		return minPrice != null || maxPrice != null;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public void setQuery(String query) {
+		this.query = query;
+	}
+
+	public Collection<Long> getCategoryIds() {
+		return categoryIds;
+	}
+
+	public void setCategoryIds(Collection<Long> categoryIds) {
+		this.categoryIds = categoryIds;
+	}
+
+	public BigDecimal getMinPrice() {
+		return minPrice;
+	}
+
+	public void setMinPrice(BigDecimal minPrice) {
+		this.minPrice = minPrice;
+	}
+
+	public BigDecimal getMaxPrice() {
+		return maxPrice;
+	}
+
+	public void setMaxPrice(BigDecimal maxPrice) {
+		this.maxPrice = maxPrice;
+	}
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.model;
+
+import java.time.LocalDateTime;
+
+public class ProductSummary {
+
+	private Long id;
+	private Long shopId;
+	private String name;
+	private Double sellingPrice;
+	private Double mrp;
+	private LocalDateTime createdAt;
+	private double avgRating;
+	private long popularity;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getShopId() {
+		return shopId;
+	}
+
+	public void setShopId(Long shopId) {
+		this.shopId = shopId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Double getSellingPrice() {
+		return sellingPrice;
+	}
+
+	public void setSellingPrice(Double sellingPrice) {
+		this.sellingPrice = sellingPrice;
+	}
+
+	public Double getMrp() {
+		return mrp;
+	}
+
+	public void setMrp(Double mrp) {
+		this.mrp = mrp;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public double getAvgRating() {
+		return avgRating;
+	}
+
+	public void setAvgRating(double avgRating) {
+		this.avgRating = avgRating;
+	}
+
+	public long getPopularity() {
+		return popularity;
+	}
+
+	public void setPopularity(long popularity) {
+		this.popularity = popularity;
+	}
+}
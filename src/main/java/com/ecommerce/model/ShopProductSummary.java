@@ -0,0 +1,32 @@
+package com.ecommerce.model;
+
+public class ShopProductSummary extends ProductSummary {
+
+	private Long categoryId;
+	private String sku;
+	private boolean active;
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(Long categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public String getSku() {
+		return sku;
+	}
+
+	public void setSku(String sku) {
+		this.sku = sku;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.model;
+
+// A line a bulk reservation could not cover: what was asked for against what was free
+public class StockShortage {
+
+	private Long productId;
+	private int requested;
+	private int available;
+
+	public StockShortage() {
+	}
+
+	public StockShortage(Long productId, int requested, int available) {
+		this.productId = productId;
+		this.requested = requested;
+		this.available = available;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+
+	public int getRequested() {
+		return requested;
+	}
+
+	public void setRequested(int requested) {
+		this.requested = requested;
+	}
+
+	public int getAvailable() {
+		return available;
+	}
+
+	public void setAvailable(int available) {
+		this.available = available;
+	}
+}
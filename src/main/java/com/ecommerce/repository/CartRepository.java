@@ -1,7 +1,9 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.enums.CartUpsertResult;
 import com.ecommerce.model.Cart;
 import com.ecommerce.model.CartItem;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,16 +15,44 @@ public interface CartRepository {
 
 	Cart create(Long userId);
 
+	Long upsertCart(Long userId);
+
 	void updateTimestamp(Long cartId);
 
+	void touchCarts(Collection<Long> cartIds);
+
 	void delete(Long cartId);
 
+	List<Cart> findIdleCarts(int idleDays, int limit);
+
+	List<Long> lockIdleCarts(Collection<Long> cartIds, int idleDays);
+
+	int deleteItemsByCartIds(Collection<Long> cartIds);
+
+	int deleteCarts(Collection<Long> cartIds);
+
 	List<CartItem> findItemsByCartId(Long cartId);
 
 	Optional<CartItem> findCartItem(Long cartId, Long productId);
 
 	CartItem addItem(CartItem cartItem);
 
+	CartUpsertResult upsertItem(CartItem cartItem, int maxQuantity);
+
+	List<CartItem> findItemsForUpdate(Long cartId);
+
+	List<CartItem> findLinesByCartId(Long cartId);
+
+	List<CartItem> findLinesByCartIds(Collection<Long> cartIds);
+
+	void upsertItems(List<CartItem> items);
+
+	void insertItems(List<CartItem> items);
+
+	void updateItemQuantities(List<CartItem> items);
+
+	void removeItems(Collection<Long> cartItemIds);
+
 	void updateItemQuantity(Long cartItemId, Integer quantity);
 
 	void removeItem(Long cartItemId);
@@ -1,7 +1,9 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.Category;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CategoryRepository {
@@ -19,4 +21,10 @@ public interface CategoryRepository {
 	boolean updateActiveFlag(Long id, boolean active);
 
 	boolean update(Category c);
+
+	LocalDateTime findLastModified();
+
+	LocalDateTime findProductsLastModified();
+
+	Map<Long, Long> countActiveProductsByCategory();
 }
\ No newline at end of file
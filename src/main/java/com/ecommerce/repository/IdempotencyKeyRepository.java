@@ -0,0 +1,19 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.enums.IdempotencyScope;
+import com.ecommerce.model.IdempotencyRecord;
+
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository {
+
+	Optional<IdempotencyRecord> find(Long userId, IdempotencyScope scope, String key);
+
+	void insert(Long userId, IdempotencyScope scope, String key, String fingerprint, long ttlSeconds);
+
+	void complete(Long userId, IdempotencyScope scope, String key, String responseBody);
+
+	boolean deleteIfExpired(Long userId, IdempotencyScope scope, String key);
+
+	int deleteExpired(int limit);
+}
@@ -1,7 +1,11 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.Inventory;
+import com.ecommerce.model.InventoryStripe;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface InventoryRepository {
@@ -10,6 +14,8 @@ public interface InventoryRepository {
 
 	boolean createInventory(Long productId, int initialQuantity);
 
+	void createInventories(Map<Long, Integer> initialQuantities);
+
 	boolean update(Inventory inventory);
 
 	boolean increaseStock(Long productId, int quantity);
@@ -18,7 +24,33 @@ public interface InventoryRepository {
 
 	boolean reserveStock(Long productId, int quantity);
 
+	Map<Long, Inventory> lockByProductIds(Collection<Long> productIds);
+
+	List<Long> reserveStocks(Map<Long, Integer> quantities);
+
 	boolean releaseReservedStock(Long productId, int quantity);
 
 	boolean consumeReservedOnOrder(Long productId, int quantity);
+
+	List<Long> findInStockProductIds();
+
+	Map<Long, Integer> findStripeCounts();
+
+	int countStripes(Long productId);
+
+	List<InventoryStripe> findStripes(Long productId);
+
+	List<InventoryStripe> lockStripes(Long productId);
+
+	void createStripes(List<InventoryStripe> stripes);
+
+	void updateStripes(List<InventoryStripe> stripes);
+
+	void deleteStripes(Long productId);
+
+	boolean reserveOnStripe(Long productId, int stripe, int quantity);
+
+	boolean releaseOnStripe(Long productId, int stripe, int quantity);
+
+	boolean consumeOnStripe(Long productId, int stripe, int quantity);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.enums.ProductChangeType;
+import com.ecommerce.model.ProductChange;
+
+import java.util.List;
+
+public interface ProductChangeRepository {
+
+	void record(Long productId, ProductChangeType type);
+
+	void recordAll(List<Long> productIds, ProductChangeType type);
+
+	void recordForImage(Long imageId, ProductChangeType type);
+
+	List<ProductChange> findSince(long seq, int gapTimeoutMillis, int limit);
+
+	int deleteOlderThan(int retentionDays, int limit);
+}
@@ -1,7 +1,10 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.ProductImage;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ProductImageRepository {
@@ -16,6 +19,8 @@ public interface ProductImageRepository {
 
 	List<ProductImage> findByProductId(Long productId);
 
+	Map<Long, String> findPrimaryImagePaths(Collection<Long> productIds);
+
 	List<ProductImage> findAllByProductIdIncludeDeleted(Long productId);
 
 	boolean clearPrimaryForProduct(Long productId);
@@ -26,4 +31,8 @@ public interface ProductImageRepository {
 
 	Long findProductIdByImageId(Long imageId);
 
+	void refreshPrimaryImage(Long productId);
+
+	LocalDateTime findLastModified(Long productId);
+
 }
\ No newline at end of file
@@ -1,31 +1,74 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.enums.ProductSort;
 import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductAvailability;
+import com.ecommerce.model.ProductPopularity;
+import com.ecommerce.model.ProductSearchCriteria;
+import com.ecommerce.model.ProductSummary;
+import com.ecommerce.model.ShopProductSummary;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface ProductRepository {
 
 	Long save(Product product);
 
+	List<Long> saveAll(List<Product> products);
+
 	boolean update(Product product);
 
 	boolean softDelete(Long id);
 
 	Optional<Product> findById(Long id);
 
+	// Reads the row with SELECT ... FOR UPDATE; must run inside a transaction
+	Optional<Product> lockById(Long id);
+
+	List<Product> findByIds(List<Long> ids);
+
+	List<ProductSummary> findSummariesByIds(List<Long> ids);
+
+	Map<Long, ProductAvailability> findAvailability(Collection<Long> ids);
+
 	List<Product> findAllActive();
 
+	List<ProductSummary> findActiveSummaries();
+
 	List<Product> findByShopId(Long shopId);
 
+	List<ShopProductSummary> findSummariesByShopId(Long shopId);
+
 	List<Product> findAll();
 
+	void streamAll(Long shopId, boolean activeOnly, Consumer<Product> consumer);
+
 	boolean existsBySku(String sku);
 
-	List<Product> search(String q, Long categoryId, int limit, int offset);
+	Set<String> findExistingSkus(Collection<String> skus);
+
+	List<ProductSummary> search(ProductSearchCriteria criteria, ProductSort sort, int limit, int offset);
+
+	List<ProductSummary> searchAfter(ProductSearchCriteria criteria, ProductSort sort, Object afterKey, Long afterId,
+			int limit);
+
+	void refreshRating(Long productId);
+
+	int refreshPopularity();
+
+	int refreshPopularity(Collection<Long> productIds);
 
 	Long findShopOwnerId(Long shopId);
 
 	List<String> searchSuggestions(String query);
 
+	List<ProductPopularity> findActiveProductPopularity();
+
+	LocalDateTime findLastModified();
+
 }
\ No newline at end of file
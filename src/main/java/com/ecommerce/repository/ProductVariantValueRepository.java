@@ -16,4 +16,6 @@ public interface ProductVariantValueRepository {
 	Optional<ProductVariantValue> findById(Long id);
 
 	List<ProductVariantValue> findByGroupId(Long groupId);
+
+	List<ProductVariantValue> findByProductId(Long productId);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.ecommerce.repository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.ecommerce.model.Review;
@@ -21,4 +22,8 @@ public interface ReviewRepository {
 
 	Double avgRating(Long productId);
 
+	List<Review> findNewest(Long productId, int limit);
+
+	Map<Integer, Long> countByRating(Long productId);
+
 }
\ No newline at end of file
@@ -0,0 +1,265 @@
+package com.ecommerce.repository.impl;
+
+import com.ecommerce.enums.ProductSort;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductAvailability;
+import com.ecommerce.model.ProductPopularity;
+import com.ecommerce.model.ProductSearchCriteria;
+import com.ecommerce.model.ProductSummary;
+import com.ecommerce.model.ShopProductSummary;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.util.LruTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/*
+ * Read-through cache in front of ProductRepositoryImpl for lookups by id.
+ * Every caller that injects ProductRepository gets this bean; writes go
+ * straight to MySQL and drop the cached row, once straight away and again
+ * after the surrounding transaction completes. A reader only stores what it
+ * loaded if neither drop happened while it was loading, so a row read before
+ * a write commits is never cached after it. Products are copied in and out
+ * because callers mutate the instances they get back before calling update().
+ */
+@Primary
+@Repository
+public class CachingProductRepository implements ProductRepository {
+
+	private final ProductRepositoryImpl delegate;
+	private final LruTtlCache<Long, Product> cache;
+
+	public CachingProductRepository(ProductRepositoryImpl delegate,
+			@Value("${product.cache.max-size:10000}") int maxSize,
+			@Value("${product.cache.ttl-seconds:300}") long ttlSeconds) {
+		this.delegate = delegate;
+		this.cache = new LruTtlCache<>(maxSize, ttlSeconds * 1000);
+	}
+
+	public Map<String, Object> cacheStats() {
+		return cache.stats();
+	}
+
+	@Override
+	public Long save(Product product) {
+		Long id = delegate.save(product);
+		invalidate(id);
+		return id;
+	}
+
+	@Override
+	public List<Long> saveAll(List<Product> products) {
+		return delegate.saveAll(products);
+	}
+
+	@Override
+	public boolean update(Product product) {
+		try {
+			return delegate.update(product);
+		} finally {
+			invalidate(product.getId());
+		}
+	}
+
+	@Override
+	public boolean softDelete(Long id) {
+		try {
+			return delegate.softDelete(id);
+		} finally {
+			invalidate(id);
+		}
+	}
+
+	@Override
+	public Optional<Product> findById(Long id) {
+		Product cached = cache.get(id);
+		if (cached != null)
+			return Optional.of(copy(cached));
+
+		long stamp = cache.stamp(id);
+		Optional<Product> loaded = delegate.findById(id);
+		loaded.ifPresent(p -> cache.putIfUnchanged(id, copy(p), stamp));
+		return loaded;
+	}
+
+	// Read-modify-write callers need the current row, so this never touches the cache
+	@Override
+	public Optional<Product> lockById(Long id) {
+		return delegate.lockById(id);
+	}
+
+	@Override
+	public List<Product> findByIds(List<Long> ids) {
+		if (ids == null || ids.isEmpty())
+			return List.of();
+
+		Map<Long, Product> found = new HashMap<>();
+		List<Long> missing = new ArrayList<>();
+		for (Long id : ids) {
+			Product cached = cache.get(id);
+			if (cached != null)
+				found.put(id, copy(cached));
+			else
+				missing.add(id);
+		}
+
+		if (!missing.isEmpty()) {
+			Map<Long, Long> stamps = new HashMap<>();
+			for (Long id : missing) {
+				stamps.put(id, cache.stamp(id));
+			}
+			for (Product p : delegate.findByIds(missing)) {
+				cache.putIfUnchanged(p.getId(), copy(p), stamps.get(p.getId()));
+				found.put(p.getId(), p);
+			}
+		}
+
+		List<Product> ordered = new ArrayList<>(found.size());
+		for (Long id : ids) {
+			Product p = found.get(id);
+			if (p != null)
+				ordered.add(p);
+		}
+		return ordered;
+	}
+
+	@Override
+	public List<ProductSummary> findSummariesByIds(List<Long> ids) {
+		return delegate.findSummariesByIds(ids);
+	}
+
+	// Checkout validation must see live prices, so this bypasses the cache
+	@Override
+	public Map<Long, ProductAvailability> findAvailability(Collection<Long> ids) {
+		return delegate.findAvailability(ids);
+	}
+
+	@Override
+	public List<Product> findAllActive() {
+		return delegate.findAllActive();
+	}
+
+	@Override
+	public List<ProductSummary> findActiveSummaries() {
+		return delegate.findActiveSummaries();
+	}
+
+	@Override
+	public List<Product> findByShopId(Long shopId) {
+		return delegate.findByShopId(shopId);
+	}
+
+	@Override
+	public List<ShopProductSummary> findSummariesByShopId(Long shopId) {
+		return delegate.findSummariesByShopId(shopId);
+	}
+
+	@Override
+	public List<Product> findAll() {
+		return delegate.findAll();
+	}
+
+	@Override
+	public void streamAll(Long shopId, boolean activeOnly, Consumer<Product> consumer) {
+		delegate.streamAll(shopId, activeOnly, consumer);
+	}
+
+	@Override
+	public boolean existsBySku(String sku) {
+		return delegate.existsBySku(sku);
+	}
+
+	@Override
+	public Set<String> findExistingSkus(Collection<String> skus) {
+		return delegate.findExistingSkus(skus);
+	}
+
+	@Override
+	public List<ProductSummary> search(ProductSearchCriteria criteria, ProductSort sort, int limit, int offset) {
+		return delegate.search(criteria, sort, limit, offset);
+	}
+
+	@Override
+	public List<ProductSummary> searchAfter(ProductSearchCriteria criteria, ProductSort sort, Object afterKey,
+			Long afterId, int limit) {
+		return delegate.searchAfter(criteria, sort, afterKey, afterId, limit);
+	}
+
+	// Ratings and popularity are not part of the cached Product, so nothing to invalidate
+	@Override
+	public void refreshRating(Long productId) {
+		delegate.refreshRating(productId);
+	}
+
+	@Override
+	public int refreshPopularity() {
+		return delegate.refreshPopularity();
+	}
+
+	@Override
+	public int refreshPopularity(Collection<Long> productIds) {
+		return delegate.refreshPopularity(productIds);
+	}
+
+	@Override
+	public Long findShopOwnerId(Long shopId) {
+		return delegate.findShopOwnerId(shopId);
+	}
+
+	@Override
+	public List<String> searchSuggestions(String query) {
+		return delegate.searchSuggestions(query);
+	}
+
+	@Override
+	public List<ProductPopularity> findActiveProductPopularity() {
+		return delegate.findActiveProductPopularity();
+	}
+
+	@Override
+	public LocalDateTime findLastModified() {
+		return delegate.findLastModified();
+	}
+
+	// Readers that loaded the old row before the write committed would otherwise cache it again
+	private void invalidate(Long id) {
+		cache.invalidate(id);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					cache.invalidate(id);
+				}
+			});
+		}
+	}
+
+	private static Product copy(Product p) {
+		Product c = new Product();
+		c.setId(p.getId());
+		c.setShopId(p.getShopId());
+		c.setCategoryId(p.getCategoryId());
+		c.setSku(p.getSku());
+		c.setName(p.getName());
+		c.setShortDescription(p.getShortDescription());
+		c.setDescription(p.getDescription());
+		c.setSellingPrice(p.getSellingPrice());
+		c.setMrp(p.getMrp());
+		c.setIsActive(p.getIsActive());
+		c.setCreatedAt(p.getCreatedAt());
+		c.setUpdatedAt(p.getUpdatedAt());
+		return c;
+	}
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.repository.impl;
 
+import com.ecommerce.enums.CartUpsertResult;
 import com.ecommerce.model.Cart;
 import com.ecommerce.model.CartItem;
 import com.ecommerce.repository.CartRepository;
@@ -14,7 +15,11 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -63,12 +68,46 @@ public class CartRepositoryImpl implements CartRepository {
 		return findById(newId).orElseThrow();
 	}
 
+	// Creates the cart or touches updated_at; LAST_INSERT_ID(id) hands back the existing id on the update path
+	@Override
+	public Long upsertCart(Long userId) {
+		String sql = """
+				INSERT INTO carts (user_id, updated_at) VALUES (?, NOW())
+				ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id), updated_at = NOW()
+				""";
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+
+		jdbc.update(connection -> {
+			PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			ps.setLong(1, userId);
+			return ps;
+		}, keyHolder);
+
+		// The driver may report a second key when the row was updated; the first is LAST_INSERT_ID
+		List<Map<String, Object>> keys = keyHolder.getKeyList();
+		if (!keys.isEmpty() && !keys.get(0).isEmpty()
+				&& keys.get(0).values().iterator().next() instanceof Number id)
+			return id.longValue();
+
+		// No key came back (a driver or proxy that drops them on the update path): the row exists either way
+		return jdbc.queryForObject("SELECT id FROM carts WHERE user_id = ?", Long.class, userId);
+	}
+
 	@Override
 	public void updateTimestamp(Long cartId) {
 		String sql = "UPDATE carts SET updated_at = NOW() WHERE id = ?";
 		jdbc.update(sql, cartId);
 	}
 
+	@Override
+	public void touchCarts(Collection<Long> cartIds) {
+		if (cartIds.isEmpty())
+			return;
+		List<Long> ids = new ArrayList<>(cartIds);
+		String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+		jdbc.update("UPDATE carts SET updated_at = NOW() WHERE id IN (" + placeholders + ")", ids.toArray());
+	}
+
 	@Override
 	public void delete(Long cartId) {
 		clearCart(cartId); // Delete items first
@@ -76,6 +115,44 @@ public class CartRepositoryImpl implements CartRepository {
 		jdbc.update(sql, cartId);
 	}
 
+	// Oldest first, walking idx_carts_updated_at
+	@Override
+	public List<Cart> findIdleCarts(int idleDays, int limit) {
+		String sql = "SELECT * FROM carts WHERE updated_at < NOW() - INTERVAL ? DAY ORDER BY updated_at LIMIT ?";
+		return jdbc.query(sql, cartMapper, idleDays, limit);
+	}
+
+	// Re-checks the age under a row lock, so a cart touched since it was found is skipped
+	@Override
+	public List<Long> lockIdleCarts(Collection<Long> cartIds, int idleDays) {
+		if (cartIds.isEmpty())
+			return List.of();
+		List<Object> args = new ArrayList<>(cartIds);
+		String placeholders = String.join(",", Collections.nCopies(args.size(), "?"));
+		args.add(idleDays);
+		String sql = "SELECT id FROM carts WHERE id IN (" + placeholders
+				+ ") AND updated_at < NOW() - INTERVAL ? DAY FOR UPDATE";
+		return jdbc.queryForList(sql, Long.class, args.toArray());
+	}
+
+	@Override
+	public int deleteItemsByCartIds(Collection<Long> cartIds) {
+		if (cartIds.isEmpty())
+			return 0;
+		List<Long> ids = new ArrayList<>(cartIds);
+		String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+		return jdbc.update("DELETE FROM cart_items WHERE cart_id IN (" + placeholders + ")", ids.toArray());
+	}
+
+	@Override
+	public int deleteCarts(Collection<Long> cartIds) {
+		if (cartIds.isEmpty())
+			return 0;
+		List<Long> ids = new ArrayList<>(cartIds);
+		String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+		return jdbc.update("DELETE FROM carts WHERE id IN (" + placeholders + ")", ids.toArray());
+	}
+
 	@Override
 	public List<CartItem> findItemsByCartId(Long cartId) {
 		String sql = """
@@ -84,11 +161,7 @@ public class CartRepositoryImpl implements CartRepository {
 				           p.selling_price as current_price,
 				           s.id as shop_id,
 				           s.name as shop_name,
-				           (SELECT image_path
-				            FROM product_images pi
-				            WHERE pi.product_id = p.id
-				            AND pi.is_primary = 1
-				            LIMIT 1) as image_path
+				           p.primary_image as image_path
 				    FROM cart_items ci
 				    JOIN products p ON ci.product_id = p.id AND p.is_active = 1
 				    JOIN shops s ON p.shop_id = s.id AND s.is_active = 1
@@ -127,23 +200,133 @@ public class CartRepositoryImpl implements CartRepository {
 		return cartItem;
 	}
 
+	/*
+	 * Adds to the line for (cart_id, product_id), creating it if needed, in
+	 * one statement. The unique key makes concurrent adds merge instead of
+	 * duplicating, and a merge that would pass maxQuantity leaves the line
+	 * as it was. On INSERTED the generated id is set on cartItem.
+	 */
+	@Override
+	public CartUpsertResult upsertItem(CartItem cartItem, int maxQuantity) {
+		String sql = """
+				INSERT INTO cart_items (cart_id, product_id, quantity, price_at_add)
+				VALUES (?, ?, ?, ?)
+				ON DUPLICATE KEY UPDATE
+				    quantity = IF(quantity + VALUES(quantity) <= ?, quantity + VALUES(quantity), quantity)
+				""";
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+
+		int affected = jdbc.update(connection -> {
+			PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			ps.setLong(1, cartItem.getCartId());
+			ps.setLong(2, cartItem.getProductId());
+			ps.setInt(3, cartItem.getQuantity());
+			ps.setBigDecimal(4, cartItem.getPriceAtAdd());
+			ps.setInt(5, maxQuantity);
+			return ps;
+		}, keyHolder);
+
+		/*
+		 * MySQL reports 2 for a changed duplicate and 1 for an inserted row. A
+		 * duplicate left unchanged reports 0, or 1 when the driver counts found
+		 * rows, but generates no key, which is what tells it from an insert.
+		 */
+		if (affected == 2)
+			return CartUpsertResult.MERGED;
+		if (affected != 1 || keyHolder.getKeyList().isEmpty())
+			return CartUpsertResult.REJECTED;
+		cartItem.setId(((Number) keyHolder.getKeyList().get(0).values().iterator().next()).longValue());
+		return CartUpsertResult.INSERTED;
+	}
+
+	// Raw lines, row-locked so a batch of edits sees no concurrent change
+	@Override
+	public List<CartItem> findItemsForUpdate(Long cartId) {
+		return jdbc.query("SELECT * FROM cart_items WHERE cart_id = ? FOR UPDATE", itemMapper, cartId);
+	}
+
+	// Every line, including those whose product or shop is no longer active
+	@Override
+	public List<CartItem> findLinesByCartId(Long cartId) {
+		return jdbc.query("SELECT * FROM cart_items WHERE cart_id = ? ORDER BY id", itemMapper, cartId);
+	}
+
+	@Override
+	public List<CartItem> findLinesByCartIds(Collection<Long> cartIds) {
+		if (cartIds.isEmpty())
+			return List.of();
+		List<Long> ids = new ArrayList<>(cartIds);
+		String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+		return jdbc.query("SELECT * FROM cart_items WHERE cart_id IN (" + placeholders + ")", itemMapper,
+				ids.toArray());
+	}
+
+	// Writes absolute quantities, so replaying a line that already exists is harmless
+	@Override
+	public void upsertItems(List<CartItem> items) {
+		if (items.isEmpty())
+			return;
+		String sql = """
+				INSERT INTO cart_items (cart_id, product_id, quantity, price_at_add)
+				VALUES (?, ?, ?, ?)
+				ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)
+				""";
+		jdbc.batchUpdate(sql, items, items.size(), (ps, item) -> {
+			ps.setLong(1, item.getCartId());
+			ps.setLong(2, item.getProductId());
+			ps.setInt(3, item.getQuantity());
+			ps.setBigDecimal(4, item.getPriceAtAdd());
+		});
+	}
+
+	@Override
+	public void insertItems(List<CartItem> items) {
+		if (items.isEmpty())
+			return;
+		String sql = "INSERT INTO cart_items (cart_id, product_id, quantity, price_at_add) VALUES (?, ?, ?, ?)";
+		jdbc.batchUpdate(sql, items, items.size(), (ps, item) -> {
+			ps.setLong(1, item.getCartId());
+			ps.setLong(2, item.getProductId());
+			ps.setInt(3, item.getQuantity());
+			ps.setBigDecimal(4, item.getPriceAtAdd());
+		});
+	}
+
+	@Override
+	public void updateItemQuantities(List<CartItem> items) {
+		if (items.isEmpty())
+			return;
+		jdbc.batchUpdate("UPDATE cart_items SET quantity = ? WHERE id = ?", items, items.size(), (ps, item) -> {
+			ps.setInt(1, item.getQuantity());
+			ps.setLong(2, item.getId());
+		});
+	}
+
+	@Override
+	public void removeItems(Collection<Long> cartItemIds) {
+		if (cartItemIds.isEmpty())
+			return;
+		List<Long> ids = new ArrayList<>(cartItemIds);
+		String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+		jdbc.update("DELETE FROM cart_items WHERE id IN (" + placeholders + ")", ids.toArray());
+	}
+
+	// Quantity and cart timestamp in one statement, no re-read of the item
 	@Override
 	public void updateItemQuantity(Long cartItemId, Integer quantity) {
-		String sql = "UPDATE cart_items SET quantity = ? WHERE id = ?";
+		String sql = """
+				UPDATE cart_items ci JOIN carts c ON c.id = ci.cart_id
+				SET ci.quantity = ?, c.updated_at = NOW()
+				WHERE ci.id = ?
+				""";
 		jdbc.update(sql, quantity, cartItemId);
-
-		// Update cart timestamp
-		Optional<CartItem> item = findItemById(cartItemId);
-		item.ifPresent(i -> updateTimestamp(i.getCartId()));
 	}
 
 	@Override
 	public void removeItem(Long cartItemId) {
-		Optional<CartItem> item = findItemById(cartItemId);
-		String sql = "DELETE FROM cart_items WHERE id = ?";
-		jdbc.update(sql, cartItemId);
-
-		item.ifPresent(i -> updateTimestamp(i.getCartId()));
+		jdbc.update("UPDATE carts c JOIN cart_items ci ON ci.cart_id = c.id SET c.updated_at = NOW() WHERE ci.id = ?",
+				cartItemId);
+		jdbc.update("DELETE FROM cart_items WHERE id = ?", cartItemId);
 	}
 
 	@Override
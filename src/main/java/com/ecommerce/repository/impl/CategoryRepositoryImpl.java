@@ -6,6 +6,7 @@ import com.ecommerce.repository.rowmapper.CategoryRowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Repository
@@ -73,4 +74,28 @@ public class CategoryRepositoryImpl implements CategoryRepository {
 		map.put("id", c.getId());
 		return jdbc.update(sql, map) > 0;
 	}
-}
\ No newline at end of file
+
+	@Override
+	public LocalDateTime findLastModified() {
+		String sql = "SELECT MAX(updated_at) FROM categories";
+		return jdbc.queryForObject(sql, Collections.emptyMap(), LocalDateTime.class);
+	}
+
+	// Any product insert or edit, including the is_active and category_id that the counts depend on
+	@Override
+	public LocalDateTime findProductsLastModified() {
+		String sql = "SELECT MAX(updated_at) FROM products";
+		return jdbc.queryForObject(sql, Collections.emptyMap(), LocalDateTime.class);
+	}
+
+	@Override
+	public Map<Long, Long> countActiveProductsByCategory() {
+		String sql = "SELECT category_id, COUNT(*) AS cnt FROM products "
+				+ "WHERE is_active = TRUE AND category_id IS NOT NULL GROUP BY category_id";
+		Map<Long, Long> counts = new HashMap<>();
+		jdbc.query(sql, rs -> {
+			counts.put(rs.getLong("category_id"), rs.getLong("cnt"));
+		});
+		return counts;
+	}
+}
@@ -0,0 +1,75 @@
+package com.ecommerce.repository.impl;
+
+import com.ecommerce.enums.IdempotencyScope;
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.repository.IdempotencyKeyRepository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class IdempotencyKeyRepositoryImpl implements IdempotencyKeyRepository {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public IdempotencyKeyRepositoryImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public Optional<IdempotencyRecord> find(Long userId, IdempotencyScope scope, String key) {
+		String sql = """
+				SELECT fingerprint, response_body, expires_at < NOW() AS expired
+				FROM idempotency_keys
+				WHERE user_id = ? AND scope = ? AND idempotency_key = ?
+				""";
+
+		List<IdempotencyRecord> list = jdbcTemplate.query(sql,
+				(rs, rowNum) -> new IdempotencyRecord(rs.getString("fingerprint"), rs.getString("response_body"),
+						rs.getBoolean("expired")),
+				userId, scope.name(), key);
+		return list.stream().findFirst();
+	}
+
+	// Throws DuplicateKeyException when the key is taken; waits first if its owner has not committed yet
+	@Override
+	public void insert(Long userId, IdempotencyScope scope, String key, String fingerprint, long ttlSeconds) {
+		String sql = """
+				INSERT INTO idempotency_keys (user_id, scope, idempotency_key, fingerprint, expires_at)
+				VALUES (?, ?, ?, ?, NOW() + INTERVAL ? SECOND)
+				""";
+
+		jdbcTemplate.update(sql, userId, scope.name(), key, fingerprint, ttlSeconds);
+	}
+
+	@Override
+	public void complete(Long userId, IdempotencyScope scope, String key, String responseBody) {
+		String sql = """
+				UPDATE idempotency_keys
+				SET response_body = ?
+				WHERE user_id = ? AND scope = ? AND idempotency_key = ?
+				""";
+
+		jdbcTemplate.update(sql, responseBody, userId, scope.name(), key);
+	}
+
+	@Override
+	public boolean deleteIfExpired(Long userId, IdempotencyScope scope, String key) {
+		String sql = """
+				DELETE FROM idempotency_keys
+				WHERE user_id = ? AND scope = ? AND idempotency_key = ? AND expires_at < NOW()
+				""";
+
+		return jdbcTemplate.update(sql, userId, scope.name(), key) > 0;
+	}
+
+	// Oldest first and at most limit rows, so each call holds its locks briefly
+	@Override
+	public int deleteExpired(int limit) {
+		return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < NOW() ORDER BY expires_at LIMIT ?",
+				limit);
+	}
+}
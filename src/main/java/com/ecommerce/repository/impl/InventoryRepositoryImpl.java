@@ -1,13 +1,22 @@
 package com.ecommerce.repository.impl;
 
 import com.ecommerce.model.Inventory;
+import com.ecommerce.model.InventoryStripe;
 import com.ecommerce.repository.InventoryRepository;
 import com.ecommerce.repository.rowmapper.InventoryRowMapper;
+import com.ecommerce.repository.rowmapper.InventoryStripeRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Repository
 public class InventoryRepositoryImpl implements InventoryRepository {
@@ -36,6 +45,21 @@ public class InventoryRepositoryImpl implements InventoryRepository {
 		return jdbcTemplate.update(sql, productId, initialQuantity) > 0;
 	}
 
+	@Override
+	public void createInventories(Map<Long, Integer> initialQuantities) {
+		if (initialQuantities.isEmpty())
+			return;
+
+		String sql = """
+				INSERT INTO inventory (product_id, quantity, reserved)
+				VALUES (?, ?, 0)
+				""";
+
+		List<Object[]> args = new ArrayList<>(initialQuantities.size());
+		initialQuantities.forEach((productId, quantity) -> args.add(new Object[] { productId, quantity }));
+		jdbcTemplate.batchUpdate(sql, args);
+	}
+
 	@Override
 	public boolean update(Inventory inventory) {
 		String sql = """
@@ -82,6 +106,52 @@ public class InventoryRepositoryImpl implements InventoryRepository {
 		return jdbcTemplate.update(sql, quantity, productId, quantity) > 0;
 	}
 
+	// Rows are locked in primary key order, so two checkouts sharing products cannot deadlock
+	@Override
+	public Map<Long, Inventory> lockByProductIds(Collection<Long> productIds) {
+		if (productIds.isEmpty())
+			return Map.of();
+
+		List<Long> ids = new ArrayList<>(productIds);
+		String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+		String sql = "SELECT * FROM inventory WHERE product_id IN (" + placeholders
+				+ ") ORDER BY product_id FOR UPDATE";
+
+		Map<Long, Inventory> rows = new LinkedHashMap<>();
+		for (Inventory inv : jdbcTemplate.query(sql, new InventoryRowMapper(), ids.toArray())) {
+			rows.put(inv.getProductId(), inv);
+		}
+		return rows;
+	}
+
+	// One batched conditional update in product_id order; returns the products it could not reserve
+	@Override
+	public List<Long> reserveStocks(Map<Long, Integer> quantities) {
+		if (quantities.isEmpty())
+			return List.of();
+
+		String sql = """
+				UPDATE inventory
+				SET reserved = reserved + ?
+				WHERE product_id = ?
+				AND (quantity - reserved) >= ?
+				""";
+
+		List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+		List<Object[]> args = new ArrayList<>(lines.size());
+		for (Map.Entry<Long, Integer> line : lines) {
+			args.add(new Object[] { line.getValue(), line.getKey(), line.getValue() });
+		}
+
+		int[] counts = jdbcTemplate.batchUpdate(sql, args);
+		List<Long> failed = new ArrayList<>();
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == 0)
+				failed.add(lines.get(i).getKey());
+		}
+		return failed;
+	}
+
 	@Override
 	public boolean releaseReservedStock(Long productId, int quantity) {
 		String sql = """
@@ -108,4 +178,133 @@ public class InventoryRepositoryImpl implements InventoryRepository {
 
 		return jdbcTemplate.update(sql, quantity, quantity, productId, quantity, quantity) > 0;
 	}
-}
\ No newline at end of file
+
+	// A striped product keeps its stock in inventory_stripes, so both tables count
+	@Override
+	public List<Long> findInStockProductIds() {
+		String sql = """
+				SELECT product_id FROM inventory WHERE quantity - reserved > 0
+				UNION
+				SELECT product_id FROM inventory_stripes GROUP BY product_id HAVING SUM(quantity - reserved) > 0
+				""";
+
+		return jdbcTemplate.queryForList(sql, Long.class);
+	}
+
+	@Override
+	public Map<Long, Integer> findStripeCounts() {
+		String sql = "SELECT product_id, COUNT(*) AS stripes FROM inventory_stripes GROUP BY product_id";
+
+		Map<Long, Integer> counts = new HashMap<>();
+		jdbcTemplate.query(sql, rs -> {
+			counts.put(rs.getLong("product_id"), rs.getInt("stripes"));
+		});
+		return counts;
+	}
+
+	@Override
+	public int countStripes(Long productId) {
+		String sql = "SELECT COUNT(*) FROM inventory_stripes WHERE product_id = ?";
+
+		Integer count = jdbcTemplate.queryForObject(sql, Integer.class, productId);
+		return count != null ? count : 0;
+	}
+
+	@Override
+	public List<InventoryStripe> findStripes(Long productId) {
+		String sql = "SELECT * FROM inventory_stripes WHERE product_id = ? ORDER BY stripe";
+
+		return jdbcTemplate.query(sql, new InventoryStripeRowMapper(), productId);
+	}
+
+	// Stripe order, like lockByProductIds, so two spills on one product cannot deadlock
+	@Override
+	public List<InventoryStripe> lockStripes(Long productId) {
+		String sql = "SELECT * FROM inventory_stripes WHERE product_id = ? ORDER BY stripe FOR UPDATE";
+
+		return jdbcTemplate.query(sql, new InventoryStripeRowMapper(), productId);
+	}
+
+	@Override
+	public void createStripes(List<InventoryStripe> stripes) {
+		if (stripes.isEmpty())
+			return;
+
+		String sql = """
+				INSERT INTO inventory_stripes (product_id, stripe, quantity, reserved)
+				VALUES (?, ?, ?, ?)
+				""";
+
+		List<Object[]> args = new ArrayList<>(stripes.size());
+		for (InventoryStripe s : stripes) {
+			args.add(new Object[] { s.getProductId(), s.getStripe(), s.getQuantity(), s.getReserved() });
+		}
+		jdbcTemplate.batchUpdate(sql, args);
+	}
+
+	@Override
+	public void updateStripes(List<InventoryStripe> stripes) {
+		if (stripes.isEmpty())
+			return;
+
+		String sql = """
+				UPDATE inventory_stripes
+				SET quantity = ?, reserved = ?
+				WHERE product_id = ?
+				AND stripe = ?
+				""";
+
+		List<Object[]> args = new ArrayList<>(stripes.size());
+		for (InventoryStripe s : stripes) {
+			args.add(new Object[] { s.getQuantity(), s.getReserved(), s.getProductId(), s.getStripe() });
+		}
+		jdbcTemplate.batchUpdate(sql, args);
+	}
+
+	@Override
+	public void deleteStripes(Long productId) {
+		jdbcTemplate.update("DELETE FROM inventory_stripes WHERE product_id = ?", productId);
+	}
+
+	@Override
+	public boolean reserveOnStripe(Long productId, int stripe, int quantity) {
+		String sql = """
+				UPDATE inventory_stripes
+				SET reserved = reserved + ?
+				WHERE product_id = ?
+				AND stripe = ?
+				AND (quantity - reserved) >= ?
+				""";
+
+		return jdbcTemplate.update(sql, quantity, productId, stripe, quantity) > 0;
+	}
+
+	@Override
+	public boolean releaseOnStripe(Long productId, int stripe, int quantity) {
+		String sql = """
+				UPDATE inventory_stripes
+				SET reserved = reserved - ?
+				WHERE product_id = ?
+				AND stripe = ?
+				AND reserved >= ?
+				""";
+
+		return jdbcTemplate.update(sql, quantity, productId, stripe, quantity) > 0;
+	}
+
+	@Override
+	public boolean consumeOnStripe(Long productId, int stripe, int quantity) {
+		String sql = """
+				UPDATE inventory_stripes
+				SET
+				quantity = quantity - ?,
+				reserved = reserved - ?
+				WHERE product_id = ?
+				AND stripe = ?
+				AND reserved >= ?
+				AND quantity >= ?
+				""";
+
+		return jdbcTemplate.update(sql, quantity, quantity, productId, stripe, quantity, quantity) > 0;
+	}
+}
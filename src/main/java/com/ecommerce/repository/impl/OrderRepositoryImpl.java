@@ -105,8 +105,7 @@ public class OrderRepositoryImpl implements OrderRepository {
 				           oi.quantity,
 				           oi.unit_price,
 				           oi.total_price,
-				           (SELECT image_path FROM product_images pi
-				            WHERE pi.product_id = p.id AND pi.is_primary = 1 LIMIT 1) as product_image
+				           p.primary_image as product_image
 				    FROM order_items oi
 				    JOIN products p ON oi.product_id = p.id
 				    WHERE oi.order_id = ?
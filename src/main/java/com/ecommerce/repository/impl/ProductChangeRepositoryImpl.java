@@ -0,0 +1,99 @@
+package com.ecommerce.repository.impl;
+
+import com.ecommerce.enums.ProductChangeType;
+import com.ecommerce.model.ProductChange;
+import com.ecommerce.repository.ProductChangeRepository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Append-only product change log. Callers write to it inside the same
+ * transaction as the product row, so a change is visible in the log exactly
+ * when it is visible in the catalog. seq is the AUTO_INCREMENT key and gives
+ * consumers a total order to resume from. Rows older than the retention
+ * window are purged, so a consumer that falls further behind than that has
+ * to resync from the catalog.
+ */
+@Repository
+public class ProductChangeRepositoryImpl implements ProductChangeRepository {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public ProductChangeRepositoryImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void record(Long productId, ProductChangeType type) {
+		jdbcTemplate.update("INSERT INTO product_changes (product_id, change_type) VALUES (?, ?)", productId,
+				type.name());
+	}
+
+	@Override
+	public void recordAll(List<Long> productIds, ProductChangeType type) {
+		if (productIds.isEmpty())
+			return;
+		jdbcTemplate.batchUpdate("INSERT INTO product_changes (product_id, change_type) VALUES (?, ?)", productIds,
+				productIds.size(), (ps, id) -> {
+					ps.setLong(1, id);
+					ps.setString(2, type.name());
+				});
+	}
+
+	@Override
+	public void recordForImage(Long imageId, ProductChangeType type) {
+		String sql = """
+				INSERT INTO product_changes (product_id, change_type)
+				SELECT product_id, ? FROM product_images WHERE id = ?
+				""";
+		jdbcTemplate.update(sql, type.name(), imageId);
+	}
+
+	/*
+	 * seq is handed out at insert time but rows become visible at commit, so
+	 * a long transaction can commit a lower seq after readers have passed it.
+	 * Rows are returned only up to the first gap in seq that is still young:
+	 * the row after the gap is younger than gapTimeoutMillis, so whatever holds
+	 * the missing seq may yet commit and the caller re-polls from before it.
+	 * Older gaps are rolled-back inserts or skipped AUTO_INCREMENT values and
+	 * are passed over.
+	 */
+	@Override
+	public List<ProductChange> findSince(long seq, int gapTimeoutMillis, int limit) {
+		String sql = """
+				SELECT seq, product_id, change_type, changed_at,
+				       changed_at <= NOW(3) - INTERVAL ? MICROSECOND AS settled
+				FROM product_changes
+				WHERE seq > ?
+				ORDER BY seq
+				LIMIT ?
+				""";
+		List<ProductChange> changes = new ArrayList<>();
+		long[] expected = { seq + 1 };
+		boolean[] blocked = { false };
+		jdbcTemplate.query(sql, rs -> {
+			long next = rs.getLong("seq");
+			if (blocked[0] || next != expected[0] && !rs.getBoolean("settled")) {
+				blocked[0] = true;
+				return;
+			}
+			changes.add(new ProductChange(next, rs.getLong("product_id"),
+					ProductChangeType.valueOf(rs.getString("change_type")),
+					rs.getTimestamp("changed_at").toLocalDateTime()));
+			expected[0] = next + 1;
+		}, gapTimeoutMillis * 1000L, seq, limit);
+		return changes;
+	}
+
+	// Oldest rows first, walking the primary key
+	@Override
+	public int deleteOlderThan(int retentionDays, int limit) {
+		return jdbcTemplate.update(
+				"DELETE FROM product_changes WHERE changed_at < NOW() - INTERVAL ? DAY ORDER BY seq LIMIT ?",
+				retentionDays, limit);
+	}
+}
@@ -1,6 +1,8 @@
 package com.ecommerce.repository.impl;
 
+import com.ecommerce.enums.ProductChangeType;
 import com.ecommerce.model.ProductImage;
+import com.ecommerce.repository.ProductChangeRepository;
 import com.ecommerce.repository.ProductImageRepository;
 import com.ecommerce.repository.rowmapper.ProductImageRowMapper;
 
@@ -8,22 +10,35 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
 public class ProductImageRepositoryImpl implements ProductImageRepository {
 
+	private static final int IN_CLAUSE_CHUNK = 1000;
+
 	private final JdbcTemplate jdbc;
+	private final ProductChangeRepository changeRepository;
 
-	public ProductImageRepositoryImpl(JdbcTemplate jdbc) {
+	public ProductImageRepositoryImpl(JdbcTemplate jdbc, ProductChangeRepository changeRepository) {
 		this.jdbc = jdbc;
+		this.changeRepository = changeRepository;
 	}
 
+	// Image writes are logged against their product in the same transaction
 	@Override
+	@Transactional
 	public Long save(ProductImage img) {
 		String sql = """
 				INSERT INTO product_images
@@ -43,10 +58,12 @@ public class ProductImageRepositoryImpl implements ProductImageRepository {
 			return ps;
 		}, key);
 
+		changeRepository.record(img.getProductId(), ProductChangeType.IMAGES_CHANGED);
 		return key.getKey().longValue();
 	}
 
 	@Override
+	@Transactional
 	public boolean update(ProductImage img) {
 		String sql = """
 				UPDATE product_images SET
@@ -54,13 +71,20 @@ public class ProductImageRepositoryImpl implements ProductImageRepository {
 				WHERE id=?
 				""";
 
-		return jdbc.update(sql, img.getImagePath(), img.isPrimary(), img.getSortImageOrder(), img.isDeleted(),
-				img.getId()) > 0;
+		boolean updated = jdbc.update(sql, img.getImagePath(), img.isPrimary(), img.getSortImageOrder(),
+				img.isDeleted(), img.getId()) > 0;
+		if (updated)
+			changeRepository.recordForImage(img.getId(), ProductChangeType.IMAGES_CHANGED);
+		return updated;
 	}
 
 	@Override
+	@Transactional
 	public boolean softDelete(Long id) {
-		return jdbc.update("UPDATE product_images SET is_deleted=TRUE WHERE id=?", id) > 0;
+		boolean deleted = jdbc.update("UPDATE product_images SET is_deleted=TRUE WHERE id=?", id) > 0;
+		if (deleted)
+			changeRepository.recordForImage(id, ProductChangeType.IMAGES_CHANGED);
+		return deleted;
 	}
 
 	@Override
@@ -80,6 +104,28 @@ public class ProductImageRepositoryImpl implements ProductImageRepository {
 		return jdbc.query(sql, new ProductImageRowMapper(), productId);
 	}
 
+	@Override
+	public Map<Long, String> findPrimaryImagePaths(Collection<Long> productIds) {
+		Map<Long, String> paths = new HashMap<>();
+		if (productIds == null || productIds.isEmpty())
+			return paths;
+
+		List<Long> ids = new ArrayList<>(productIds);
+		for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+			List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size()));
+			String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+			String sql = "SELECT product_id, image_path FROM product_images"
+					+ " WHERE product_id IN (" + placeholders + ") AND is_deleted=FALSE"
+					+ " ORDER BY product_id, is_primary DESC, sort_image_order ASC, id ASC";
+
+			// First row per product is its primary image, or the first image when none is flagged
+			jdbc.query(sql, rs -> {
+				paths.putIfAbsent(rs.getLong("product_id"), rs.getString("image_path"));
+			}, chunk.toArray());
+		}
+		return paths;
+	}
+
 	@Override
 	public List<ProductImage> findAllByProductIdIncludeDeleted(Long productId) {
 		String sql = """
@@ -96,14 +142,18 @@ public class ProductImageRepositoryImpl implements ProductImageRepository {
 	}
 
 	@Override
+	@Transactional
 	public boolean setPrimaryImage(Long productId, Long imageId) {
 
 		clearPrimaryForProduct(productId);
 
-		return jdbc.update("""
+		boolean updated = jdbc.update("""
 				UPDATE product_images SET is_primary=TRUE
 				WHERE id=? AND product_id=? AND is_deleted=FALSE
 				""", imageId, productId) > 0;
+		if (updated)
+			changeRepository.record(productId, ProductChangeType.IMAGES_CHANGED);
+		return updated;
 	}
 
 	@Override
@@ -126,4 +176,27 @@ public class ProductImageRepositoryImpl implements ProductImageRepository {
 		}
 	}
 
-}
\ No newline at end of file
+	// Same choice as findPrimaryImagePaths; updated_at is pinned since the image rows carry their own
+	@Override
+	public void refreshPrimaryImage(Long productId) {
+		String sql = """
+				UPDATE products p
+				SET p.primary_image = (SELECT pi.image_path FROM product_images pi
+				                       WHERE pi.product_id = p.id AND pi.is_deleted = FALSE
+				                       ORDER BY pi.is_primary DESC, pi.sort_image_order ASC, pi.id ASC
+				                       LIMIT 1),
+				    p.updated_at = p.updated_at
+				WHERE p.id = ?
+				""";
+		jdbc.update(sql, productId);
+	}
+
+	@Override
+	public LocalDateTime findLastModified(Long productId) {
+		if (productId == null) {
+			return jdbc.queryForObject("SELECT MAX(updated_at) FROM product_images", LocalDateTime.class);
+		}
+		String sql = "SELECT MAX(updated_at) FROM product_images WHERE product_id = ?";
+		return jdbc.queryForObject(sql, LocalDateTime.class, productId);
+	}
+}
@@ -1,29 +1,62 @@
 package com.ecommerce.repository.impl;
 
+import com.ecommerce.enums.ProductChangeType;
+import com.ecommerce.enums.ProductSort;
 import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductAvailability;
+import com.ecommerce.model.ProductPopularity;
+import com.ecommerce.model.ProductSearchCriteria;
+import com.ecommerce.model.ProductSummary;
+import com.ecommerce.model.ShopProductSummary;
+import com.ecommerce.repository.ProductChangeRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.rowmapper.ProductRowMapper;
+import com.ecommerce.repository.rowmapper.ProductSummaryRowMapper;
+import com.ecommerce.repository.rowmapper.ShopProductSummaryRowMapper;
 
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Repository
 public class ProductRepositoryImpl implements ProductRepository {
 
+	private static final int IN_CLAUSE_CHUNK = 1000;
+
 	private final JdbcTemplate jdbcTemplate;
+	private final ProductChangeRepository changeRepository;
 
-	public ProductRepositoryImpl(JdbcTemplate jdbcTemplate) {
+	public ProductRepositoryImpl(JdbcTemplate jdbcTemplate, ProductChangeRepository changeRepository) {
 		this.jdbcTemplate = jdbcTemplate;
+		this.changeRepository = changeRepository;
 	}
 
+	// Every write below appends to product_changes in the same transaction
 	@Override
+	@Transactional
 	public Long save(Product product) {
 		String sql = """
 				INSERT INTO products
@@ -35,30 +68,78 @@ public class ProductRepositoryImpl implements ProductRepository {
 
 		jdbcTemplate.update(conn -> {
 			PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-			ps.setLong(1, product.getShopId());
-			if (product.getCategoryId() != null)
-				ps.setLong(2, product.getCategoryId());
-			else
-				ps.setNull(2, java.sql.Types.BIGINT);
-			ps.setString(3, product.getSku());
-			ps.setString(4, product.getName());
-			ps.setString(5, product.getShortDescription());
-			ps.setString(6, product.getDescription());
-			ps.setDouble(7, product.getSellingPrice());
-			if (product.getMrp() != null)
-				ps.setDouble(8, product.getMrp());
-			else
-				ps.setNull(8, java.sql.Types.DECIMAL);
-			ps.setBoolean(9, product.getIsActive() == null ? true : product.getIsActive());
+			bindInsert(ps, product);
 			return ps;
 		}, kh);
 
 		Number key = kh.getKey();
-		return (key != null) ? key.longValue() : null;
+		Long id = (key != null) ? key.longValue() : null;
+		if (id != null)
+			changeRepository.record(id, ProductChangeType.CREATED);
+		return id;
+	}
+
+	@Override
+	@Transactional
+	public List<Long> saveAll(List<Product> products) {
+		if (products.isEmpty())
+			return List.of();
+
+		String sql = """
+				INSERT INTO products
+				(shop_id, category_id, sku, name, short_description, description, selling_price, mrp, is_active)
+				VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+				""";
+
+		KeyHolder kh = new GeneratedKeyHolder();
+		jdbcTemplate.batchUpdate(conn -> conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						bindInsert(ps, products.get(i));
+					}
+
+					@Override
+					public int getBatchSize() {
+						return products.size();
+					}
+				}, kh);
+
+		List<Long> ids = new ArrayList<>(products.size());
+		for (Map<String, Object> keys : kh.getKeyList()) {
+			ids.add(((Number) keys.values().iterator().next()).longValue());
+		}
+		changeRepository.recordAll(ids, ProductChangeType.CREATED);
+		return ids;
+	}
+
+	private void bindInsert(PreparedStatement ps, Product product) throws SQLException {
+		ps.setLong(1, product.getShopId());
+		if (product.getCategoryId() != null)
+			ps.setLong(2, product.getCategoryId());
+		else
+			ps.setNull(2, java.sql.Types.BIGINT);
+		ps.setString(3, product.getSku());
+		ps.setString(4, product.getName());
+		ps.setString(5, product.getShortDescription());
+		ps.setString(6, product.getDescription());
+		ps.setDouble(7, product.getSellingPrice());
+		if (product.getMrp() != null)
+			ps.setDouble(8, product.getMrp());
+		else
+			ps.setNull(8, java.sql.Types.DECIMAL);
+		ps.setBoolean(9, product.getIsActive() == null ? true : product.getIsActive());
 	}
 
+	// Locks the row to read the old price, so a price move is logged as PRICE_CHANGED
 	@Override
+	@Transactional
 	public boolean update(Product product) {
+		List<Map<String, Object>> before = jdbcTemplate
+				.queryForList("SELECT selling_price, mrp FROM products WHERE id = ? FOR UPDATE", product.getId());
+		if (before.isEmpty())
+			return false;
+
 		String sql = """
 				UPDATE products SET
 				shop_id = ?, category_id = ?, sku = ?, name = ?,
@@ -69,13 +150,29 @@ public class ProductRepositoryImpl implements ProductRepository {
 		int updated = jdbcTemplate.update(sql, product.getShopId(), product.getCategoryId(), product.getSku(),
 				product.getName(), product.getShortDescription(), product.getDescription(), product.getSellingPrice(),
 				product.getMrp(), product.getIsActive(), product.getId());
+
+		Map<String, Object> old = before.get(0);
+		boolean priceChanged = !samePrice(old.get("selling_price"), product.getSellingPrice())
+				|| !samePrice(old.get("mrp"), product.getMrp());
+		changeRepository.record(product.getId(),
+				priceChanged ? ProductChangeType.PRICE_CHANGED : ProductChangeType.UPDATED);
 		return updated > 0;
 	}
 
+	private static boolean samePrice(Object stored, Double value) {
+		if (stored == null || value == null)
+			return stored == null && value == null;
+		return ((BigDecimal) stored).compareTo(BigDecimal.valueOf(value)) == 0;
+	}
+
 	@Override
+	@Transactional
 	public boolean softDelete(Long id) {
 		String sql = "UPDATE products SET is_active = FALSE WHERE id = ?";
-		return jdbcTemplate.update(sql, id) > 0;
+		boolean deleted = jdbcTemplate.update(sql, id) > 0;
+		if (deleted)
+			changeRepository.record(id, ProductChangeType.DELETED);
+		return deleted;
 	}
 
 	@Override
@@ -85,24 +182,150 @@ public class ProductRepositoryImpl implements ProductRepository {
 		return list.stream().findFirst();
 	}
 
+	@Override
+	public Optional<Product> lockById(Long id) {
+		String sql = "SELECT * FROM products WHERE id = ? FOR UPDATE";
+		List<Product> list = jdbcTemplate.query(sql, new ProductRowMapper(), id);
+		return list.stream().findFirst();
+	}
+
+	@Override
+	public List<Product> findByIds(List<Long> ids) {
+		if (ids == null || ids.isEmpty())
+			return List.of();
+
+		String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+		String sql = "SELECT * FROM products WHERE id IN (" + placeholders + ")";
+		return inCallerOrder(ids, jdbcTemplate.query(sql, new ProductRowMapper(), ids.toArray()), Product::getId);
+	}
+
+	@Override
+	public List<ProductSummary> findSummariesByIds(List<Long> ids) {
+		if (ids == null || ids.isEmpty())
+			return List.of();
+
+		String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+		String sql = "SELECT " + ProductSummaryRowMapper.COLUMNS + " FROM products WHERE id IN (" + placeholders + ")";
+		return inCallerOrder(ids, jdbcTemplate.query(sql, new ProductSummaryRowMapper(), ids.toArray()),
+				ProductSummary::getId);
+	}
+
+	@Override
+	public Map<Long, ProductAvailability> findAvailability(Collection<Long> ids) {
+		Map<Long, ProductAvailability> found = new HashMap<>();
+		if (ids == null || ids.isEmpty())
+			return found;
+
+		List<Long> all = new ArrayList<>(ids);
+		for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+			List<Long> chunk = all.subList(from, Math.min(from + IN_CLAUSE_CHUNK, all.size()));
+			String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+			String sql = "SELECT p.id, p.name, p.selling_price, p.primary_image, s.id AS shop_id, s.name AS shop_name,"
+					+ " (p.is_active AND s.is_active) AS available"
+					+ " FROM products p JOIN shops s ON s.id = p.shop_id WHERE p.id IN (" + placeholders + ")";
+			jdbcTemplate.query(sql, rs -> {
+				found.put(rs.getLong("id"),
+						new ProductAvailability(rs.getLong("id"), rs.getString("name"), rs.getLong("shop_id"),
+								rs.getString("shop_name"), rs.getString("primary_image"),
+								rs.getBigDecimal("selling_price"), rs.getBoolean("available")));
+			}, chunk.toArray());
+		}
+		return found;
+	}
+
+	// Keep the caller's ordering (e.g. search relevance)
+	private <T> List<T> inCallerOrder(List<Long> ids, List<T> rows, Function<T, Long> idOf) {
+		Map<Long, T> byId = new HashMap<>();
+		for (T row : rows) {
+			byId.put(idOf.apply(row), row);
+		}
+		List<T> ordered = new ArrayList<>(rows.size());
+		for (Long id : ids) {
+			T row = byId.get(id);
+			if (row != null)
+				ordered.add(row);
+		}
+		return ordered;
+	}
+
 	@Override
 	public List<Product> findAllActive() {
 		String sql = "SELECT * FROM products WHERE is_active = TRUE ORDER BY created_at DESC";
 		return jdbcTemplate.query(sql, new ProductRowMapper());
 	}
 
+	@Override
+	public List<ProductSummary> findActiveSummaries() {
+		String sql = "SELECT " + ProductSummaryRowMapper.COLUMNS
+				+ " FROM products WHERE is_active = TRUE ORDER BY created_at DESC";
+		return jdbcTemplate.query(sql, new ProductSummaryRowMapper());
+	}
+
 	@Override
 	public List<Product> findByShopId(Long shopId) {
 		String sql = "SELECT * FROM products WHERE shop_id = ? ORDER BY created_at DESC";
 		return jdbcTemplate.query(sql, new ProductRowMapper(), shopId);
 	}
 
+	@Override
+	public List<ShopProductSummary> findSummariesByShopId(Long shopId) {
+		String sql = "SELECT " + ShopProductSummaryRowMapper.COLUMNS
+				+ " FROM products WHERE shop_id = ? ORDER BY created_at DESC";
+		return jdbcTemplate.query(sql, new ShopProductSummaryRowMapper(), shopId);
+	}
+
 	@Override
 	public List<Product> findAll() {
 		String sql = "SELECT * FROM products ORDER BY created_at DESC";
 		return jdbcTemplate.query(sql, new ProductRowMapper());
 	}
 
+	// Forward-only, read-only statement with fetch size Integer.MIN_VALUE: Connector/J
+	// streams this one result row by row instead of buffering it, other queries are unaffected.
+	// Closing a streaming result set reads whatever is left of it, so when the consumer
+	// throws (a client that went away mid-download) the query is cancelled first and the
+	// connection comes back without pulling the rest of the catalog over the wire
+	@Override
+	public void streamAll(Long shopId, boolean activeOnly, Consumer<Product> consumer) {
+		StringBuilder sql = new StringBuilder("SELECT * FROM products WHERE 1 = 1");
+		if (shopId != null)
+			sql.append(" AND shop_id = ?");
+		if (activeOnly)
+			sql.append(" AND is_active = TRUE");
+		sql.append(" ORDER BY id");
+
+		ProductRowMapper mapper = new ProductRowMapper();
+		jdbcTemplate.execute(conn -> {
+			PreparedStatement ps = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			if (shopId != null)
+				ps.setLong(1, shopId);
+			return ps;
+		}, (PreparedStatementCallback<Void>) ps -> {
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					Product p = mapper.mapRow(rs, rs.getRow());
+					try {
+						consumer.accept(p);
+					} catch (RuntimeException e) {
+						cancel(ps);
+						throw e;
+					}
+				}
+			}
+			return null;
+		});
+	}
+
+	private static void cancel(Statement statement) {
+		try {
+			statement.cancel();
+		} catch (SQLException e) {
+			// Nothing more to do: closing the result set drains it as it would have anyway
+		}
+	}
+
 	@Override
 	public boolean existsBySku(String sku) {
 		String sql = "SELECT COUNT(*) FROM products WHERE sku = ?";
@@ -111,31 +334,83 @@ public class ProductRepositoryImpl implements ProductRepository {
 	}
 
 	@Override
-	public List<Product> search(String q, Long categoryId, int limit, int offset) {
-		String base = "SELECT * FROM products WHERE is_active = TRUE";
-		StringBuilder sb = new StringBuilder(base);
-		Object[] params;
+	public Set<String> findExistingSkus(Collection<String> skus) {
+		Set<String> existing = new HashSet<>();
+		List<String> list = new ArrayList<>(skus);
+
+		for (int from = 0; from < list.size(); from += IN_CLAUSE_CHUNK) {
+			List<String> chunk = list.subList(from, Math.min(from + IN_CLAUSE_CHUNK, list.size()));
+			String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+			String sql = "SELECT sku FROM products WHERE sku IN (" + placeholders + ")";
+			existing.addAll(jdbcTemplate.queryForList(sql, String.class, chunk.toArray()));
+		}
+		return existing;
+	}
+
+	@Override
+	public List<ProductSummary> search(ProductSearchCriteria criteria, ProductSort sort, int limit, int offset) {
+		List<Object> params = new ArrayList<>();
+		StringBuilder sb = searchFilter(criteria, params);
+		sb.append(orderBy(sort)).append(" LIMIT ? OFFSET ?");
+		params.add(limit);
+		params.add(offset);
+		return jdbcTemplate.query(sb.toString(), new ProductSummaryRowMapper(), params.toArray());
+	}
+
+	@Override
+	public List<ProductSummary> searchAfter(ProductSearchCriteria criteria, ProductSort sort, Object afterKey,
+			Long afterId, int limit) {
+		List<Object> params = new ArrayList<>();
+		StringBuilder sb = searchFilter(criteria, params);
+		if (afterKey != null && afterId != null) {
+			// Seek past the last row of the previous page instead of skipping OFFSET rows
+			String col = sort.getColumn();
+			String op = sort.isDescending() ? "<" : ">";
+			sb.append(" AND (").append(col).append(' ').append(op).append(" ? OR (").append(col)
+					.append(" = ? AND id ").append(op).append(" ?))");
+			params.add(afterKey);
+			params.add(afterKey);
+			params.add(afterId);
+		}
+		sb.append(orderBy(sort)).append(" LIMIT ?");
+		params.add(limit);
+		return jdbcTemplate.query(sb.toString(), new ProductSummaryRowMapper(), params.toArray());
+	}
+
+	// Each sort has an (is_active, column, id) index, so pages are index range scans
+	private String orderBy(ProductSort sort) {
+		String dir = sort.isDescending() ? " DESC" : " ASC";
+		return " ORDER BY " + sort.getColumn() + dir + ", id" + dir;
+	}
+
+	private StringBuilder searchFilter(ProductSearchCriteria criteria, List<Object> params) {
+		StringBuilder sb = new StringBuilder(
+				"SELECT " + ProductSummaryRowMapper.COLUMNS + " FROM products WHERE is_active = TRUE");
+		String q = criteria.getQuery();
+		Collection<Long> categoryIds = criteria.getCategoryIds();
 		if (q != null && !q.isBlank()) {
+			String like = "%" + q + "%";
 			sb.append(" AND (name LIKE ? OR short_description LIKE ? OR description LIKE ? OR sku LIKE ?)");
-			if (categoryId != null) {
-				sb.append(" AND category_id = ?");
-				sb.append(" ORDER BY created_at DESC LIMIT ? OFFSET ?");
-				params = new Object[] { "%" + q + "%", "%" + q + "%", "%" + q + "%", "%" + q + "%", categoryId, limit,
-						offset };
-			} else {
-				sb.append(" ORDER BY created_at DESC LIMIT ? OFFSET ?");
-				params = new Object[] { "%" + q + "%", "%" + q + "%", "%" + q + "%", "%" + q + "%", limit, offset };
-			}
-		} else {
-			if (categoryId != null) {
-				sb.append(" AND category_id = ? ORDER BY created_at DESC LIMIT ? OFFSET ?");
-				params = new Object[] { categoryId, limit, offset };
-			} else {
-				sb.append(" ORDER BY created_at DESC LIMIT ? OFFSET ?");
-				params = new Object[] { limit, offset };
-			}
+			params.add(like);
+			params.add(like);
+			params.add(like);
+			params.add(like);
+		}
+		// A whole category subtree is one IN list, served by idx_products_active_category_created
+		if (categoryIds != null && !categoryIds.isEmpty()) {
+			sb.append(" AND category_id IN (").append(String.join(",", Collections.nCopies(categoryIds.size(), "?")))
+					.append(")");
+			params.addAll(categoryIds);
+		}
+		if (criteria.getMinPrice() != null) {
+			sb.append(" AND selling_price >= ?");
+			params.add(criteria.getMinPrice());
+		}
+		if (criteria.getMaxPrice() != null) {
+			sb.append(" AND selling_price <= ?");
+			params.add(criteria.getMaxPrice());
 		}
-		return jdbcTemplate.query(sb.toString(), new ProductRowMapper(), params);
+		return sb;
 	}
 
 	@Override
@@ -163,4 +438,77 @@ public class ProductRepositoryImpl implements ProductRepository {
 		return jdbcTemplate.queryForList(sql, String.class, query + "%");
 	}
 
-}
\ No newline at end of file
+	@Override
+	public List<ProductPopularity> findActiveProductPopularity() {
+		String sql = "SELECT p.id, p.name, COALESCE(o.order_volume, 0) AS order_volume, COALESCE(v.views, 0) AS views"
+				+ " FROM products p" + popularityInputs("") + " WHERE p.is_active = TRUE";
+
+		return jdbcTemplate.query(sql, (rs, rowNum) -> new ProductPopularity(rs.getLong("id"), rs.getString("name"),
+				rs.getLong("order_volume"), rs.getLong("views")));
+	}
+
+	// rating_updated_at moves the catalog's Last-Modified; updated_at is pinned so a rating is not an edit
+	@Override
+	public void refreshRating(Long productId) {
+		String sql = """
+				UPDATE products
+				SET avg_rating = (SELECT COALESCE(AVG(rating), 0) FROM reviews
+				                  WHERE product_id = ? AND is_deleted = 0),
+				    rating_updated_at = CURRENT_TIMESTAMP(3),
+				    updated_at = updated_at
+				WHERE id = ?
+				""";
+		jdbcTemplate.update(sql, productId, productId);
+	}
+
+	@Override
+	public int refreshPopularity() {
+		return jdbcTemplate.update(popularityUpdate("", ""));
+	}
+
+	// Only the given products, with the order and view aggregates narrowed to them as well
+	@Override
+	public int refreshPopularity(Collection<Long> productIds) {
+		List<Long> all = new ArrayList<>(productIds);
+		int changed = 0;
+		for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+			List<Long> chunk = all.subList(from, Math.min(from + IN_CLAUSE_CHUNK, all.size()));
+			String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+			String sql = popularityUpdate(" WHERE product_id IN (" + placeholders + ")",
+					" AND p.id IN (" + placeholders + ")");
+
+			List<Object> args = new ArrayList<>(chunk);
+			args.addAll(chunk);
+			args.addAll(chunk);
+			changed += jdbcTemplate.update(sql, args.toArray());
+		}
+		return changed;
+	}
+
+	private static String popularityUpdate(String inputFilter, String productFilter) {
+		String score = "COALESCE(o.order_volume, 0) * " + ProductPopularity.ORDER_VOLUME_WEIGHT
+				+ " + COALESCE(v.views, 0)";
+		return "UPDATE products p" + popularityInputs(inputFilter) + " SET p.popularity = " + score
+				+ ", p.updated_at = p.updated_at WHERE p.popularity <> " + score + productFilter;
+	}
+
+	// Order volume and view count per product, for both the suggestion ranking and the popularity column
+	private static String popularityInputs(String filter) {
+		return """
+				 LEFT JOIN (SELECT product_id, SUM(quantity) AS order_volume
+				            FROM order_items%1$s GROUP BY product_id) o ON o.product_id = p.id
+				 LEFT JOIN (SELECT product_id, COUNT(*) AS views
+				            FROM recently_viewed%1$s GROUP BY product_id) v ON v.product_id = p.id
+				""".formatted(filter).stripTrailing();
+	}
+
+	@Override
+	public LocalDateTime findLastModified() {
+		String sql = """
+				SELECT GREATEST(COALESCE(MAX(updated_at), MAX(rating_updated_at)),
+				                COALESCE(MAX(rating_updated_at), MAX(updated_at)))
+				FROM products
+				""";
+		return jdbcTemplate.queryForObject(sql, LocalDateTime.class);
+	}
+}
@@ -67,4 +67,16 @@ public class ProductVariantValueRepositoryImpl implements ProductVariantValueRep
 		String sql = "SELECT * FROM product_variant_value WHERE group_id = ?";
 		return jdbcTemplate.query(sql, new ProductVariantValueRowMapper(), groupId);
 	}
+
+	// Values of every group of the product in one query
+	@Override
+	public List<ProductVariantValue> findByProductId(Long productId) {
+		String sql = """
+				SELECT v.* FROM product_variant_value v
+				JOIN product_variant_group g ON g.id = v.group_id
+				WHERE g.product_id = ?
+				ORDER BY v.group_id, v.id
+				""";
+		return jdbcTemplate.query(sql, new ProductVariantValueRowMapper(), productId);
+	}
 }
\ No newline at end of file
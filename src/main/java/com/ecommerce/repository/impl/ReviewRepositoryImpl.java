@@ -1,6 +1,8 @@
 package com.ecommerce.repository.impl;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -74,4 +76,26 @@ public class ReviewRepositoryImpl implements ReviewRepository {
 		return avg != null ? avg : 0.0;
 	}
 
+	@Override
+	public List<Review> findNewest(Long productId, int limit) {
+		return jdbc.query(
+				"SELECT * FROM reviews WHERE product_id=? AND is_deleted=0 ORDER BY created_at DESC, id DESC LIMIT ?",
+				new ReviewRowMapper(), productId, limit);
+	}
+
+	@Override
+	public Map<Integer, Long> countByRating(Long productId) {
+		String sql = """
+				SELECT rating, COUNT(*) AS cnt
+				 FROM reviews
+				 WHERE product_id=? AND is_deleted=0
+				 GROUP BY rating
+				 """;
+		Map<Integer, Long> counts = new LinkedHashMap<>();
+		jdbc.query(sql, rs -> {
+			counts.put(rs.getInt("rating"), rs.getLong("cnt"));
+		}, productId);
+		return counts;
+	}
+
 }
\ No newline at end of file
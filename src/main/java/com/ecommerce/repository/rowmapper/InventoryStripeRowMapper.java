@@ -0,0 +1,22 @@
+package com.ecommerce.repository.rowmapper;
+
+import com.ecommerce.model.InventoryStripe;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class InventoryStripeRowMapper implements RowMapper<InventoryStripe> {
+
+	@Override
+	public InventoryStripe mapRow(ResultSet rs, int rowNum) throws SQLException {
+
+		InventoryStripe stripe = new InventoryStripe();
+		stripe.setProductId(rs.getLong("product_id"));
+		stripe.setStripe(rs.getInt("stripe"));
+		stripe.setQuantity(rs.getInt("quantity"));
+		stripe.setReserved(rs.getInt("reserved"));
+
+		return stripe;
+	}
+}
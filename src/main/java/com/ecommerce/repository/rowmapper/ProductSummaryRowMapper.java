@@ -0,0 +1,43 @@
+package com.ecommerce.repository.rowmapper;
+
+import com.ecommerce.model.ProductSummary;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/*
+ * Listing queries select only COLUMNS instead of SELECT *, so the description
+ * TEXT never leaves MySQL for pages that do not show it.
+ */
+public class ProductSummaryRowMapper implements RowMapper<ProductSummary> {
+
+	public static final String COLUMNS = "id, shop_id, name, selling_price, mrp, created_at, avg_rating, popularity";
+
+	@Override
+	public ProductSummary mapRow(ResultSet rs, int rowNum) throws SQLException {
+		ProductSummary p = new ProductSummary();
+		mapColumns(rs, p);
+		return p;
+	}
+
+	// Fills the COLUMNS fields; shared with mappers that select a few more
+	static void mapColumns(ResultSet rs, ProductSummary p) throws SQLException {
+		p.setId(rs.getLong("id"));
+		p.setShopId(rs.getLong("shop_id"));
+		p.setName(rs.getString("name"));
+		p.setSellingPrice(rs.getDouble("selling_price"));
+
+		double mrp = rs.getDouble("mrp");
+		if (!rs.wasNull())
+			p.setMrp(mrp);
+
+		Timestamp createdAt = rs.getTimestamp("created_at");
+		if (createdAt != null)
+			p.setCreatedAt(createdAt.toLocalDateTime());
+
+		p.setAvgRating(rs.getDouble("avg_rating"));
+		p.setPopularity(rs.getLong("popularity"));
+	}
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.repository.rowmapper;
+
+import com.ecommerce.model.ShopProductSummary;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/*
+ * The shop-management listing needs the summary columns plus what a
+ * shopkeeper edits from the list: category, SKU and the active flag.
+ */
+public class ShopProductSummaryRowMapper implements RowMapper<ShopProductSummary> {
+
+	public static final String COLUMNS = ProductSummaryRowMapper.COLUMNS + ", category_id, sku, is_active";
+
+	@Override
+	public ShopProductSummary mapRow(ResultSet rs, int rowNum) throws SQLException {
+		ShopProductSummary p = new ShopProductSummary();
+		ProductSummaryRowMapper.mapColumns(rs, p);
+
+		long categoryId = rs.getLong("category_id");
+		if (!rs.wasNull())
+			p.setCategoryId(categoryId);
+
+		p.setSku(rs.getString("sku"));
+		p.setActive(rs.getBoolean("is_active"));
+
+		return p;
+	}
+}
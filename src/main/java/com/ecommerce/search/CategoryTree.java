@@ -0,0 +1,196 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.CategoryResponse;
+import com.ecommerce.dto.CategoryTreeNode;
+import com.ecommerce.model.Category;
+import com.ecommerce.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Immutable snapshot of the active category tree with active-product counts
+ * per node and per subtree. Readers never touch MySQL; CategoryService
+ * rebuilds the snapshot after every category change, and a periodic refresh
+ * keeps the product counts current as products come and go. The descendant
+ * closure of every node is kept too, so subtree filters need no recursion.
+ *
+ * Each snapshot carries the last-modified times of the rows it was built
+ * from, read before them, so a validator never claims more than the
+ * snapshot holds and two nodes with the same data agree on it.
+ */
+@Component
+public class CategoryTree {
+
+	private static final Logger log = LoggerFactory.getLogger(CategoryTree.class);
+
+	private static final Comparator<CategoryTreeNode> BY_NAME = Comparator
+			.comparing(CategoryTreeNode::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+			.thenComparing(CategoryTreeNode::getId);
+
+	private final CategoryRepository categoryRepository;
+
+	private volatile Snapshot snapshot;
+
+	public CategoryTree(CategoryRepository categoryRepository) {
+		this.categoryRepository = categoryRepository;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		refresh();
+	}
+
+	@Scheduled(initialDelayString = "${category.tree.refresh-interval-ms:300000}", fixedDelayString = "${category.tree.refresh-interval-ms:300000}")
+	public void refresh() {
+		try {
+			rebuild();
+		} catch (Exception e) {
+			log.error("Category tree rebuild failed, keeping previous snapshot: {}", e.getMessage());
+		}
+	}
+
+	public synchronized void rebuild() {
+		long start = System.currentTimeMillis();
+		LocalDateTime categoriesModified = categoryRepository.findLastModified();
+		LocalDateTime productsModified = categoryRepository.findProductsLastModified();
+		Snapshot fresh = new Snapshot(categoryRepository.findAllActive(),
+				categoryRepository.countActiveProductsByCategory(), categoriesModified, productsModified);
+		snapshot = fresh;
+		log.info("Category tree built: {} categories in {} ms", fresh.nodes.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	public List<CategoryTreeNode> getRoots() {
+		return snapshot().roots;
+	}
+
+	// Same rows and order as CategoryRepository.findAllActive at build time
+	public List<Category> getActiveCategories() {
+		return snapshot().categories;
+	}
+
+	public boolean contains(Long categoryId) {
+		return snapshot().nodes.containsKey(categoryId);
+	}
+
+	// The category and all of its descendants; a category outside the tree only matches itself
+	public Set<Long> subtreeIds(Long categoryId) {
+		Set<Long> ids = snapshot().subtrees.get(categoryId);
+		return ids != null ? ids : Set.of(categoryId);
+	}
+
+	// Root first, ending with the category itself; empty if it is not in the tree
+	public List<CategoryResponse> breadcrumbs(Long categoryId) {
+		Snapshot s = snapshot();
+		List<CategoryResponse> trail = new ArrayList<>();
+		CategoryTreeNode node = s.nodes.get(categoryId);
+		while (node != null) {
+			trail.add(new CategoryResponse(node.getId(), node.getParentCategoryId(), node.getName(), node.getSlug(),
+					true));
+			node = node.getParentCategoryId() == null ? null : s.nodes.get(node.getParentCategoryId());
+		}
+		Collections.reverse(trail);
+		return trail;
+	}
+
+	// Covers getActiveCategories()
+	public LocalDateTime getCategoriesLastModified() {
+		return snapshot().categoriesModified;
+	}
+
+	// Covers the tree, breadcrumbs and product counts
+	public LocalDateTime getLastModified() {
+		return snapshot().lastModified;
+	}
+
+	private Snapshot snapshot() {
+		Snapshot s = snapshot;
+		if (s == null) {
+			synchronized (this) {
+				if (snapshot == null)
+					rebuild();
+				s = snapshot;
+			}
+		}
+		return s;
+	}
+
+	private static final class Snapshot {
+
+		final Map<Long, CategoryTreeNode> nodes = new HashMap<>();
+		final List<CategoryTreeNode> roots = new ArrayList<>();
+		final Map<Long, Set<Long>> subtrees = new HashMap<>();
+		final List<Category> categories;
+		final LocalDateTime categoriesModified;
+		final LocalDateTime lastModified;
+
+		Snapshot(List<Category> active, Map<Long, Long> productCounts, LocalDateTime categoriesModified,
+				LocalDateTime productsModified) {
+			this.categoriesModified = categoriesModified;
+			this.lastModified = productsModified != null
+					&& (categoriesModified == null || productsModified.isAfter(categoriesModified)) ? productsModified
+							: categoriesModified;
+
+
+			for (Category c : active) {
+				nodes.put(c.getId(), new CategoryTreeNode(c.getId(), c.getParentCategoryId(), c.getName(),
+						c.getSlug(), productCounts.getOrDefault(c.getId(), 0L)));
+			}
+
+			// Categories under an inactive parent are unreachable from navigation and are left out
+			for (CategoryTreeNode node : nodes.values()) {
+				Long parentId = node.getParentCategoryId();
+				if (parentId == null)
+					roots.add(node);
+				else if (nodes.containsKey(parentId))
+					nodes.get(parentId).getChildren().add(node);
+			}
+
+			Set<Long> reachable = new LinkedHashSet<>();
+			Deque<CategoryTreeNode> stack = new ArrayDeque<>(roots);
+			while (!stack.isEmpty()) {
+				CategoryTreeNode node = stack.pop();
+				if (!reachable.add(node.getId()))
+					continue;
+				node.getChildren().sort(BY_NAME);
+				stack.addAll(node.getChildren());
+			}
+			nodes.keySet().retainAll(reachable);
+			roots.sort(BY_NAME);
+			for (CategoryTreeNode root : roots) {
+				sumSubtree(root);
+			}
+
+			categories = List.copyOf(active);
+		}
+
+		private long sumSubtree(CategoryTreeNode node) {
+			long total = node.getProductCount();
+			Set<Long> ids = new LinkedHashSet<>();
+			ids.add(node.getId());
+			for (CategoryTreeNode child : node.getChildren()) {
+				total += sumSubtree(child);
+				ids.addAll(subtrees.get(child.getId()));
+			}
+			node.setSubtreeProductCount(total);
+			subtrees.put(node.getId(), Collections.unmodifiableSet(ids));
+			return total;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.ecommerce.search;
+
+/*
+ * Product id to ordinal map for ProductFacetIndex: open addressing with
+ * linear probing over a long[] and an int[], so a lookup boxes nothing and an
+ * entry costs no node, Long or Integer objects. Entries are never removed,
+ * since ordinals are never reassigned.
+ */
+final class LongIntHashMap {
+
+	private static final long EMPTY = 0;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+	private boolean hasZeroKey;
+	private int zeroValue;
+
+	LongIntHashMap() {
+		this(1024);
+	}
+
+	LongIntHashMap(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+	}
+
+	int size() {
+		return size;
+	}
+
+	int get(long key, int missing) {
+		if (key == EMPTY)
+			return hasZeroKey ? zeroValue : missing;
+
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask);; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == key)
+				return values[i];
+			if (k == EMPTY)
+				return missing;
+		}
+	}
+
+	void put(long key, int value) {
+		if (key == EMPTY) {
+			if (!hasZeroKey)
+				size++;
+			hasZeroKey = true;
+			zeroValue = value;
+			return;
+		}
+
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while (keys[i] != EMPTY && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		if (keys[i] == EMPTY) {
+			keys[i] = key;
+			size++;
+		}
+		values[i] = value;
+
+		// Stay at most half full so probe runs stay short
+		if (size * 2 > keys.length)
+			grow();
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldKeys.length * 2];
+
+		int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			long k = oldKeys[j];
+			if (k == EMPTY)
+				continue;
+			int i = slot(k, mask);
+			while (keys[i] != EMPTY) {
+				i = (i + 1) & mask;
+			}
+			keys[i] = k;
+			values[i] = oldValues[j];
+		}
+	}
+
+	// Sequential ids would cluster without mixing the bits first
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+}
@@ -0,0 +1,594 @@
+package com.ecommerce.search;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.InventoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Roaring bitmaps per category, shop, price band and stock status over active
+ * products. Filters are bitmap intersections and facet counts are intersection
+ * cardinalities, so neither touches MySQL. Each facet is counted with every
+ * filter applied except its own, letting the client offer the alternatives.
+ *
+ * Ordinals are handed out oldest first on rebuild and new products arrive
+ * newest, so ordinal order is almost always age order. Pages are read
+ * backwards off the matched bitmap and stop after offset + limit; the few
+ * ordinals out of place (backfilled or re-dated products) are kept in an
+ * exception set and merged in from a small heap.
+ */
+@Component
+public class ProductFacetIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+	private static final double[] PRICE_BAND_UPPER_BOUNDS = { 500, 1000, 2500, 5000, 10000 };
+	private static final String[] PRICE_BANDS = { "0-500", "500-1000", "1000-2500", "2500-5000", "5000-10000",
+			"10000+" };
+
+	// Products without created_at yet are stamped "now", so they sort last
+	private static final Comparator<Product> OLDEST_FIRST = Comparator
+			.comparing(Product::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+			.thenComparing(Product::getId);
+
+	private final ProductRepository productRepository;
+	private final InventoryRepository inventoryRepository;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private State state = new State();
+	private List<PendingChange> pendingDuringRebuild;
+	private volatile boolean ready;
+
+	public ProductFacetIndex(ProductRepository productRepository, InventoryRepository inventoryRepository) {
+		this.productRepository = productRepository;
+		this.inventoryRepository = inventoryRepository;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		try {
+			rebuild();
+		} catch (Exception e) {
+			log.error("Product facet index could not be built, faceted search will be unfiltered: {}",
+					e.getMessage());
+		}
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+
+		lock.writeLock().lock();
+		try {
+			pendingDuringRebuild = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		State fresh = new State();
+		try {
+			List<Product> active = new ArrayList<>(productRepository.findAllActive());
+			active.sort(OLDEST_FIRST);
+			for (Product p : active) {
+				fresh.apply(p);
+			}
+			for (Long productId : inventoryRepository.findInStockProductIds()) {
+				fresh.setInStock(productId, true);
+			}
+			fresh.optimize();
+		} catch (RuntimeException e) {
+			lock.writeLock().lock();
+			try {
+				pendingDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			throw e;
+		}
+
+		lock.writeLock().lock();
+		try {
+			for (PendingChange change : pendingDuringRebuild) {
+				if (change.product() != null)
+					fresh.apply(change.product());
+				else
+					fresh.setInStock(change.productId(), change.inStock());
+			}
+			pendingDuringRebuild = null;
+			state = fresh;
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		log.info("Product facet index built: {} products, {} categories, {} shops, {} out of age order in {} ms",
+				fresh.live.getCardinality(), fresh.byCategory.size(), fresh.byShop.size(),
+				fresh.exceptions.getCardinality(), System.currentTimeMillis() - start);
+	}
+
+	public void index(Product product) {
+		if (product == null || product.getId() == null)
+			return;
+
+		lock.writeLock().lock();
+		try {
+			state.apply(product);
+			if (pendingDuringRebuild != null)
+				pendingDuringRebuild.add(new PendingChange(product.getId(), product, false));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+		if (productId == null)
+			return;
+
+		Product removed = new Product();
+		removed.setId(productId);
+		removed.setIsActive(false);
+		index(removed);
+	}
+
+	public void updateStock(Long productId, boolean inStock) {
+		if (productId == null)
+			return;
+
+		lock.writeLock().lock();
+		try {
+			state.setInStock(productId, inStock);
+			if (pendingDuringRebuild != null)
+				pendingDuringRebuild.add(new PendingChange(productId, null, inStock));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public static List<String> priceBands() {
+		return List.of(PRICE_BANDS);
+	}
+
+	/*
+	 * textMatches, when given, restricts the result to those products. Results
+	 * are newest first by created_at, ties broken by id. Empty filter lists
+	 * mean "no constraint" for that facet.
+	 */
+	public Result query(long[] textMatches, List<Long> categoryIds, List<Long> shopIds, List<String> priceBands,
+			Boolean inStock, int limit, int offset) {
+
+		int[] bands = resolveBands(priceBands);
+
+		lock.readLock().lock();
+		try {
+			return state.query(textMatches, categoryIds, shopIds, bands, inStock, Math.max(0, limit),
+					Math.max(0, offset));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static int[] resolveBands(List<String> priceBands) {
+		if (priceBands == null || priceBands.isEmpty())
+			return new int[0];
+
+		int[] bands = new int[priceBands.size()];
+		for (int i = 0; i < bands.length; i++) {
+			int band = Arrays.asList(PRICE_BANDS).indexOf(priceBands.get(i));
+			if (band < 0)
+				throw new BadRequestException("Unknown price band: " + priceBands.get(i));
+			bands[i] = band;
+		}
+		return bands;
+	}
+
+	private static int priceBand(Double price) {
+		double value = price == null ? 0 : price;
+		for (int i = 0; i < PRICE_BAND_UPPER_BOUNDS.length; i++) {
+			if (value < PRICE_BAND_UPPER_BOUNDS[i])
+				return i;
+		}
+		return PRICE_BANDS.length - 1;
+	}
+
+	public static final class Result {
+
+		private final List<Long> productIds;
+		private final long total;
+		private final Map<Long, Long> categoryCounts;
+		private final Map<Long, Long> shopCounts;
+		private final Map<String, Long> priceBandCounts;
+		private final long inStockCount;
+		private final long outOfStockCount;
+
+		Result(List<Long> productIds, long total, Map<Long, Long> categoryCounts, Map<Long, Long> shopCounts,
+				Map<String, Long> priceBandCounts, long inStockCount, long outOfStockCount) {
+			this.productIds = productIds;
+			this.total = total;
+			this.categoryCounts = categoryCounts;
+			this.shopCounts = shopCounts;
+			this.priceBandCounts = priceBandCounts;
+			this.inStockCount = inStockCount;
+			this.outOfStockCount = outOfStockCount;
+		}
+
+		public List<Long> getProductIds() {
+			return productIds;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public Map<Long, Long> getCategoryCounts() {
+			return categoryCounts;
+		}
+
+		public Map<Long, Long> getShopCounts() {
+			return shopCounts;
+		}
+
+		public Map<String, Long> getPriceBandCounts() {
+			return priceBandCounts;
+		}
+
+		public long getInStockCount() {
+			return inStockCount;
+		}
+
+		public long getOutOfStockCount() {
+			return outOfStockCount;
+		}
+	}
+
+	private record PendingChange(Long productId, Product product, boolean inStock) {
+	}
+
+	private static final class State {
+
+		final LongIntHashMap ordinalById = new LongIntHashMap();
+		final RoaringBitmap live = new RoaringBitmap();
+		// Ordinals whose (created_at, id) ascend with the ordinal, and the live ones that do not fit
+		final RoaringBitmap ordered = new RoaringBitmap();
+		final RoaringBitmap exceptions = new RoaringBitmap();
+		final RoaringBitmap inStock = new RoaringBitmap();
+		final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+		final Map<Long, RoaringBitmap> byShop = new HashMap<>();
+		final RoaringBitmap[] byPriceBand = new RoaringBitmap[PRICE_BANDS.length];
+
+		long[] productIds = new long[1024];
+		long[] createdAt = new long[1024];
+		long[] categoryIds = new long[1024];
+		long[] shopIds = new long[1024];
+		byte[] bands = new byte[1024];
+
+		State() {
+			for (int i = 0; i < byPriceBand.length; i++) {
+				byPriceBand[i] = new RoaringBitmap();
+			}
+		}
+
+		// Ordinals are never reassigned, so stock flags survive deactivation and updates
+		int ordinal(Long productId) {
+			int ord = ordinalById.get(productId, -1);
+			if (ord >= 0)
+				return ord;
+
+			int next = ordinalById.size();
+			ensureCapacity(next + 1);
+			productIds[next] = productId;
+			createdAt[next] = Long.MIN_VALUE;
+			categoryIds[next] = -1;
+			shopIds[next] = -1;
+			bands[next] = -1;
+			ordinalById.put(productId, next);
+			return next;
+		}
+
+		void apply(Product p) {
+			int ord = ordinal(p.getId());
+			clearAttributes(ord);
+
+			boolean active = p.getIsActive() == null || p.getIsActive();
+			if (!active)
+				return;
+
+			long previousCreatedAt = createdAt[ord];
+			// A product indexed straight after its INSERT may not carry created_at yet
+			if (p.getCreatedAt() != null)
+				createdAt[ord] = p.getCreatedAt().toEpochSecond(ZoneOffset.UTC);
+			else if (createdAt[ord] == Long.MIN_VALUE)
+				createdAt[ord] = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+			categoryIds[ord] = p.getCategoryId() == null ? -1 : p.getCategoryId();
+			shopIds[ord] = p.getShopId() == null ? -1 : p.getShopId();
+			bands[ord] = (byte) priceBand(p.getSellingPrice());
+
+			if (categoryIds[ord] != -1)
+				byCategory.computeIfAbsent(categoryIds[ord], k -> new RoaringBitmap()).add(ord);
+			if (shopIds[ord] != -1)
+				byShop.computeIfAbsent(shopIds[ord], k -> new RoaringBitmap()).add(ord);
+			byPriceBand[bands[ord]].add(ord);
+			live.add(ord);
+			place(ord, createdAt[ord] != previousCreatedAt);
+		}
+
+		// Keeps ordered ascending by age: an ordinal joins it only if it fits between its ordered neighbours
+		private void place(int ord, boolean moved) {
+			if (!moved && ordered.contains(ord))
+				return;
+
+			ordered.remove(ord);
+			long prev = ordered.previousValue(ord);
+			long next = ordered.nextValue(ord);
+			if ((prev < 0 || compareAge((int) prev, ord) < 0) && (next < 0 || compareAge(ord, (int) next) < 0)) {
+				ordered.add(ord);
+				exceptions.remove(ord);
+			} else {
+				exceptions.add(ord);
+			}
+		}
+
+		void setInStock(Long productId, boolean available) {
+			int ord = ordinal(productId);
+			if (available)
+				inStock.add(ord);
+			else
+				inStock.remove(ord);
+		}
+
+		void optimize() {
+			live.runOptimize();
+			ordered.runOptimize();
+			inStock.runOptimize();
+			byCategory.values().forEach(RoaringBitmap::runOptimize);
+			byShop.values().forEach(RoaringBitmap::runOptimize);
+			for (RoaringBitmap bitmap : byPriceBand) {
+				bitmap.runOptimize();
+			}
+		}
+
+		private void clearAttributes(int ord) {
+			if (!live.contains(ord))
+				return;
+
+			live.remove(ord);
+			removeFrom(byCategory, categoryIds[ord], ord);
+			removeFrom(byShop, shopIds[ord], ord);
+			byPriceBand[bands[ord]].remove(ord);
+		}
+
+		private void removeFrom(Map<Long, RoaringBitmap> facet, long value, int ord) {
+			RoaringBitmap bitmap = facet.get(value);
+			if (bitmap == null)
+				return;
+			bitmap.remove(ord);
+			if (bitmap.isEmpty())
+				facet.remove(value);
+		}
+
+		Result query(long[] textMatches, List<Long> categoryFilter, List<Long> shopFilter, int[] bandFilter,
+				Boolean stockFilter, int limit, int offset) {
+
+			RoaringBitmap base = live;
+			if (textMatches != null) {
+				int[] ords = new int[textMatches.length];
+				int n = 0;
+				for (long id : textMatches) {
+					int ord = ordinalById.get(id, -1);
+					if (ord >= 0)
+						ords[n++] = ord;
+				}
+				Arrays.sort(ords, 0, n);
+				base = RoaringBitmap.bitmapOf(Arrays.copyOf(ords, n));
+				base.and(live);
+			}
+
+			RoaringBitmap category = union(byCategory, categoryFilter);
+			RoaringBitmap shop = union(byShop, shopFilter);
+			RoaringBitmap band = unionBands(bandFilter);
+			RoaringBitmap stock = stockFilter == null ? null
+					: stockFilter ? inStock : RoaringBitmap.andNot(live, inStock);
+
+			RoaringBitmap matched = intersect(base, category, shop, band, stock);
+
+			Map<Long, Long> categoryCounts = count(byCategory, intersect(base, shop, band, stock));
+			Map<Long, Long> shopCounts = count(byShop, intersect(base, category, band, stock));
+
+			RoaringBitmap withoutBand = intersect(base, category, shop, stock);
+			Map<String, Long> bandCounts = new LinkedHashMap<>();
+			for (int i = 0; i < PRICE_BANDS.length; i++) {
+				bandCounts.put(PRICE_BANDS[i], (long) RoaringBitmap.andCardinality(withoutBand, byPriceBand[i]));
+			}
+
+			RoaringBitmap withoutStock = intersect(base, category, shop, band);
+			long inStockCount = RoaringBitmap.andCardinality(withoutStock, inStock);
+			long outOfStockCount = withoutStock.getLongCardinality() - inStockCount;
+
+			return new Result(page(matched, limit, offset), matched.getLongCardinality(), categoryCounts,
+					shopCounts, bandCounts, inStockCount, outOfStockCount);
+		}
+
+		// Top offset + limit of the matches by (created_at, id), newest first
+		private List<Long> page(RoaringBitmap matched, int limit, int offset) {
+			int k = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+			if (k == 0 || matched.isEmpty())
+				return List.of();
+
+			// Ordered matches come off the bitmap newest first; only the exceptions need a heap
+			RoaringBitmap outOfOrder = exceptions.isEmpty() ? null : RoaringBitmap.and(matched, exceptions);
+			int[] extra = outOfOrder == null || outOfOrder.isEmpty() ? new int[0] : newest(outOfOrder, k);
+			IntIterator it = matched.getReverseIntIterator();
+			int next = nextOrdered(it, outOfOrder);
+
+			List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+			int e = 0;
+			for (int taken = 0; taken < k; taken++) {
+				int ord;
+				if (next >= 0 && (e == extra.length || compareAge(next, extra[e]) > 0)) {
+					ord = next;
+					next = nextOrdered(it, outOfOrder);
+				} else if (e < extra.length) {
+					ord = extra[e++];
+				} else {
+					break;
+				}
+				if (taken >= offset)
+					ids.add(productIds[ord]);
+			}
+			return ids;
+		}
+
+		private static int nextOrdered(IntIterator it, RoaringBitmap outOfOrder) {
+			while (it.hasNext()) {
+				int ord = it.next();
+				if (outOfOrder == null || !outOfOrder.contains(ord))
+					return ord;
+			}
+			return -1;
+		}
+
+		// Top k of the ordinals through an int[] min-heap on age, returned newest first
+		private int[] newest(RoaringBitmap ords, int k) {
+			int[] heap = new int[Math.min(k, ords.getCardinality())];
+			int size = 0;
+			IntIterator it = ords.getIntIterator();
+			while (it.hasNext()) {
+				int ord = it.next();
+				if (size < heap.length) {
+					heap[size] = ord;
+					siftUp(heap, size++);
+				} else if (compareAge(ord, heap[0]) > 0) {
+					heap[0] = ord;
+					siftDown(heap, size);
+				}
+			}
+			// Heap sort: each pass moves the oldest left to the back
+			for (int end = size - 1; end > 0; end--) {
+				int oldest = heap[0];
+				heap[0] = heap[end];
+				heap[end] = oldest;
+				siftDown(heap, end);
+			}
+			return heap;
+		}
+
+		private void siftUp(int[] heap, int i) {
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (compareAge(heap[i], heap[parent]) >= 0)
+					return;
+				swap(heap, i, parent);
+				i = parent;
+			}
+		}
+
+		private void siftDown(int[] heap, int size) {
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size)
+					return;
+				if (child + 1 < size && compareAge(heap[child + 1], heap[child]) < 0)
+					child++;
+				if (compareAge(heap[child], heap[i]) >= 0)
+					return;
+				swap(heap, i, child);
+				i = child;
+			}
+		}
+
+		private static void swap(int[] heap, int a, int b) {
+			int t = heap[a];
+			heap[a] = heap[b];
+			heap[b] = t;
+		}
+
+		// Newer created_at wins; ties go to the larger product id
+		private int compareAge(int a, int b) {
+			int c = Long.compare(createdAt[a], createdAt[b]);
+			return c != 0 ? c : Long.compare(productIds[a], productIds[b]);
+		}
+
+		private RoaringBitmap union(Map<Long, RoaringBitmap> facet, List<Long> values) {
+			if (values == null || values.isEmpty())
+				return null;
+
+			RoaringBitmap union = new RoaringBitmap();
+			for (Long value : values) {
+				RoaringBitmap bitmap = facet.get(value);
+				if (bitmap != null)
+					union.or(bitmap);
+			}
+			return union;
+		}
+
+		private RoaringBitmap unionBands(int[] values) {
+			if (values.length == 0)
+				return null;
+
+			RoaringBitmap union = new RoaringBitmap();
+			for (int band : values) {
+				union.or(byPriceBand[band]);
+			}
+			return union;
+		}
+
+		private RoaringBitmap intersect(RoaringBitmap base, RoaringBitmap... filters) {
+			RoaringBitmap result = base;
+			for (RoaringBitmap filter : filters) {
+				if (filter == null)
+					continue;
+				result = RoaringBitmap.and(result, filter);
+			}
+			return result;
+		}
+
+		// Non-zero counts only, most populous first
+		private Map<Long, Long> count(Map<Long, RoaringBitmap> facet, RoaringBitmap scope) {
+			List<long[]> counts = new ArrayList<>();
+			for (Map.Entry<Long, RoaringBitmap> e : facet.entrySet()) {
+				int n = RoaringBitmap.andCardinality(scope, e.getValue());
+				if (n > 0)
+					counts.add(new long[] { e.getKey(), n });
+			}
+			counts.sort((a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(a[0], b[0]));
+
+			Map<Long, Long> ordered = new LinkedHashMap<>();
+			for (long[] c : counts) {
+				ordered.put(c[0], c[1]);
+			}
+			return ordered;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity <= productIds.length)
+				return;
+			int newLength = Math.max(capacity, productIds.length * 2);
+			productIds = Arrays.copyOf(productIds, newLength);
+			createdAt = Arrays.copyOf(createdAt, newLength);
+			categoryIds = Arrays.copyOf(categoryIds, newLength);
+			shopIds = Arrays.copyOf(shopIds, newLength);
+			bands = Arrays.copyOf(bands, newLength);
+		}
+	}
+}
@@ -0,0 +1,536 @@
+package com.ecommerce.search;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * In-memory inverted index over active products, ranked with BM25. Name and SKU
+ * matches weigh more than descriptions. MySQL is only used to load the catalog
+ * and to hydrate the ids returned from search().
+ *
+ * A query only touches the postings of its terms: scores go into a table sized
+ * to those postings, so its cost follows the number of matches rather than the
+ * catalog. Updated and removed products leave dead ordinals behind; once they
+ * outnumber half the live ones the index is compacted from its own live
+ * documents, without going back to MySQL.
+ */
+@Component
+public class ProductSearchIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final double PREFIX_MATCH_FACTOR = 0.8;
+	private static final int MAX_PREFIX_EXPANSIONS = 32;
+	private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+	private static final int NAME_WEIGHT = 3;
+	private static final int SKU_WEIGHT = 3;
+	private static final int SHORT_DESCRIPTION_WEIGHT = 2;
+	private static final int DESCRIPTION_WEIGHT = 1;
+
+	private final ProductRepository productRepository;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private State state = new State();
+	private List<PendingChange> pendingDuringRebuild;
+	private volatile boolean ready;
+
+	public ProductSearchIndex(ProductRepository productRepository) {
+		this.productRepository = productRepository;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		try {
+			rebuild();
+		} catch (Exception e) {
+			log.error("Product search index could not be built, falling back to database search: {}",
+					e.getMessage());
+		}
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+
+		lock.writeLock().lock();
+		try {
+			pendingDuringRebuild = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		State fresh = new State();
+		try {
+			for (Product p : productRepository.findAllActive()) {
+				fresh.add(p);
+			}
+		} catch (RuntimeException e) {
+			lock.writeLock().lock();
+			try {
+				pendingDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			throw e;
+		}
+
+		lock.writeLock().lock();
+		try {
+			// Writes that raced with the load are replayed so they are not lost on swap
+			for (PendingChange change : pendingDuringRebuild) {
+				fresh.remove(change.productId());
+				if (change.product() != null)
+					fresh.add(change.product());
+			}
+			pendingDuringRebuild = null;
+			state = fresh;
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		log.info("Product search index built: {} products, {} terms in {} ms", fresh.liveCount,
+				fresh.dictionary.size(), System.currentTimeMillis() - start);
+	}
+
+	public void index(Product product) {
+		if (product == null || product.getId() == null)
+			return;
+
+		boolean active = product.getIsActive() == null || product.getIsActive();
+
+		lock.writeLock().lock();
+		try {
+			state.remove(product.getId());
+			if (active)
+				state.add(product);
+			if (pendingDuringRebuild != null)
+				pendingDuringRebuild.add(new PendingChange(product.getId(), active ? product : null));
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+		if (productId == null)
+			return;
+
+		lock.writeLock().lock();
+		try {
+			state.remove(productId);
+			if (pendingDuringRebuild != null)
+				pendingDuringRebuild.add(new PendingChange(productId, null));
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public Hits search(String query, Collection<Long> categoryIds, int limit, int offset) {
+		List<String> terms = SearchTokenizer.tokenize(query);
+		if (terms.isEmpty() || limit <= 0)
+			return Hits.EMPTY;
+
+		lock.readLock().lock();
+		try {
+			return state.search(terms, categoryIds == null ? null : Set.copyOf(categoryIds), limit,
+					Math.max(0, offset));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Ids of every product matching the query, unscored and in no particular
+	 * order, for callers that filter and sort the result set themselves. Same
+	 * matching rules as search(): every term, or any term if nothing has them all.
+	 */
+	public long[] matchIds(String query) {
+		List<String> terms = SearchTokenizer.tokenize(query);
+		if (terms.isEmpty())
+			return new long[0];
+
+		lock.readLock().lock();
+		try {
+			return state.match(terms);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Ordinals handed out so far, live or dead
+	int ordinalCount() {
+		lock.readLock().lock();
+		try {
+			return state.nextOrdinal;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Caller holds the write lock
+	private void compactIfNeeded() {
+		if (!state.needsCompaction())
+			return;
+		long start = System.currentTimeMillis();
+		int before = state.nextOrdinal;
+		state = state.compact();
+		log.info("Product search index compacted from {} to {} ordinals in {} ms", before, state.nextOrdinal,
+				System.currentTimeMillis() - start);
+	}
+
+	public static final class Hits {
+
+		static final Hits EMPTY = new Hits(List.of(), 0);
+
+		private final List<Long> productIds;
+		private final int total;
+
+		Hits(List<Long> productIds, int total) {
+			this.productIds = productIds;
+			this.total = total;
+		}
+
+		public List<Long> getProductIds() {
+			return productIds;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+	}
+
+	private record PendingChange(Long productId, Product product) {
+	}
+
+	private static final class Postings {
+		int[] docs = new int[4];
+		int[] freqs = new int[4];
+		int size;
+		int liveDocs;
+
+		void add(int doc, int freq) {
+			if (size == docs.length) {
+				docs = Arrays.copyOf(docs, size * 2);
+				freqs = Arrays.copyOf(freqs, size * 2);
+			}
+			docs[size] = doc;
+			freqs[size] = freq;
+			size++;
+			liveDocs++;
+		}
+	}
+
+	/*
+	 * Open-addressing table of the documents a query touched, keyed by
+	 * ordinal. Sized up front from the postings being read, so it never grows
+	 * and collecting walks only matched documents.
+	 */
+	private static final class Scores {
+		final int[] docs;
+		final float[] scores;
+		final int[] matchedClauses;
+		final int[] lastClause;
+		final int mask;
+
+		Scores(int expected) {
+			int capacity = Integer.highestOneBit(Math.max(expected, 1) * 2 - 1) << 1;
+			docs = new int[capacity];
+			Arrays.fill(docs, -1);
+			scores = new float[capacity];
+			matchedClauses = new int[capacity];
+			lastClause = new int[capacity];
+			mask = capacity - 1;
+		}
+
+		int slot(int doc) {
+			int i = (doc * 0x9E3779B9) & mask;
+			while (docs[i] != doc) {
+				if (docs[i] == -1) {
+					docs[i] = doc;
+					return i;
+				}
+				i = (i + 1) & mask;
+			}
+			return i;
+		}
+	}
+
+	private record ClausePostings(int clause, Postings postings, double factor) {
+	}
+
+	private static final class State {
+
+		final TreeMap<String, Postings> dictionary = new TreeMap<>();
+		final Map<Long, Integer> ordinalById = new HashMap<>();
+		final BitSet live = new BitSet();
+
+		long[] productIds = new long[1024];
+		long[] categoryIds = new long[1024];
+		int[] lengths = new int[1024];
+		String[][] docTerms = new String[1024][];
+		int[][] docFreqs = new int[1024][];
+
+		int nextOrdinal;
+		int liveCount;
+		long totalLength;
+
+		void add(Product p) {
+			Map<String, Integer> tf = new HashMap<>();
+			addField(tf, p.getName(), NAME_WEIGHT);
+			addField(tf, p.getSku(), SKU_WEIGHT);
+			addField(tf, p.getShortDescription(), SHORT_DESCRIPTION_WEIGHT);
+			addField(tf, p.getDescription(), DESCRIPTION_WEIGHT);
+
+			String[] terms = new String[tf.size()];
+			int[] freqs = new int[tf.size()];
+			int i = 0;
+			for (Map.Entry<String, Integer> e : tf.entrySet()) {
+				terms[i] = e.getKey();
+				freqs[i++] = e.getValue();
+			}
+			addDoc(p.getId(), p.getCategoryId() == null ? -1 : p.getCategoryId(), terms, freqs);
+		}
+
+		private void addDoc(long productId, long categoryId, String[] terms, int[] freqs) {
+			int ord = nextOrdinal++;
+			ensureCapacity(ord + 1);
+
+			int length = 0;
+			for (int i = 0; i < terms.length; i++) {
+				dictionary.computeIfAbsent(terms[i], k -> new Postings()).add(ord, freqs[i]);
+				length += freqs[i];
+			}
+
+			productIds[ord] = productId;
+			categoryIds[ord] = categoryId;
+			lengths[ord] = length;
+			docTerms[ord] = terms;
+			docFreqs[ord] = freqs;
+			live.set(ord);
+			ordinalById.put(productId, ord);
+			liveCount++;
+			totalLength += length;
+		}
+
+		boolean needsCompaction() {
+			int dead = nextOrdinal - liveCount;
+			return dead >= MIN_DEAD_TO_COMPACT && dead > liveCount / 2;
+		}
+
+		// A fresh state holding only the live documents, renumbered in their current order
+		State compact() {
+			State fresh = new State();
+			for (int ord = live.nextSetBit(0); ord >= 0; ord = live.nextSetBit(ord + 1)) {
+				fresh.addDoc(productIds[ord], categoryIds[ord], docTerms[ord], docFreqs[ord]);
+			}
+			return fresh;
+		}
+
+		void remove(Long productId) {
+			Integer ord = ordinalById.remove(productId);
+			if (ord == null)
+				return;
+
+			live.clear(ord);
+			liveCount--;
+			totalLength -= lengths[ord];
+			for (String term : docTerms[ord]) {
+				Postings postings = dictionary.get(term);
+				if (postings != null && --postings.liveDocs == 0)
+					dictionary.remove(term);
+			}
+			docTerms[ord] = null;
+			docFreqs[ord] = null;
+		}
+
+		Hits search(List<String> terms, Set<Long> categories, int limit, int offset) {
+			if (liveCount == 0)
+				return Hits.EMPTY;
+
+			// Resolve every clause first so the score table can be sized to the postings it will read
+			List<ClausePostings> reads = resolve(terms);
+			if (reads.isEmpty())
+				return Hits.EMPTY;
+			long expected = 0;
+			for (ClausePostings read : reads) {
+				expected += read.postings().size;
+			}
+
+			double avgLength = Math.max(1.0, (double) totalLength / liveCount);
+			Scores scores = new Scores((int) Math.min(expected, nextOrdinal));
+			for (ClausePostings read : reads) {
+				accumulate(read.postings(), read.factor(), read.clause(), avgLength, scores);
+			}
+
+			int required = terms.size();
+			Hits hits = collect(scores, required, categories, limit, offset);
+			if (hits.getTotal() == 0 && required > 1) {
+				// Nothing matched every term; fall back to ranking partial matches
+				hits = collect(scores, 1, categories, limit, offset);
+			}
+			return hits;
+		}
+
+		long[] match(List<String> terms) {
+			List<ClausePostings> reads = resolve(terms);
+			if (liveCount == 0 || reads.isEmpty())
+				return new long[0];
+
+			RoaringBitmap[] clauses = new RoaringBitmap[terms.size()];
+			for (ClausePostings read : reads) {
+				RoaringBitmap docs = clauses[read.clause()];
+				if (docs == null)
+					docs = clauses[read.clause()] = new RoaringBitmap();
+				Postings postings = read.postings();
+				for (int i = 0; i < postings.size; i++) {
+					if (live.get(postings.docs[i]))
+						docs.add(postings.docs[i]);
+				}
+			}
+
+			RoaringBitmap all = null;
+			RoaringBitmap any = new RoaringBitmap();
+			for (RoaringBitmap docs : clauses) {
+				RoaringBitmap clause = docs == null ? new RoaringBitmap() : docs;
+				all = all == null ? clause.clone() : RoaringBitmap.and(all, clause);
+				any.or(clause);
+			}
+			RoaringBitmap matched = all.isEmpty() ? any : all;
+
+			long[] ids = new long[matched.getCardinality()];
+			int i = 0;
+			for (IntIterator it = matched.getIntIterator(); it.hasNext();) {
+				ids[i++] = productIds[it.next()];
+			}
+			return ids;
+		}
+
+		// The postings each clause reads; the last term also matches as a prefix
+		private List<ClausePostings> resolve(List<String> terms) {
+			List<ClausePostings> reads = new ArrayList<>();
+			for (int clause = 0; clause < terms.size(); clause++) {
+				String term = terms.get(clause);
+				boolean expand = clause == terms.size() - 1 && term.length() >= 2;
+
+				if (expand) {
+					SortedMap<String, Postings> matches = dictionary.subMap(term, term + Character.MAX_VALUE);
+					int expansions = 0;
+					for (Map.Entry<String, Postings> e : matches.entrySet()) {
+						double factor = e.getKey().equals(term) ? 1.0 : PREFIX_MATCH_FACTOR;
+						reads.add(new ClausePostings(clause, e.getValue(), factor));
+						if (++expansions >= MAX_PREFIX_EXPANSIONS)
+							break;
+					}
+				} else {
+					Postings postings = dictionary.get(term);
+					if (postings != null)
+						reads.add(new ClausePostings(clause, postings, 1.0));
+				}
+			}
+			return reads;
+		}
+
+		private void accumulate(Postings postings, double factor, int clause, double avgLength, Scores scores) {
+			double idf = Math.log(1 + (liveCount - postings.liveDocs + 0.5) / (postings.liveDocs + 0.5));
+
+			for (int i = 0; i < postings.size; i++) {
+				int doc = postings.docs[i];
+				if (!live.get(doc))
+					continue;
+
+				int freq = postings.freqs[i];
+				double norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+				int slot = scores.slot(doc);
+				scores.scores[slot] += (float) (factor * idf * (freq * (K1 + 1)) / (freq + norm));
+
+				if (scores.lastClause[slot] != clause + 1) {
+					scores.lastClause[slot] = clause + 1;
+					scores.matchedClauses[slot]++;
+				}
+			}
+		}
+
+		// Works on slots of the score table; only documents the query touched are visited
+		private Hits collect(Scores scores, int required, Set<Long> categories, int limit, int offset) {
+			int k = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+			PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(k, 1024), (a, b) -> compare(scores, a, b));
+			int total = 0;
+
+			for (int slot = 0; slot < scores.docs.length; slot++) {
+				int doc = scores.docs[slot];
+				if (doc < 0 || scores.matchedClauses[slot] < required)
+					continue;
+				if (categories != null && !categories.contains(categoryIds[doc]))
+					continue;
+
+				total++;
+				if (top.size() < k) {
+					top.add(slot);
+				} else if (compare(scores, slot, top.peek()) > 0) {
+					top.poll();
+					top.add(slot);
+				}
+			}
+
+			List<Integer> ranked = new ArrayList<>(top);
+			ranked.sort((a, b) -> compare(scores, b, a));
+
+			List<Long> ids = new ArrayList<>();
+			for (int i = offset; i < ranked.size(); i++) {
+				ids.add(productIds[scores.docs[ranked.get(i)]]);
+			}
+			return new Hits(ids, total);
+		}
+
+		// Higher score wins; ties go to the newer (larger) product id
+		private int compare(Scores scores, int a, int b) {
+			int c = Float.compare(scores.scores[a], scores.scores[b]);
+			return c != 0 ? c : Long.compare(productIds[scores.docs[a]], productIds[scores.docs[b]]);
+		}
+
+		private void addField(Map<String, Integer> tf, String text, int weight) {
+			for (String token : SearchTokenizer.tokenize(text)) {
+				tf.merge(token, weight, Integer::sum);
+			}
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity <= productIds.length)
+				return;
+			int newLength = Math.max(capacity, productIds.length * 2);
+			productIds = Arrays.copyOf(productIds, newLength);
+			categoryIds = Arrays.copyOf(categoryIds, newLength);
+			lengths = Arrays.copyOf(lengths, newLength);
+			docTerms = Arrays.copyOf(docTerms, newLength);
+			docFreqs = Arrays.copyOf(docFreqs, newLength);
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package com.ecommerce.search;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductPopularity;
+import com.ecommerce.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Radix trie of active product names for /search/suggest. Every node keeps its
+ * ten most popular completions (ProductPopularity score: weighted order volume
+ * plus views) so a lookup is a walk down the prefix followed by a copy of a
+ * precomputed list.
+ */
+@Component
+public class ProductSuggestionIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductSuggestionIndex.class);
+
+	private static final int TOP_K = 10;
+
+	private static final Comparator<Entry> RANKING = Comparator.comparingLong((Entry e) -> e.score).reversed()
+			.thenComparing(e -> e.key);
+
+	private final ProductRepository productRepository;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private Trie trie = new Trie();
+	private List<Product> pendingDuringRebuild;
+	private volatile boolean ready;
+
+	public ProductSuggestionIndex(ProductRepository productRepository) {
+		this.productRepository = productRepository;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		refresh();
+	}
+
+	@Scheduled(initialDelayString = "${search.suggest.rebuild-interval-ms:600000}", fixedDelayString = "${search.suggest.rebuild-interval-ms:600000}")
+	public void refresh() {
+		try {
+			rebuild();
+		} catch (Exception e) {
+			log.error("Suggestion trie rebuild failed, keeping previous snapshot: {}", e.getMessage());
+		}
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+
+		lock.writeLock().lock();
+		try {
+			pendingDuringRebuild = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		Trie fresh = new Trie();
+		try {
+			for (ProductPopularity p : productRepository.findActiveProductPopularity()) {
+				fresh.put(p.getProductId(), p.getName(), p.getScore(), false);
+			}
+			fresh.computeAllTops(fresh.root);
+		} catch (RuntimeException e) {
+			lock.writeLock().lock();
+			try {
+				pendingDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			throw e;
+		}
+
+		lock.writeLock().lock();
+		try {
+			for (Product p : pendingDuringRebuild) {
+				fresh.apply(p);
+			}
+			pendingDuringRebuild = null;
+			trie = fresh;
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		log.info("Suggestion trie built: {} names in {} ms", fresh.entries.size(), System.currentTimeMillis() - start);
+	}
+
+	public void index(Product product) {
+		if (product == null || product.getId() == null)
+			return;
+
+		lock.writeLock().lock();
+		try {
+			trie.apply(product);
+			if (pendingDuringRebuild != null)
+				pendingDuringRebuild.add(product);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+		if (productId == null)
+			return;
+
+		Product removed = new Product();
+		removed.setId(productId);
+		removed.setIsActive(false);
+		index(removed);
+	}
+
+	public List<String> suggest(String prefix, int limit) {
+		String key = normalize(prefix);
+		if (key.isEmpty())
+			return List.of();
+
+		lock.readLock().lock();
+		try {
+			Node node = trie.find(key);
+			if (node == null)
+				return List.of();
+
+			List<String> names = new ArrayList<>(Math.min(limit, node.top.size()));
+			for (int i = 0; i < node.top.size() && i < limit; i++) {
+				names.add(node.top.get(i).display);
+			}
+			return names;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static String normalize(String name) {
+		return SearchTokenizer.normalize(name).trim().replaceAll("\\s+", " ");
+	}
+
+	// All products whose names normalize to the same key share one suggestion
+	private static final class Entry {
+		final String key;
+		final Map<Long, Long> scoreByProduct = new HashMap<>();
+		final Map<Long, String> nameByProduct = new HashMap<>();
+		String display;
+		long score;
+
+		Entry(String key) {
+			this.key = key;
+		}
+
+		void recompute() {
+			score = 0;
+			long best = -1;
+			Long bestId = null;
+			for (Map.Entry<Long, Long> e : scoreByProduct.entrySet()) {
+				score += e.getValue();
+				if (e.getValue() > best || (e.getValue() == best && e.getKey() < bestId)) {
+					best = e.getValue();
+					bestId = e.getKey();
+				}
+			}
+			display = bestId == null ? key : nameByProduct.get(bestId);
+		}
+	}
+
+	private static final class Node {
+		String label;
+		Entry entry;
+		final Map<Character, Node> children = new HashMap<>(4);
+		List<Entry> top = List.of();
+
+		Node(String label) {
+			this.label = label;
+		}
+	}
+
+	private static final class Trie {
+		final Node root = new Node("");
+		final Map<String, Entry> entries = new HashMap<>();
+		final Map<Long, String> keyByProduct = new HashMap<>();
+		final Map<Long, Long> scoreByProduct = new HashMap<>();
+
+		void apply(Product p) {
+			boolean active = p.getIsActive() == null || p.getIsActive();
+			if (active && p.getName() != null) {
+				put(p.getId(), p.getName(), scoreByProduct.getOrDefault(p.getId(), 0L), true);
+			} else {
+				delete(p.getId());
+			}
+		}
+
+		void put(Long productId, String name, long score, boolean maintainTops) {
+			String key = normalize(name);
+			String previousKey = keyByProduct.get(productId);
+			if (previousKey != null && !previousKey.equals(key))
+				delete(productId);
+			if (key.isEmpty())
+				return;
+
+			Entry entry = entries.computeIfAbsent(key, Entry::new);
+			entry.scoreByProduct.put(productId, score);
+			entry.nameByProduct.put(productId, name.trim());
+			entry.recompute();
+			keyByProduct.put(productId, key);
+			scoreByProduct.put(productId, score);
+
+			List<Node> path = insert(key, entry);
+			if (maintainTops)
+				recomputeTops(path);
+		}
+
+		void delete(Long productId) {
+			String key = keyByProduct.remove(productId);
+			scoreByProduct.remove(productId);
+			if (key == null)
+				return;
+
+			Entry entry = entries.get(key);
+			entry.scoreByProduct.remove(productId);
+			entry.nameByProduct.remove(productId);
+
+			List<Node> path = pathTo(key);
+			if (entry.scoreByProduct.isEmpty()) {
+				entries.remove(key);
+				Node node = path.get(path.size() - 1);
+				node.entry = null;
+				prune(path);
+			} else {
+				entry.recompute();
+			}
+			recomputeTops(path);
+		}
+
+		Node find(String prefix) {
+			Node node = root;
+			int i = 0;
+			while (i < prefix.length()) {
+				Node child = node.children.get(prefix.charAt(i));
+				if (child == null)
+					return null;
+
+				int remaining = prefix.length() - i;
+				if (remaining <= child.label.length()) {
+					return child.label.startsWith(prefix.substring(i)) ? child : null;
+				}
+				if (!prefix.startsWith(child.label, i))
+					return null;
+
+				i += child.label.length();
+				node = child;
+			}
+			return node;
+		}
+
+		private List<Node> insert(String key, Entry entry) {
+			List<Node> path = new ArrayList<>();
+			path.add(root);
+			Node node = root;
+			int i = 0;
+
+			while (i < key.length()) {
+				char c = key.charAt(i);
+				Node child = node.children.get(c);
+				if (child == null) {
+					Node leaf = new Node(key.substring(i));
+					node.children.put(c, leaf);
+					node = leaf;
+					path.add(node);
+					i = key.length();
+					break;
+				}
+
+				int common = commonPrefix(child.label, key, i);
+				if (common < child.label.length()) {
+					// Split the edge so the new key can branch off (or end) in the middle
+					Node mid = new Node(child.label.substring(0, common));
+					child.label = child.label.substring(common);
+					mid.children.put(child.label.charAt(0), child);
+					mid.top = child.top;
+					node.children.put(c, mid);
+					child = mid;
+				}
+
+				node = child;
+				path.add(node);
+				i += common;
+			}
+
+			node.entry = entry;
+			return path;
+		}
+
+		private List<Node> pathTo(String key) {
+			List<Node> path = new ArrayList<>();
+			path.add(root);
+			Node node = root;
+			int i = 0;
+			while (i < key.length()) {
+				node = node.children.get(key.charAt(i));
+				path.add(node);
+				i += node.label.length();
+			}
+			return path;
+		}
+
+		private void prune(List<Node> path) {
+			for (int i = path.size() - 1; i > 0; i--) {
+				Node node = path.get(i);
+				Node parent = path.get(i - 1);
+
+				if (node.entry == null && node.children.isEmpty()) {
+					parent.children.remove(node.label.charAt(0));
+					path.remove(i);
+				} else if (node.entry == null && node.children.size() == 1) {
+					// Re-compress: fold the only child into this node's edge
+					Node only = node.children.values().iterator().next();
+					only.label = node.label + only.label;
+					parent.children.put(only.label.charAt(0), only);
+					path.set(i, only);
+					path.subList(i + 1, path.size()).clear();
+					return;
+				} else {
+					return;
+				}
+			}
+		}
+
+		private void recomputeTops(List<Node> path) {
+			for (int i = path.size() - 1; i >= 0; i--) {
+				computeTop(path.get(i));
+			}
+		}
+
+		void computeAllTops(Node node) {
+			for (Node child : node.children.values()) {
+				computeAllTops(child);
+			}
+			computeTop(node);
+		}
+
+		private void computeTop(Node node) {
+			List<Entry> candidates = new ArrayList<>();
+			if (node.entry != null)
+				candidates.add(node.entry);
+			for (Node child : node.children.values()) {
+				candidates.addAll(child.top);
+			}
+			candidates.sort(RANKING);
+			node.top = candidates.size() > TOP_K ? List.copyOf(candidates.subList(0, TOP_K))
+					: List.copyOf(candidates);
+		}
+
+		private static int commonPrefix(String label, String key, int offset) {
+			int n = Math.min(label.length(), key.length() - offset);
+			int i = 0;
+			while (i < n && label.charAt(i) == key.charAt(offset + i)) {
+				i++;
+			}
+			return i;
+		}
+	}
+}
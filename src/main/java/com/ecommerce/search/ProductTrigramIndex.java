@@ -0,0 +1,474 @@
+package com.ecommerce.search;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Typo-tolerant lookup over product names and SKUs. The vocabulary of name and
+ * SKU words is indexed by character trigrams; a query word is matched against
+ * the words sharing the most trigrams with it, and only those few candidates
+ * are checked with a bounded edit distance. Products are then ranked by how
+ * many query words they match, trigram similarity, and total edits.
+ *
+ * Only the postings of the matched words are read, into a map of the products
+ * they name. Updated and removed products leave dead ordinals and words behind;
+ * once dead ordinals outnumber half the live ones the index is compacted from
+ * its own live products, which also drops words no live product uses.
+ */
+@Component
+public class ProductTrigramIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductTrigramIndex.class);
+
+	private static final double MIN_SIMILARITY = 0.3;
+	private static final int MAX_CANDIDATE_TERMS = 64;
+	private static final int MIN_FUZZY_LENGTH = 3;
+	private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+	private final ProductRepository productRepository;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private State state = new State();
+	private List<PendingChange> pendingDuringRebuild;
+	private volatile boolean ready;
+
+	public ProductTrigramIndex(ProductRepository productRepository) {
+		this.productRepository = productRepository;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		try {
+			rebuild();
+		} catch (Exception e) {
+			log.error("Product trigram index could not be built, fuzzy search disabled: {}", e.getMessage());
+		}
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+
+		lock.writeLock().lock();
+		try {
+			pendingDuringRebuild = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		State fresh = new State();
+		try {
+			for (Product p : productRepository.findAllActive()) {
+				fresh.add(p);
+			}
+		} catch (RuntimeException e) {
+			lock.writeLock().lock();
+			try {
+				pendingDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			throw e;
+		}
+
+		lock.writeLock().lock();
+		try {
+			for (PendingChange change : pendingDuringRebuild) {
+				fresh.remove(change.productId());
+				if (change.product() != null)
+					fresh.add(change.product());
+			}
+			pendingDuringRebuild = null;
+			state = fresh;
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		log.info("Product trigram index built: {} products, {} words, {} trigrams in {} ms", fresh.liveCount,
+				fresh.terms.size(), fresh.trigrams.size(), System.currentTimeMillis() - start);
+	}
+
+	public void index(Product product) {
+		if (product == null || product.getId() == null)
+			return;
+
+		boolean active = product.getIsActive() == null || product.getIsActive();
+
+		lock.writeLock().lock();
+		try {
+			state.remove(product.getId());
+			if (active)
+				state.add(product);
+			if (pendingDuringRebuild != null)
+				pendingDuringRebuild.add(new PendingChange(product.getId(), active ? product : null));
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long productId) {
+		if (productId == null)
+			return;
+
+		lock.writeLock().lock();
+		try {
+			state.remove(productId);
+			if (pendingDuringRebuild != null)
+				pendingDuringRebuild.add(new PendingChange(productId, null));
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public ProductSearchIndex.Hits search(String query, Collection<Long> categoryIds, int limit, int offset) {
+		List<String> words = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.tokenize(query)));
+		if (words.isEmpty() || limit <= 0)
+			return ProductSearchIndex.Hits.EMPTY;
+
+		lock.readLock().lock();
+		try {
+			return state.search(words, categoryIds == null ? null : Set.copyOf(categoryIds), limit,
+					Math.max(0, offset));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Ordinals handed out so far, live or dead
+	int ordinalCount() {
+		lock.readLock().lock();
+		try {
+			return state.nextOrdinal;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Caller holds the write lock
+	private void compactIfNeeded() {
+		if (!state.needsCompaction())
+			return;
+		long start = System.currentTimeMillis();
+		int before = state.nextOrdinal;
+		int words = state.terms.size();
+		state = state.compact();
+		log.info("Product trigram index compacted from {} to {} ordinals and {} to {} words in {} ms", before,
+				state.nextOrdinal, words, state.terms.size(), System.currentTimeMillis() - start);
+	}
+
+	// "iphnoe" -> "  i", " ip", "iph", ..., "oe "; padding lets short words and word edges count
+	static Set<String> trigrams(String word) {
+		String padded = "  " + word + " ";
+		Set<String> grams = new LinkedHashSet<>();
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			grams.add(padded.substring(i, i + 3));
+		}
+		return grams;
+	}
+
+	static int maxEdits(int length) {
+		if (length < MIN_FUZZY_LENGTH)
+			return 0;
+		if (length <= 5)
+			return 1;
+		return length <= 9 ? 2 : 3;
+	}
+
+	// Optimal string alignment distance; gives up early once every cell in a row exceeds max
+	static int editDistance(String a, String b, int max) {
+		if (Math.abs(a.length() - b.length()) > max)
+			return max + 1;
+
+		int[] prev2 = new int[b.length() + 1];
+		int[] prev = new int[b.length() + 1];
+		int[] cur = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			prev[j] = j;
+		}
+
+		for (int i = 1; i <= a.length(); i++) {
+			cur[0] = i;
+			int rowMin = cur[0];
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+					d = Math.min(d, prev2[j - 2] + 1);
+				cur[j] = d;
+				rowMin = Math.min(rowMin, d);
+			}
+			if (rowMin > max)
+				return max + 1;
+
+			int[] t = prev2;
+			prev2 = prev;
+			prev = cur;
+			cur = t;
+		}
+		return prev[b.length()];
+	}
+
+	private record PendingChange(Long productId, Product product) {
+	}
+
+	private record TermMatch(int term, double similarity, int edits) {
+	}
+
+	private static final class IntList {
+		int[] values = new int[4];
+		int size;
+
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+	}
+
+	private static final class DocScore {
+		int matchedWords;
+		double similarity;
+		int edits;
+		int lastWord = -1;
+		double wordSimilarity;
+		int wordEdits;
+
+		void close() {
+			if (lastWord >= 0) {
+				matchedWords++;
+				similarity += wordSimilarity;
+				edits += wordEdits;
+			}
+		}
+	}
+
+	private static final class State {
+
+		// Words stay in the vocabulary until the next compaction; postings skip products that are no longer live
+		final Map<String, Integer> termIds = new HashMap<>();
+		final List<String> terms = new ArrayList<>();
+		final List<IntList> termDocs = new ArrayList<>();
+		final List<Integer> termGramCounts = new ArrayList<>();
+		final Map<String, IntList> trigrams = new HashMap<>();
+
+		final Map<Long, Integer> ordinalById = new HashMap<>();
+		final BitSet live = new BitSet();
+
+		long[] productIds = new long[1024];
+		long[] categoryIds = new long[1024];
+		String[][] docWords = new String[1024][];
+
+		int nextOrdinal;
+		int liveCount;
+
+		void add(Product p) {
+			Set<String> words = new LinkedHashSet<>(SearchTokenizer.tokenize(p.getName()));
+			words.addAll(SearchTokenizer.tokenize(p.getSku()));
+			addDoc(p.getId(), p.getCategoryId() == null ? -1 : p.getCategoryId(), words.toArray(new String[0]));
+		}
+
+		private void addDoc(long productId, long categoryId, String[] words) {
+			int ord = nextOrdinal++;
+			ensureCapacity(ord + 1);
+
+			for (String word : words) {
+				termDocs.get(termId(word)).add(ord);
+			}
+
+			productIds[ord] = productId;
+			categoryIds[ord] = categoryId;
+			docWords[ord] = words;
+			live.set(ord);
+			ordinalById.put(productId, ord);
+			liveCount++;
+		}
+
+		void remove(Long productId) {
+			Integer ord = ordinalById.remove(productId);
+			if (ord == null)
+				return;
+			live.clear(ord);
+			docWords[ord] = null;
+			liveCount--;
+		}
+
+		boolean needsCompaction() {
+			int dead = nextOrdinal - liveCount;
+			return dead >= MIN_DEAD_TO_COMPACT && dead > liveCount / 2;
+		}
+
+		// A fresh state holding only the live products, renumbered in their current order
+		State compact() {
+			State fresh = new State();
+			for (int ord = live.nextSetBit(0); ord >= 0; ord = live.nextSetBit(ord + 1)) {
+				fresh.addDoc(productIds[ord], categoryIds[ord], docWords[ord]);
+			}
+			return fresh;
+		}
+
+		private int termId(String word) {
+			Integer id = termIds.get(word);
+			if (id != null)
+				return id;
+
+			int newId = terms.size();
+			Set<String> grams = trigrams(word);
+			for (String gram : grams) {
+				trigrams.computeIfAbsent(gram, g -> new IntList()).add(newId);
+			}
+			termIds.put(word, newId);
+			terms.add(word);
+			termDocs.add(new IntList());
+			termGramCounts.add(grams.size());
+			return newId;
+		}
+
+		ProductSearchIndex.Hits search(List<String> words, Set<Long> categories, int limit, int offset) {
+			if (liveCount == 0)
+				return ProductSearchIndex.Hits.EMPTY;
+
+			Map<Integer, DocScore> docs = new HashMap<>();
+			for (int w = 0; w < words.size(); w++) {
+				for (TermMatch match : matchTerms(words.get(w))) {
+					IntList postings = termDocs.get(match.term());
+					for (int i = 0; i < postings.size; i++) {
+						int doc = postings.values[i];
+						if (!live.get(doc))
+							continue;
+
+						DocScore score = docs.computeIfAbsent(doc, d -> new DocScore());
+						if (score.lastWord != w) {
+							score.close();
+							score.lastWord = w;
+							score.wordSimilarity = match.similarity();
+							score.wordEdits = match.edits();
+						} else if (match.similarity() > score.wordSimilarity) {
+							score.wordSimilarity = match.similarity();
+							score.wordEdits = match.edits();
+						}
+					}
+				}
+			}
+			docs.values().forEach(s -> {
+				s.close();
+				s.lastWord = -1;
+			});
+
+			ProductSearchIndex.Hits hits = collect(docs, words.size(), categories, limit, offset);
+			if (hits.getTotal() == 0 && words.size() > 1)
+				hits = collect(docs, 1, categories, limit, offset);
+			return hits;
+		}
+
+		// Words sharing enough trigrams with the query word, then verified by edit distance
+		private List<TermMatch> matchTerms(String word) {
+			List<TermMatch> matches = new ArrayList<>();
+			int max = maxEdits(word.length());
+
+			Integer exact = termIds.get(word);
+			if (exact != null)
+				matches.add(new TermMatch(exact, 1.0, 0));
+			if (max == 0)
+				return matches;
+
+			Set<String> grams = trigrams(word);
+			Map<Integer, Integer> overlap = new HashMap<>();
+			for (String gram : grams) {
+				IntList postings = trigrams.get(gram);
+				if (postings == null)
+					continue;
+				for (int i = 0; i < postings.size; i++) {
+					overlap.merge(postings.values[i], 1, Integer::sum);
+				}
+			}
+
+			PriorityQueue<TermMatch> candidates = new PriorityQueue<>(
+					(a, b) -> Double.compare(a.similarity(), b.similarity()));
+			for (Map.Entry<Integer, Integer> e : overlap.entrySet()) {
+				int term = e.getKey();
+				if (exact != null && term == exact)
+					continue;
+
+				double dice = 2.0 * e.getValue() / (grams.size() + termGramCounts.get(term));
+				if (dice < MIN_SIMILARITY)
+					continue;
+				if (candidates.size() < MAX_CANDIDATE_TERMS) {
+					candidates.add(new TermMatch(term, dice, 0));
+				} else if (dice > candidates.peek().similarity()) {
+					candidates.poll();
+					candidates.add(new TermMatch(term, dice, 0));
+				}
+			}
+
+			for (TermMatch candidate : candidates) {
+				int edits = editDistance(word, terms.get(candidate.term()), max);
+				if (edits <= max)
+					matches.add(new TermMatch(candidate.term(), candidate.similarity(), edits));
+			}
+			return matches;
+		}
+
+		private ProductSearchIndex.Hits collect(Map<Integer, DocScore> docs, int required,
+				Set<Long> categories, int limit, int offset) {
+			List<Integer> matched = new ArrayList<>();
+			for (Map.Entry<Integer, DocScore> e : docs.entrySet()) {
+				int doc = e.getKey();
+				if (e.getValue().matchedWords < required)
+					continue;
+				if (categories != null && !categories.contains(categoryIds[doc]))
+					continue;
+				matched.add(doc);
+			}
+
+			matched.sort((a, b) -> {
+				DocScore x = docs.get(a);
+				DocScore y = docs.get(b);
+				if (x.matchedWords != y.matchedWords)
+					return Integer.compare(y.matchedWords, x.matchedWords);
+				if (x.similarity != y.similarity)
+					return Double.compare(y.similarity, x.similarity);
+				if (x.edits != y.edits)
+					return Integer.compare(x.edits, y.edits);
+				return Long.compare(productIds[b], productIds[a]);
+			});
+
+			List<Long> ids = new ArrayList<>();
+			for (int i = offset; i < matched.size() && ids.size() < limit; i++) {
+				ids.add(productIds[matched.get(i)]);
+			}
+			return new ProductSearchIndex.Hits(ids, matched.size());
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity <= productIds.length)
+				return;
+			int newLength = Math.max(capacity, productIds.length * 2);
+			productIds = Arrays.copyOf(productIds, newLength);
+			categoryIds = Arrays.copyOf(categoryIds, newLength);
+			docWords = Arrays.copyOf(docWords, newLength);
+		}
+	}
+}
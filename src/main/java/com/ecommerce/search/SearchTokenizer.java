@@ -0,0 +1,41 @@
+package com.ecommerce.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class SearchTokenizer {
+
+	private SearchTokenizer() {
+	}
+
+	public static String normalize(String text) {
+		if (text == null)
+			return "";
+		String s = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+		return s.toLowerCase(Locale.ROOT);
+	}
+
+	public static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null || text.isEmpty())
+			return tokens;
+
+		String s = normalize(text);
+		int start = -1;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				if (start < 0)
+					start = i;
+			} else if (start >= 0) {
+				tokens.add(s.substring(start, i));
+				start = -1;
+			}
+		}
+		if (start >= 0)
+			tokens.add(s.substring(start));
+		return tokens;
+	}
+}
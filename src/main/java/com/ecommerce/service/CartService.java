@@ -1,15 +1,23 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CartOperationRequest;
 import com.ecommerce.dto.CartResponse;
 import com.ecommerce.model.Cart;
 import com.ecommerce.model.CartItem;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
 public interface CartService {
 
 	Cart getOrCreateCart(Long userId);
 
 	CartResponse getUserCart(Long userId);
 
+	CartResponse getCheckoutCart(Long userId);
+
 	CartItem addToCart(Long userId, Long productId, Integer quantity);
 
 	CartItem updateCartItemQuantity(Long userId, Long cartItemId, Integer quantity);
@@ -18,5 +26,11 @@ public interface CartService {
 
 	void clearCart(Long userId);
 
+	CartResponse applyOperations(Long userId, List<CartOperationRequest> operations);
+
+	void flushCart(Long userId);
+
+	List<Long> sweepCarts(Map<Long, Long> userByCart, Function<Collection<Long>, List<Long>> delete);
+
 	CartResponse validateCart(Long userId);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CategoryTreeResponse;
 import com.ecommerce.model.Category;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface CategoryService {
@@ -16,4 +18,12 @@ public interface CategoryService {
 	void update(Category c);
 
 	Category getById(Long id);
+
+	LocalDateTime getLastModified();
+
+	LocalDateTime getActiveLastModified();
+
+	CategoryTreeResponse getTree(Long categoryId);
+
+	LocalDateTime getTreeLastModified();
 }
\ No newline at end of file
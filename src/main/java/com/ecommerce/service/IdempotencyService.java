@@ -0,0 +1,12 @@
+package com.ecommerce.service;
+
+import com.ecommerce.enums.IdempotencyScope;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+	<T> T execute(Long userId, IdempotencyScope scope, String key, Object request, TypeReference<T> responseType,
+			Supplier<T> action);
+}
@@ -1,6 +1,10 @@
 package com.ecommerce.service;
 
 import com.ecommerce.dto.InventoryResponse;
+import com.ecommerce.model.StockShortage;
+
+import java.util.List;
+import java.util.Map;
 
 public interface InventoryService {
 
@@ -14,6 +18,10 @@ public interface InventoryService {
 
 	InventoryResponse reserveStock(Long productId, int quantity);
 
+	List<StockShortage> reserveAll(Map<Long, Integer> quantities);
+
+	InventoryResponse setStripes(Long productId, int stripes);
+
 	InventoryResponse releaseReserved(Long productId, int quantity);
 
 	InventoryResponse consumeReservedOnOrder(Long productId, int quantity);
@@ -0,0 +1,10 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductDetailResponse;
+
+import java.util.Optional;
+
+public interface ProductDetailService {
+
+	Optional<ProductDetailResponse> getProductDetail(Long productId);
+}
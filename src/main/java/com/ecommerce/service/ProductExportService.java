@@ -0,0 +1,11 @@
+package com.ecommerce.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ProductExportService {
+
+	void exportNdjson(Long shopId, boolean activeOnly, OutputStream out) throws IOException;
+
+	void exportCsv(Long shopId, boolean activeOnly, OutputStream out) throws IOException;
+}
@@ -4,6 +4,7 @@ import com.ecommerce.dto.ProductImageRequest;
 import com.ecommerce.model.ProductImage;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ProductImageService {
@@ -14,6 +15,8 @@ public interface ProductImageService {
 
 	List<ProductImage> getImagesByProduct(Long productId);
 
+	LocalDateTime getImagesLastModified(Long productId);
+
 	ProductImage updateImage(Long imageId, ProductImageRequest req);
 
 	void softDeleteImage(Long imageId);
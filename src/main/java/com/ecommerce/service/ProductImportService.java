@@ -0,0 +1,12 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductImportResponse;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+
+	ProductImportResponse importCsv(Long shopId, InputStream in);
+
+	ProductImportResponse importNdjson(Long shopId, InputStream in);
+}
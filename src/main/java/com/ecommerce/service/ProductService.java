@@ -1,8 +1,16 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.FacetedSearchResponse;
+import com.ecommerce.dto.ProductChangeFeedResponse;
+import com.ecommerce.dto.ProductPageResponse;
 import com.ecommerce.dto.ProductRequest;
 import com.ecommerce.dto.ProductResponse;
+import com.ecommerce.dto.ProductSummaryResponse;
+import com.ecommerce.dto.ShopProductSummaryResponse;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,15 +22,34 @@ public interface ProductService {
 
 	Optional<ProductResponse> getProductById(Long id);
 
-	List<ProductResponse> getAllActiveProducts();
+	LocalDateTime getProductLastModified(Long id);
 
-	List<ProductResponse> getProductsByShop(Long shopId);
+	LocalDateTime getCatalogLastModified();
+
+	LocalDateTime getCatalogLastModified(Long categoryId);
+
+	void popularityChanged(Collection<Long> productIds);
+
+	ProductChangeFeedResponse getChangesSince(long since, int limit);
+
+	List<ProductSummaryResponse> getAllActiveProducts();
+
+	List<ShopProductSummaryResponse> getProductsByShop(Long shopId);
 
 	List<ProductResponse> getAllProducts();
 
 	boolean softDeleteProduct(Long id);
 
-	List<ProductResponse> searchProducts(String q, Long categoryId, int page, int size);
+	List<ProductSummaryResponse> searchProducts(String q, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+			String sort, int page, int size);
+
+	List<ProductSummaryResponse> fuzzySearchProducts(String q, Long categoryId, int page, int size);
+
+	ProductPageResponse searchProductsPage(String q, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+			String sort, String cursor, int size);
+
+	FacetedSearchResponse facetedSearch(String q, List<Long> categoryIds, List<Long> shopIds, List<String> priceBands,
+			Boolean inStock, int page, int size);
 
 	boolean shopBelongsToUser(Long shopId, Long userId);
 
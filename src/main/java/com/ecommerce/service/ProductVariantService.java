@@ -25,4 +25,6 @@ public interface ProductVariantService {
 	ProductVariantStockResponse upsertStock(Long productId, Long variantValueId, ProductVariantStockRequest request);
 
 	List<ProductVariantStockResponse> getStockByProduct(Long productId);
+
+	List<ProductVariantGroupDetailResponse> getVariantMatrix(Long productId);
 }
@@ -2,6 +2,7 @@ package com.ecommerce.service;
 
 import java.util.List;
 
+import com.ecommerce.dto.RatingSummaryResponse;
 import com.ecommerce.dto.ReviewRequest;
 import com.ecommerce.dto.ReviewResponse;
 
@@ -20,4 +21,8 @@ public interface ReviewService {
 	void deleteReview(Long reviewId, Long userId);
 
 	Double getAverageRating(Long productId);
+
+	List<ReviewResponse> getNewestReviews(Long productId, int limit);
+
+	RatingSummaryResponse getRatingSummary(Long productId);
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.model.Cart;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.service.CartService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Deletes carts nobody has touched for cart.sweeper.idle-days, together with
+ * their items. Work is done in chunks of batch-size carts, each in its own
+ * short transaction, so a run never holds row locks for long; it stops after
+ * max-carts-per-run and the next run carries on from the oldest remaining
+ * cart. Carts the session store holds in memory are in use and are left
+ * alone. A user whose cart was swept simply gets a new, empty one.
+ */
+@Service
+public class AbandonedCartSweeper {
+
+	private static final Logger log = LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+	private final CartRepository cartRepository;
+	private final CartService cartService;
+	private final TransactionTemplate transactionTemplate;
+	private final int idleDays;
+	private final int batchSize;
+	private final int maxCartsPerRun;
+
+	private final AtomicLong runs = new AtomicLong();
+	private final AtomicLong cartsReclaimed = new AtomicLong();
+	private final AtomicLong itemsReclaimed = new AtomicLong();
+	private final AtomicLong totalMillis = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private volatile int lastRunCarts;
+	private volatile int lastRunItems;
+	private volatile long lastRunMillis;
+	private volatile LocalDateTime lastRunAt;
+
+	public AbandonedCartSweeper(CartRepository cartRepository, CartService cartService,
+			PlatformTransactionManager transactionManager,
+			@Value("${cart.sweeper.idle-days:30}") int idleDays,
+			@Value("${cart.sweeper.batch-size:500}") int batchSize,
+			@Value("${cart.sweeper.max-carts-per-run:50000}") int maxCartsPerRun) {
+		this.cartRepository = cartRepository;
+		this.cartService = cartService;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.idleDays = idleDays;
+		this.batchSize = batchSize;
+		this.maxCartsPerRun = maxCartsPerRun;
+	}
+
+	@Scheduled(initialDelayString = "${cart.sweeper.interval-ms:3600000}", fixedDelayString = "${cart.sweeper.interval-ms:3600000}")
+	public void sweep() {
+		long start = System.currentTimeMillis();
+		int carts = 0;
+		int items = 0;
+		try {
+			while (carts < maxCartsPerRun) {
+				int limit = Math.min(batchSize, maxCartsPerRun - carts);
+				List<Cart> idle = cartRepository.findIdleCarts(idleDays, limit);
+				if (idle.isEmpty())
+					break;
+
+				int[] reclaimed = sweepChunk(idle);
+				carts += reclaimed[0];
+				items += reclaimed[1];
+				if (idle.size() < limit)
+					break;
+			}
+		} catch (Exception e) {
+			failures.incrementAndGet();
+			log.error("Abandoned cart sweep failed after {} carts: {}", carts, e.getMessage());
+		}
+
+		long elapsed = System.currentTimeMillis() - start;
+		runs.incrementAndGet();
+		cartsReclaimed.addAndGet(carts);
+		itemsReclaimed.addAndGet(items);
+		totalMillis.addAndGet(elapsed);
+		lastRunCarts = carts;
+		lastRunItems = items;
+		lastRunMillis = elapsed;
+		lastRunAt = LocalDateTime.now();
+		log.info("Abandoned cart sweep: {} carts and {} items reclaimed in {} ms", carts, items, elapsed);
+	}
+
+	// Returns {carts deleted, items deleted}
+	private int[] sweepChunk(List<Cart> idle) {
+		Map<Long, Long> userByCart = new LinkedHashMap<>();
+		for (Cart cart : idle) {
+			userByCart.put(cart.getId(), cart.getUserId());
+		}
+
+		// The cart service holds these carts still while their age is re-checked under row locks and they are deleted
+		int[] reclaimed = new int[2];
+		cartService.sweepCarts(userByCart, cartIds -> transactionTemplate.execute(status -> {
+			List<Long> locked = cartRepository.lockIdleCarts(cartIds, idleDays);
+			reclaimed[1] = cartRepository.deleteItemsByCartIds(locked);
+			reclaimed[0] = cartRepository.deleteCarts(locked);
+			return locked;
+		}));
+		return reclaimed;
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("idleDays", idleDays);
+		stats.put("batchSize", batchSize);
+		stats.put("runs", runs.get());
+		stats.put("failures", failures.get());
+		stats.put("cartsReclaimed", cartsReclaimed.get());
+		stats.put("itemsReclaimed", itemsReclaimed.get());
+		stats.put("totalMillis", totalMillis.get());
+		stats.put("lastRunAt", lastRunAt);
+		stats.put("lastRunCarts", lastRunCarts);
+		stats.put("lastRunItems", lastRunItems);
+		stats.put("lastRunMillis", lastRunMillis);
+		return stats;
+	}
+}
@@ -1,24 +1,36 @@
 package com.ecommerce.service.impl;
 
+import com.ecommerce.dto.CartOperationRequest;
 import com.ecommerce.dto.CartResponse;
+import com.ecommerce.enums.CartUpsertResult;
 import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.exception.UnauthorizedException;
 import com.ecommerce.model.Cart;
 import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductAvailability;
 import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.service.CartService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,13 +39,14 @@ public class CartServiceImpl implements CartService {
 	private static final Logger log = LoggerFactory.getLogger(CartServiceImpl.class);
 
 	private final CartRepository cartRepository;
-	private final JdbcTemplate jdbc;
+	private final ProductRepository productRepository;
 
-	private static final int MAX_QUANTITY_PER_ITEM = 10;
+	static final int MAX_QUANTITY_PER_ITEM = 10;
+	private static final int MAX_BATCH_OPERATIONS = 100;
 
-	public CartServiceImpl(CartRepository cartRepository, JdbcTemplate jdbc) {
+	public CartServiceImpl(CartRepository cartRepository, ProductRepository productRepository) {
 		this.cartRepository = cartRepository;
-		this.jdbc = jdbc;
+		this.productRepository = productRepository;
 		log.info("CartService initialized");
 	}
 
@@ -74,78 +87,52 @@ public class CartServiceImpl implements CartService {
 		return buildCartResponse(cart, items);
 	}
 
+	// The stored cart is all there is here
+	@Override
+	public CartResponse getCheckoutCart(Long userId) {
+		return getUserCart(userId);
+	}
+
 	@Override
 	@Transactional
 	public CartItem addToCart(Long userId, Long productId, Integer quantity) {
 		log.info("Adding to cart - User: {}, Product: {}, Quantity: {}", userId, productId, quantity);
 
-		// Edge Case 1: Null user ID
+		// Edge Cases 1-6: user, product and quantity
 		validateUserId(userId);
-
-		// Edge Case 2: Null product ID
-		if (productId == null) {
-			log.error("Product ID is null");
-			throw new BadRequestException("Product ID is required");
-		}
-
-		// Edge Case 3: Invalid product ID
-		if (productId <= 0) {
-			log.error("Invalid product ID: {}", productId);
-			throw new BadRequestException("Invalid product ID");
-		}
-
-		// Edge Case 4: Null quantity
-		if (quantity == null) {
-			log.error("Quantity is null");
-			throw new BadRequestException("Quantity is required");
-		}
-
-		// Edge Case 5: Zero or negative quantity
-		if (quantity <= 0) {
-			log.error("Invalid quantity: {}", quantity);
-			throw new BadRequestException("Quantity must be greater than zero");
-		}
-
-		// Edge Case 6: Quantity exceeds maximum
-		if (quantity > MAX_QUANTITY_PER_ITEM) {
-			log.error("Quantity {} exceeds maximum {}", quantity, MAX_QUANTITY_PER_ITEM);
-			throw new BadRequestException("Maximum " + MAX_QUANTITY_PER_ITEM + " items allowed per product");
-		}
+		validateProductId(productId);
+		validateQuantity(quantity, "Quantity must be greater than zero");
 
 		// Edge Case 7: Product doesn't exist or is inactive
 		BigDecimal productPrice = getProductPrice(productId);
 
-		Cart cart = getOrCreateCart(userId);
-		Optional<CartItem> existingItemOpt = cartRepository.findCartItem(cart.getId(), productId);
-
-		if (existingItemOpt.isPresent()) {
-			CartItem existingItem = existingItemOpt.get();
-			int newQuantity = existingItem.getQuantity() + quantity;
-
-			// Edge Case 8: Combined quantity exceeds maximum
-			if (newQuantity > MAX_QUANTITY_PER_ITEM) {
-				log.warn("Combined quantity {} exceeds maximum {}", newQuantity, MAX_QUANTITY_PER_ITEM);
-				throw new BadRequestException("Cannot add more. Maximum " + MAX_QUANTITY_PER_ITEM
-						+ " items allowed. You already have " + existingItem.getQuantity() + " in cart.");
-			}
+		// Creates the cart on first use and touches updated_at otherwise
+		Long cartId = cartRepository.upsertCart(userId);
 
-			cartRepository.updateItemQuantity(existingItem.getId(), newQuantity);
-			existingItem.setQuantity(newQuantity);
-
-			log.info("Updated existing cart item. New quantity: {}", newQuantity);
-			return existingItem;
-
-		} else {
-			CartItem newItem = new CartItem();
-			newItem.setCartId(cart.getId());
-			newItem.setProductId(productId);
-			newItem.setQuantity(quantity);
-			newItem.setPriceAtAdd(productPrice);
+		CartItem item = new CartItem();
+		item.setCartId(cartId);
+		item.setProductId(productId);
+		item.setQuantity(quantity);
+		item.setPriceAtAdd(productPrice);
+
+		// Edge Case 8: Combined quantity exceeds maximum, rejected by the upsert itself
+		CartUpsertResult result = cartRepository.upsertItem(item, MAX_QUANTITY_PER_ITEM);
+		if (result == CartUpsertResult.REJECTED) {
+			int current = cartRepository.findCartItem(cartId, productId).map(CartItem::getQuantity).orElse(0);
+			log.warn("Combined quantity {} exceeds maximum {}", current + quantity, MAX_QUANTITY_PER_ITEM);
+			throw new BadRequestException("Cannot add more. Maximum " + MAX_QUANTITY_PER_ITEM
+					+ " items allowed. You already have " + current + " in cart.");
+		}
 
-			CartItem savedItem = cartRepository.addItem(newItem);
-			log.info("Added new item to cart. Item ID: {}", savedItem.getId());
-			return savedItem;
+		if (result == CartUpsertResult.INSERTED) {
+			log.info("Added new item to cart. Item ID: {}", item.getId());
+			return item;
 		}
+
+		// Merged into an existing line: read it back for the new total
+		CartItem merged = cartRepository.findCartItem(cartId, productId).orElseThrow();
+		log.info("Updated existing cart item. New quantity: {}", merged.getQuantity());
+		return merged;
 	}
 
 	@Override
@@ -167,23 +154,8 @@ public class CartServiceImpl implements CartService {
 			throw new BadRequestException("Invalid cart item ID");
 		}
 
-		// Edge Case 3: Null quantity
-		if (quantity == null) {
-			log.error("Quantity is null");
-			throw new BadRequestException("Quantity is required");
-		}
-
-		// Edge Case 4: Zero or negative quantity
-		if (quantity <= 0) {
-			log.error("Invalid quantity: {}. Use removeFromCart for deletion.", quantity);
-			throw new BadRequestException("Quantity must be greater than zero. Use remove endpoint to delete item.");
-		}
-
-		// Edge Case 5: Quantity exceeds maximum
-		if (quantity > MAX_QUANTITY_PER_ITEM) {
-			log.error("Quantity {} exceeds maximum {}", quantity, MAX_QUANTITY_PER_ITEM);
-			throw new BadRequestException("Maximum " + MAX_QUANTITY_PER_ITEM + " items allowed per product");
-		}
+		// Edge Cases 3-5: quantity
+		validateQuantity(quantity, "Quantity must be greater than zero. Use remove endpoint to delete item.");
 
 		// Edge Case 6: Cart item not found
 		CartItem item = cartRepository.findItemById(cartItemId).orElseThrow(() -> {
@@ -268,36 +240,211 @@ public class CartServiceImpl implements CartService {
 		log.info("Cleared {} items from cart for user: {}", itemCount, userId);
 	}
 
+	/*
+	 * Replays offline cart edits in one transaction. Operations are keyed by
+	 * product: add increases the line, update sets it, remove drops it (and is
+	 * a no-op when the product is not in the cart, so replays are safe). The
+	 * locked lines are edited in memory and written back with one batch per
+	 * kind, so a sync costs the same handful of queries however long it is.
+	 */
+	@Override
+	@Transactional
+	public CartResponse applyOperations(Long userId, List<CartOperationRequest> operations) {
+		log.info("Applying {} cart operations for user: {}", operations == null ? 0 : operations.size(), userId);
+
+		validateUserId(userId);
+
+		if (operations == null || operations.isEmpty()) {
+			throw new BadRequestException("At least one operation is required");
+		}
+		if (operations.size() > MAX_BATCH_OPERATIONS) {
+			throw new BadRequestException("Maximum " + MAX_BATCH_OPERATIONS + " operations allowed per request");
+		}
+
+		// Reject a malformed batch before touching the database
+		List<CartEdit> edits = new ArrayList<>(operations.size());
+		Set<Long> addedProductIds = new LinkedHashSet<>();
+		for (int i = 0; i < operations.size(); i++) {
+			CartEdit edit = parseOperation(i, operations.get(i));
+			edits.add(edit);
+			if (edit.kind().equals("add"))
+				addedProductIds.add(edit.productId());
+		}
+
+		// One cached bulk lookup instead of a price query per added product
+		Map<Long, BigDecimal> prices = new HashMap<>();
+		for (Product p : productRepository.findByIds(new ArrayList<>(addedProductIds))) {
+			if (p.getSellingPrice() != null)
+				prices.put(p.getId(), BigDecimal.valueOf(p.getSellingPrice()).setScale(2, RoundingMode.HALF_UP));
+		}
+
+		Long cartId = cartRepository.upsertCart(userId);
+
+		Map<Long, CartItem> lines = new LinkedHashMap<>();
+		Map<Long, Integer> storedQuantities = new HashMap<>();
+		for (CartItem item : cartRepository.findItemsForUpdate(cartId)) {
+			lines.put(item.getProductId(), item);
+			storedQuantities.put(item.getId(), item.getQuantity());
+		}
+
+		for (CartEdit edit : edits) {
+			CartItem line = lines.get(edit.productId());
+			switch (edit.kind()) {
+			case "add" -> {
+				BigDecimal price = prices.get(edit.productId());
+				if (price == null) {
+					throw new ResourceNotFoundException(
+							"operations[" + edit.index() + "]: Product not found with ID: " + edit.productId());
+				}
+				if (line == null) {
+					line = new CartItem();
+					line.setCartId(cartId);
+					line.setProductId(edit.productId());
+					line.setQuantity(edit.quantity());
+					line.setPriceAtAdd(price);
+					lines.put(edit.productId(), line);
+				} else if (line.getQuantity() + edit.quantity() > MAX_QUANTITY_PER_ITEM) {
+					throw new BadRequestException("operations[" + edit.index() + "]: Cannot add more. Maximum "
+							+ MAX_QUANTITY_PER_ITEM + " items allowed. You already have " + line.getQuantity()
+							+ " in cart.");
+				} else {
+					line.setQuantity(line.getQuantity() + edit.quantity());
+				}
+			}
+			case "update" -> {
+				if (line == null) {
+					throw new ResourceNotFoundException(
+							"operations[" + edit.index() + "]: Product " + edit.productId() + " is not in the cart");
+				}
+				line.setQuantity(edit.quantity());
+			}
+			default -> lines.remove(edit.productId());
+			}
+		}
+
+		List<CartItem> inserts = new ArrayList<>();
+		List<CartItem> updates = new ArrayList<>();
+		for (CartItem line : lines.values()) {
+			if (line.getId() == null)
+				inserts.add(line);
+			else if (!storedQuantities.get(line.getId()).equals(line.getQuantity()))
+				updates.add(line);
+		}
+		Set<Long> removed = new LinkedHashSet<>(storedQuantities.keySet());
+		for (CartItem line : lines.values()) {
+			if (line.getId() != null)
+				removed.remove(line.getId());
+		}
+
+		cartRepository.removeItems(removed);
+		cartRepository.updateItemQuantities(updates);
+		cartRepository.insertItems(inserts);
+
+		log.info("Cart batch for user {}: {} added, {} updated, {} removed", userId, inserts.size(), updates.size(),
+				removed.size());
+		return buildCartResponse(new Cart(cartId, userId, null), cartRepository.findItemsByCartId(cartId));
+	}
+
+	private record CartEdit(int index, String kind, Long productId, int quantity) {
+	}
+
+	private CartEdit parseOperation(int index, CartOperationRequest op) {
+		String at = "operations[" + index + "]: ";
+		if (op == null) {
+			throw new BadRequestException(at + "Operation is required");
+		}
+		String kind = op.getOp() == null ? "" : op.getOp().trim().toLowerCase(Locale.ROOT);
+		if (!kind.equals("add") && !kind.equals("update") && !kind.equals("remove")) {
+			throw new BadRequestException(at + "op must be add, update or remove");
+		}
+		if (op.getProductId() == null || op.getProductId() <= 0) {
+			throw new BadRequestException(at + "Valid product ID is required");
+		}
+		if (kind.equals("remove")) {
+			return new CartEdit(index, kind, op.getProductId(), 0);
+		}
+		if (op.getQuantity() == null || op.getQuantity() <= 0) {
+			throw new BadRequestException(at + "Quantity must be greater than zero");
+		}
+		if (op.getQuantity() > MAX_QUANTITY_PER_ITEM) {
+			throw new BadRequestException(at + "Maximum " + MAX_QUANTITY_PER_ITEM + " items allowed per product");
+		}
+		return new CartEdit(index, kind, op.getProductId(), op.getQuantity());
+	}
+
+	// Every write above goes straight to MySQL, so there is nothing to flush
+	@Override
+	public void flushCart(Long userId) {
+	}
+
+	// Nothing is held in memory here either, so every candidate goes to the delete
+	@Override
+	public List<Long> sweepCarts(Map<Long, Long> userByCart, Function<Collection<Long>, List<Long>> delete) {
+		return delete.apply(userByCart.keySet());
+	}
+
 	@Override
 	public CartResponse validateCart(Long userId) {
 		log.info("Validating cart for user: {}", userId);
 
 		validateUserId(userId);
 
-		CartResponse response = getUserCart(userId);
+		Cart cart = getOrCreateCart(userId);
+		List<CartItem> lines = cartRepository.findLinesByCartId(cart.getId());
 
 		// Edge Case: Empty cart
-		if (response.getItems() == null || response.getItems().isEmpty()) {
+		if (lines.isEmpty()) {
 			log.warn("Cart is empty for user: {}", userId);
 			throw new BadRequestException("Your cart is empty. Add items before checkout.");
 		}
 
-		// Additional validation: Check if all products are still available
-		for (CartItem item : response.getItems()) {
-			try {
-				getProductPrice(item.getProductId());
-			} catch (ResourceNotFoundException e) {
+		// One IN-list query for every product in the cart, read live rather than from the product cache
+		Map<Long, ProductAvailability> products = productRepository
+				.findAvailability(lines.stream().map(CartItem::getProductId).toList());
+
+		// Collect every problem instead of stopping at the first one
+		List<CartItem> available = new ArrayList<>(lines.size());
+		List<String> warnings = new ArrayList<>();
+		boolean hasInvalidItems = false;
+		boolean hasPriceChanges = false;
+		for (CartItem item : lines) {
+			ProductAvailability product = products.get(item.getProductId());
+			if (product == null || !product.isAvailable() || product.getCurrentPrice() == null) {
 				log.error("Product {} no longer available", item.getProductId());
-				throw new BadRequestException("Product with ID '" + item.getProductId()
+				hasInvalidItems = true;
+				warnings.add("Product with ID '" + item.getProductId()
 						+ "' is no longer available. Please remove it from your cart.");
+				continue;
 			}
+
+			item.setProductName(product.getName());
+			item.setShopId(product.getShopId());
+			item.setShopName(product.getShopName());
+			item.setImagePath(product.getPrimaryImage());
+			item.setCurrentPrice(product.getCurrentPrice());
+			if (item.getPriceAtAdd().compareTo(product.getCurrentPrice()) != 0) {
+				hasPriceChanges = true;
+				warnings.add("Price of '" + product.getName() + "' changed from " + item.getPriceAtAdd() + " to "
+						+ product.getCurrentPrice() + ".");
+			}
+			available.add(item);
 		}
 
-		log.info("Cart validation passed for user: {}", userId);
+		CartResponse response = buildCartResponse(cart, available);
+		response.setHasInvalidItems(hasInvalidItems);
+		response.setHasPriceChanges(hasPriceChanges);
+		response.setWarnings(warnings);
+
+		if (warnings.isEmpty())
+			log.info("Cart validation passed for user: {}", userId);
+		else
+			log.warn("Cart validation for user {} found {} issue(s)", userId, warnings.size());
 		return response;
 	}
 
-	private void validateUserId(Long userId) {
+	// The checks below are shared with SessionCartServiceImpl
+
+	static void validateUserId(Long userId) {
 		if (userId == null) {
 			log.error("User ID is null");
 			throw new BadRequestException("User ID is required");
@@ -308,21 +455,46 @@ public class CartServiceImpl implements CartService {
 		}
 	}
 
+	static void validateProductId(Long productId) {
+		if (productId == null) {
+			log.error("Product ID is null");
+			throw new BadRequestException("Product ID is required");
+		}
+		if (productId <= 0) {
+			log.error("Invalid product ID: {}", productId);
+			throw new BadRequestException("Invalid product ID");
+		}
+	}
+
+	static void validateQuantity(Integer quantity, String notPositiveMessage) {
+		if (quantity == null) {
+			log.error("Quantity is null");
+			throw new BadRequestException("Quantity is required");
+		}
+		if (quantity <= 0) {
+			log.error("Invalid quantity: {}", quantity);
+			throw new BadRequestException(notPositiveMessage);
+		}
+		if (quantity > MAX_QUANTITY_PER_ITEM) {
+			log.error("Quantity {} exceeds maximum {}", quantity, MAX_QUANTITY_PER_ITEM);
+			throw new BadRequestException("Maximum " + MAX_QUANTITY_PER_ITEM + " items allowed per product");
+		}
+	}
+
+	// Served from the product cache; hot products no longer hit MySQL on every add
 	private BigDecimal getProductPrice(Long productId) {
-		String sql = "SELECT selling_price FROM products WHERE id = ?";
-		try {
-			BigDecimal price = jdbc.queryForObject(sql, BigDecimal.class, productId);
-			if (price == null) {
-				throw new ResourceNotFoundException("Product price not available for ID: " + productId);
-			}
-			return price;
-		} catch (org.springframework.dao.EmptyResultDataAccessException e) {
+		Product product = productRepository.findById(productId).orElse(null);
+		if (product == null) {
 			log.error("Product not found with ID: {}", productId);
 			throw new ResourceNotFoundException("Product not found with ID: " + productId);
 		}
+		if (product.getSellingPrice() == null) {
+			throw new ResourceNotFoundException("Product price not available for ID: " + productId);
+		}
+		return BigDecimal.valueOf(product.getSellingPrice()).setScale(2, RoundingMode.HALF_UP);
 	}
 
-	private CartResponse buildCartResponse(Cart cart, List<CartItem> items) {
+	CartResponse buildCartResponse(Cart cart, List<CartItem> items) {
 		CartResponse response = new CartResponse();
 		response.setCartId(cart.getId());
 		response.setItems(items);
@@ -1,32 +1,42 @@
 package com.ecommerce.service.impl;
 
+import com.ecommerce.dto.CategoryResponse;
+import com.ecommerce.dto.CategoryTreeResponse;
 import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.model.Category;
 import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.search.CategoryTree;
 import com.ecommerce.service.CategoryService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 public class CategoryServiceImpl implements CategoryService {
 
 	private final CategoryRepository repo;
+	private final CategoryTree tree;
 
-	public CategoryServiceImpl(CategoryRepository repo) {
+	public CategoryServiceImpl(CategoryRepository repo, CategoryTree tree) {
 		this.repo = repo;
+		this.tree = tree;
 	}
 
 	@Override
 	public Category create(Category c) {
-		return repo.save(c);
+		Category saved = repo.save(c);
+		rebuildTree();
+		return saved;
 	}
 
 	@Override
 	public List<Category> listActive() {
-		return repo.findAllActive();
+		return tree.getActiveCategories();
 	}
 
 	@Override
@@ -34,6 +44,33 @@ public class CategoryServiceImpl implements CategoryService {
 		return repo.findById(id).orElseThrow(() -> new ResourceNotFoundException("Category not found"));
 	}
 
+	@Override
+	public LocalDateTime getLastModified() {
+		return repo.findLastModified();
+	}
+
+	// listActive() serves the snapshot, so its validator comes from the snapshot too
+	@Override
+	public LocalDateTime getActiveLastModified() {
+		return tree.getCategoriesLastModified();
+	}
+
+	@Override
+	public CategoryTreeResponse getTree(Long categoryId) {
+		List<CategoryResponse> breadcrumbs = List.of();
+		if (categoryId != null) {
+			if (!tree.contains(categoryId))
+				throw new ResourceNotFoundException("Category not found");
+			breadcrumbs = tree.breadcrumbs(categoryId);
+		}
+		return new CategoryTreeResponse(tree.getRoots(), breadcrumbs);
+	}
+
+	@Override
+	public LocalDateTime getTreeLastModified() {
+		return tree.getLastModified();
+	}
+
 	@Override
 	@Transactional
 	public void deleteSoft(Long id) {
@@ -45,6 +82,7 @@ public class CategoryServiceImpl implements CategoryService {
 			throw new BadRequestException("Cannot deactivate category: it has subcategories.");
 
 		repo.updateActiveFlag(id, false);
+		rebuildTree();
 	}
 
 	@Override
@@ -54,6 +92,7 @@ public class CategoryServiceImpl implements CategoryService {
 			throw new ResourceNotFoundException("Category not found");
 
 		repo.updateActiveFlag(id, true);
+		rebuildTree();
 	}
 
 	@Override
@@ -62,5 +101,20 @@ public class CategoryServiceImpl implements CategoryService {
 			throw new ResourceNotFoundException("Category not found");
 
 		repo.update(c);
+		rebuildTree();
+	}
+
+	// Inside a transaction the snapshot is rebuilt only once the change is committed
+	private void rebuildTree() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					tree.refresh();
+				}
+			});
+		} else {
+			tree.refresh();
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.enums.IdempotencyScope;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.repository.IdempotencyKeyRepository;
+import com.ecommerce.service.IdempotencyService;
+import com.ecommerce.util.LruTtlCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/*
+ * Idempotency-Key support for POSTs that clients retry on timeouts. The
+ * first request with a key inserts the key's row and runs the action in the
+ * same transaction, then stores the JSON response on that row, so the key
+ * and the order or payment commit together or not at all. A retry that
+ * arrives while the first is still running waits on the row until it
+ * commits, then replays its response; if the first rolled back, the retry
+ * runs. Completed responses are replayed from a per-node cache, or from
+ * the table on a miss, without touching the action. A key sent again with
+ * a different body is rejected. Rows expire after idempotency.ttl-hours.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+	private static final Logger log = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+	static final int MAX_KEY_LENGTH = 100;
+
+	private final IdempotencyKeyRepository keyRepository;
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate transactionTemplate;
+	private final LruTtlCache<String, IdempotencyRecord> completed;
+	private final long ttlSeconds;
+	private final int cleanupBatchSize;
+
+	public IdempotencyServiceImpl(IdempotencyKeyRepository keyRepository, ObjectMapper objectMapper,
+			PlatformTransactionManager transactionManager,
+			@Value("${idempotency.ttl-hours:24}") long ttlHours,
+			@Value("${idempotency.cache.max-size:10000}") int cacheSize,
+			@Value("${idempotency.cleanup.batch-size:1000}") int cleanupBatchSize) {
+		this.keyRepository = keyRepository;
+		this.objectMapper = objectMapper;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		// The wrapped checkout and payment join this transaction and expect READ COMMITTED
+		this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+		this.ttlSeconds = ttlHours * 3600;
+		this.completed = new LruTtlCache<>(cacheSize, ttlSeconds * 1000);
+		this.cleanupBatchSize = cleanupBatchSize;
+	}
+
+	@Override
+	public <T> T execute(Long userId, IdempotencyScope scope, String key, Object request, TypeReference<T> responseType,
+			Supplier<T> action) {
+		if (key == null || userId == null)
+			return action.get();
+
+		String idempotencyKey = key.trim();
+		if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH)
+			throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+
+		String fingerprint = fingerprint(request);
+		String cacheKey = userId + ":" + scope + ":" + idempotencyKey;
+
+		IdempotencyRecord done = completed.get(cacheKey);
+		if (done == null) {
+			done = keyRepository.find(userId, scope, idempotencyKey).orElse(null);
+			if (done != null && done.isExpired()) {
+				keyRepository.deleteIfExpired(userId, scope, idempotencyKey);
+				done = null;
+			}
+		}
+		if (done != null)
+			return replay(cacheKey, done, fingerprint, responseType);
+
+		try {
+			String[] body = new String[1];
+			T result = transactionTemplate.execute(status -> {
+				keyRepository.insert(userId, scope, idempotencyKey, fingerprint, ttlSeconds);
+				T value = action.get();
+				body[0] = write(value);
+				keyRepository.complete(userId, scope, idempotencyKey, body[0]);
+				return value;
+			});
+			completed.put(cacheKey, new IdempotencyRecord(fingerprint, body[0], false));
+			return result;
+		} catch (DuplicateKeyException e) {
+			// Another request with this key committed first; answer with its result
+			IdempotencyRecord winner = keyRepository.find(userId, scope, idempotencyKey)
+					.orElseThrow(() -> new BadRequestException("Request with this Idempotency-Key failed, retry it"));
+			log.info("Idempotency-Key {} for user {} completed concurrently, replaying", idempotencyKey, userId);
+			return replay(cacheKey, winner, fingerprint, responseType);
+		}
+	}
+
+	@Scheduled(initialDelayString = "${idempotency.cleanup-interval-ms:600000}", fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+	public void purgeExpired() {
+		try {
+			int total = 0;
+			int deleted;
+			do {
+				deleted = keyRepository.deleteExpired(cleanupBatchSize);
+				total += deleted;
+			} while (deleted == cleanupBatchSize);
+			if (total > 0)
+				log.info("Purged {} expired idempotency keys", total);
+		} catch (Exception e) {
+			log.error("Idempotency key cleanup failed: {}", e.getMessage());
+		}
+	}
+
+	private <T> T replay(String cacheKey, IdempotencyRecord record, String fingerprint,
+			TypeReference<T> responseType) {
+		if (!record.getFingerprint().equals(fingerprint))
+			throw new BadRequestException("Idempotency-Key has already been used for a different request");
+
+		completed.put(cacheKey, record);
+		try {
+			return objectMapper.readValue(record.getResponseBody(), responseType);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Stored idempotent response is unreadable", e);
+		}
+	}
+
+	private String write(Object value) {
+		try {
+			return objectMapper.writeValueAsString(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Response cannot be stored for replay", e);
+		}
+	}
+
+	private String fingerprint(Object request) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+			return HexFormat.of().formatHex(hash);
+		} catch (JsonProcessingException | NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Request cannot be fingerprinted", e);
+		}
+	}
+}
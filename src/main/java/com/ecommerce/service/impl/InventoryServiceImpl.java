@@ -5,39 +5,62 @@ import com.ecommerce.dto.EmailSendRequest;
 import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.model.Inventory;
 import com.ecommerce.model.Product;
+import com.ecommerce.model.StockShortage;
 import com.ecommerce.repository.InventoryRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.ShopRepository;
+import com.ecommerce.search.ProductFacetIndex;
 import com.ecommerce.service.EmailNotificationService;
 import com.ecommerce.service.InventoryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BiPredicate;
 
 @Service
 public class InventoryServiceImpl implements InventoryService {
 
 	private static final Logger log = LoggerFactory.getLogger(InventoryServiceImpl.class);
 
+	// The first pass plus one after rechecking products whose striping this node had wrong
+	private static final int MAX_RESERVE_ATTEMPTS = 2;
+
 	private final InventoryRepository inventoryRepo;
 	private final EmailNotificationService emailService;
 	private final ProductRepository productRepo;
 	private final ShopRepository shopRepo;
+	private final ProductFacetIndex facetIndex;
+	private final StripedInventory striped;
 
 	public InventoryServiceImpl(InventoryRepository inventoryRepo, EmailNotificationService emailService,
-			ProductRepository productRepo, ShopRepository shopRepo) {
+			ProductRepository productRepo, ShopRepository shopRepo, ProductFacetIndex facetIndex,
+			StripedInventory striped) {
 		this.inventoryRepo = inventoryRepo;
 		this.emailService = emailService;
 		this.productRepo = productRepo;
 		this.shopRepo = shopRepo;
+		this.facetIndex = facetIndex;
+		this.striped = striped;
 	}
 
 	@Override
 	public InventoryResponse getInventory(Long productId) {
+		if (striped.isStriped(productId))
+			return mapToResponse(striped.totals(productId));
+
 		Optional<Inventory> invOpt = inventoryRepo.findByProductId(productId);
 		if (invOpt.isEmpty()) {
 			InventoryResponse resp = new InventoryResponse();
@@ -61,6 +84,8 @@ public class InventoryServiceImpl implements InventoryService {
 
 		if (existing == null) {
 			inventoryRepo.createInventory(productId, quantity);
+		} else if (striped.isStriped(productId) || striped.recheck(productId)) {
+			striped.setQuantity(productId, quantity);
 		} else {
 			existing.setQuantity(quantity);
 			inventoryRepo.update(existing);
@@ -74,7 +99,7 @@ public class InventoryServiceImpl implements InventoryService {
 		System.out.println("Status       : UPDATED SUCCESSFULLY");
 		System.out.println("---------------------------\n");
 
-		return getInventory(productId);
+		return publishStock(getInventory(productId));
 	}
 
 	@Override
@@ -85,9 +110,9 @@ public class InventoryServiceImpl implements InventoryService {
 		if (inventoryRepo.findByProductId(productId).isEmpty()) {
 			return createOrInitInventory(productId, quantity);
 		}
-		if (!inventoryRepo.increaseStock(productId, quantity))
+		if (!route(productId, quantity, inventoryRepo::increaseStock, striped::add))
 			throw new BadRequestException("Failed to increase stock");
-		return getInventory(productId);
+		return publishStock(getInventory(productId));
 	}
 
 	@Override
@@ -96,27 +121,120 @@ public class InventoryServiceImpl implements InventoryService {
 		if (quantity <= 0)
 			throw new BadRequestException("Quantity must be > 0");
 		ensureInventoryExists(productId);
-		if (!inventoryRepo.decreaseStock(productId, quantity))
+		if (!route(productId, quantity, inventoryRepo::decreaseStock, striped::decrease))
 			throw new BadRequestException("Not enough stock");
-		return getInventory(productId);
+		return publishStock(getInventory(productId));
 	}
 
 	@Override
-	@Transactional
+	@Transactional(isolation = Isolation.READ_COMMITTED)
 	public InventoryResponse reserveStock(Long productId, int quantity) {
 		if (quantity <= 0)
 			throw new BadRequestException("Quantity must be > 0");
 		ensureInventoryExists(productId);
 
-		boolean success = inventoryRepo.reserveStock(productId, quantity);
+		boolean success = route(productId, quantity, inventoryRepo::reserveStock, striped::reserve);
 
 		if (!success) {
 			notifyShopkeeperOfLowStock(productId, quantity);
-			Inventory inv = inventoryRepo.findByProductId(productId).orElse(null);
-			int available = (inv != null) ? (inv.getQuantity() - inv.getReserved()) : 0;
+			int available = getInventory(productId).getAvailable();
 			throw new BadRequestException("Insufficient stock. Only " + available + " units left.");
 		}
-		return getInventory(productId);
+		return publishStock(getInventory(productId));
+	}
+
+	/*
+	 * All or nothing: plain rows are locked and checked first, then striped
+	 * products are reserved in product order. Any shortage marks the
+	 * transaction rollback-only, so striped lines reserved before it are
+	 * undone with everything else.
+	 */
+	@Override
+	@Transactional(isolation = Isolation.READ_COMMITTED)
+	public List<StockShortage> reserveAll(Map<Long, Integer> quantities) {
+		for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+			if (line.getKey() == null)
+				throw new BadRequestException("Product ID is required");
+			if (line.getValue() == null || line.getValue() <= 0)
+				throw new BadRequestException("Quantity must be > 0");
+		}
+		if (quantities.isEmpty())
+			return List.of();
+
+		Map<Long, Integer> plain = new TreeMap<>();
+		Map<Long, Integer> hot = new TreeMap<>();
+		Map<Long, Inventory> rows;
+		List<StockShortage> shortages = new ArrayList<>();
+		for (int attempt = 1;; attempt++) {
+			plain.clear();
+			hot.clear();
+			for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+				(striped.isStriped(line.getKey()) ? hot : plain).put(line.getKey(), line.getValue());
+			}
+
+			rows = inventoryRepo.lockByProductIds(plain.keySet());
+			shortages.clear();
+			for (Map.Entry<Long, Integer> line : plain.entrySet()) {
+				Inventory inv = rows.get(line.getKey());
+				int available = (inv != null) ? (inv.getQuantity() - inv.getReserved()) : 0;
+				if (available < line.getValue())
+					shortages.add(new StockShortage(line.getKey(), line.getValue(), available));
+			}
+			if (shortages.isEmpty() || attempt == MAX_RESERVE_ATTEMPTS)
+				break;
+
+			// A product striped since this node last looked is short on its emptied inventory row
+			boolean stale = false;
+			for (StockShortage shortage : shortages) {
+				stale |= striped.recheck(shortage.getProductId());
+			}
+			if (!stale)
+				break;
+		}
+
+		for (Map.Entry<Long, Integer> line : hot.entrySet()) {
+			if (shortages.isEmpty() && striped.reserve(line.getKey(), line.getValue()))
+				continue;
+			int available = getInventory(line.getKey()).getAvailable();
+			if (available < line.getValue() || shortages.isEmpty())
+				shortages.add(new StockShortage(line.getKey(), line.getValue(), available));
+		}
+
+		if (!shortages.isEmpty()) {
+			TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+			shortages.sort(Comparator.comparing(StockShortage::getProductId));
+			for (StockShortage shortage : shortages) {
+				notifyShopkeeperOfLowStock(shortage.getProductId(), shortage.getRequested());
+			}
+			return shortages;
+		}
+
+		// Every row is locked and was checked above, so a miss here means the row changed under the lock
+		List<Long> failed = inventoryRepo.reserveStocks(plain);
+		if (!failed.isEmpty())
+			throw new BadRequestException("Failed to reserve stock for products " + failed);
+
+		for (Map.Entry<Long, Integer> line : plain.entrySet()) {
+			Inventory inv = rows.get(line.getKey());
+			boolean inStock = inv.getQuantity() - inv.getReserved() - line.getValue() > 0;
+			afterCommit(() -> facetIndex.updateStock(line.getKey(), inStock));
+		}
+		for (Long productId : hot.keySet()) {
+			publishStock(getInventory(productId));
+		}
+		return List.of();
+	}
+
+	@Override
+	@Transactional
+	public InventoryResponse setStripes(Long productId, int stripes) {
+		if (stripes < 1 || stripes > StripedInventory.MAX_STRIPES)
+			throw new BadRequestException("Stripes must be between 1 and " + StripedInventory.MAX_STRIPES);
+		ensureInventoryExists(productId);
+
+		striped.restripe(productId, stripes);
+		// The striped-product cache only changes on commit, so read the totals directly
+		return publishStock(mapToResponse(striped.totals(productId)));
 	}
 
 	private void notifyShopkeeperOfLowStock(Long productId, int requestedQty) {
@@ -142,25 +260,54 @@ public class InventoryServiceImpl implements InventoryService {
 	}
 
 	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	@Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
 	public InventoryResponse releaseReserved(Long productId, int quantity) {
 		if (quantity <= 0)
 			throw new BadRequestException("Quantity must be > 0");
 		ensureInventoryExists(productId);
-		if (!inventoryRepo.releaseReservedStock(productId, quantity))
+		if (!route(productId, quantity, inventoryRepo::releaseReservedStock, striped::release))
 			throw new BadRequestException("Not enough reserved stock");
-		return getInventory(productId);
+		return publishStock(getInventory(productId));
 	}
 
 	@Override
-	@Transactional
+	@Transactional(isolation = Isolation.READ_COMMITTED)
 	public InventoryResponse consumeReservedOnOrder(Long productId, int quantity) {
 		if (quantity <= 0)
 			throw new BadRequestException("Quantity must be > 0");
 		ensureInventoryExists(productId);
-		if (!inventoryRepo.consumeReservedOnOrder(productId, quantity))
+		if (!route(productId, quantity, inventoryRepo::consumeReservedOnOrder, striped::consume))
 			throw new BadRequestException("Failed to consume reserved stock");
-		return getInventory(productId);
+		return publishStock(getInventory(productId));
+	}
+
+	// Plain or striped variant of a stock change; a failure on a stale striping cache is retried once
+	private boolean route(Long productId, int quantity, BiPredicate<Long, Integer> plain,
+			BiPredicate<Long, Integer> hot) {
+		boolean ok = striped.isStriped(productId) ? hot.test(productId, quantity) : plain.test(productId, quantity);
+		if (!ok && striped.recheck(productId))
+			ok = striped.isStriped(productId) ? hot.test(productId, quantity) : plain.test(productId, quantity);
+		return ok;
+	}
+
+	// The facet index only sees the stock once it is committed, so a rollback never leaks into it
+	private InventoryResponse publishStock(InventoryResponse resp) {
+		boolean inStock = resp.getAvailable() > 0;
+		afterCommit(() -> facetIndex.updateStock(resp.getProductId(), inStock));
+		return resp;
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
 	}
 
 	private void ensureInventoryExists(Long productId) {
@@ -2,7 +2,6 @@
 package com.ecommerce.service.impl;
 
 import com.ecommerce.dto.CartResponse;
-import com.ecommerce.dto.InventoryResponse;
 import com.ecommerce.dto.OrderItemResponse;
 import com.ecommerce.dto.OrderRequest;
 import com.ecommerce.dto.OrderResponse;
@@ -13,20 +12,24 @@ import com.ecommerce.model.CartItem;
 import com.ecommerce.model.Coupon;
 import com.ecommerce.model.Order;
 import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.StockShortage;
 import com.ecommerce.repository.CouponRepository;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.service.CartService;
 import com.ecommerce.service.InventoryService;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,13 +47,15 @@ public class OrderServiceImpl implements OrderService {
 	private final OrderRepository orderRepository;
 	private final CouponRepository couponRepository;
 	private final InventoryService inventoryService;
+	private final ProductService productService;
 
 	public OrderServiceImpl(CartService cartService, OrderRepository orderRepository, CouponRepository couponRepository,
-			InventoryService inventoryService) {
+			InventoryService inventoryService, ProductService productService) {
 		this.cartService = cartService;
 		this.orderRepository = orderRepository;
 		this.couponRepository = couponRepository;
 		this.inventoryService = inventoryService;
+		this.productService = productService;
 
 		log.info("----------------------------------------------------------");
 		log.info("OrderService Initialized - FINAL PRODUCTION VERSION");
@@ -59,7 +64,8 @@ public class OrderServiceImpl implements OrderService {
 	}
 
 	@Override
-	@Transactional
+	// READ COMMITTED so a striped reservation that loses a stripe can move on to its siblings
+	@Transactional(isolation = Isolation.READ_COMMITTED)
 	public List<Order> placeOrder(Long userId, OrderRequest request) {
 		log.info("-----------------------------");
 		log.info("PLACING ORDER - User: {}", userId);
@@ -69,7 +75,8 @@ public class OrderServiceImpl implements OrderService {
 		validateOrderRequest(request);
 		validateShippingAddress(request.getShippingAddress());
 
-		CartResponse cartResponse = cartService.getUserCart(userId);
+		// Read from MySQL with live prices, after any edits still held in the session cart are written
+		CartResponse cartResponse = cartService.getCheckoutCart(userId);
 		Map<Long, List<CartItem>> itemsByShop = cartResponse.getItemsByShop();
 
 		if (itemsByShop == null || itemsByShop.isEmpty()) {
@@ -80,19 +87,7 @@ public class OrderServiceImpl implements OrderService {
 		for (List<CartItem> shopItems : itemsByShop.values()) {
 			allItems.addAll(shopItems);
 		}
-		checkInventoryAvailability(allItems);
-
-		List<CartItem> reservedItems = new ArrayList<>();
-		try {
-			for (CartItem item : allItems) {
-				inventoryService.reserveStock(item.getProductId(), item.getQuantity());
-				reservedItems.add(item);
-			}
-		} catch (Exception e) {
-			log.error("Inventory reservation failed: {}", e.getMessage());
-			rollbackReservations(reservedItems);
-			throw new BadRequestException("Failed to reserve inventory: " + e.getMessage());
-		}
+		reserveInventory(allItems);
 
 		Coupon coupon = null;
 		if (request.getCouponCode() != null && !request.getCouponCode().trim().isEmpty()) {
@@ -190,12 +185,13 @@ public class OrderServiceImpl implements OrderService {
 			}
 
 		} catch (Exception e) {
+			// The reservations share this transaction and roll back with it
 			log.error("Order creation failed: {}", e.getMessage());
-			rollbackReservations(allItems);
 			throw e;
 		}
 
 		cartService.clearCart(userId);
+		productService.popularityChanged(allItems.stream().map(CartItem::getProductId).distinct().toList());
 
 		log.info("--------------------------------------------------------------");
 		log.info("ORDER PLACED SUCCESSFULLY - {} order(s) created", createdOrders.size());
@@ -288,30 +284,22 @@ public class OrderServiceImpl implements OrderService {
 		return list;
 	}
 
-	private void checkInventoryAvailability(List<CartItem> items) {
-		List<String> errors = new ArrayList<>();
+	// Reserves every line at once; nothing is reserved if any line is short
+	private void reserveInventory(List<CartItem> items) {
+		Map<Long, Integer> quantities = new LinkedHashMap<>();
 		for (CartItem item : items) {
-			try {
-				InventoryResponse inv = inventoryService.getInventory(item.getProductId());
-				if (inv.getAvailable() < item.getQuantity()) {
-					errors.add("Product " + item.getProductId() + ": Insufficient stock");
-				}
-			} catch (ResourceNotFoundException e) {
-				errors.add("Product " + item.getProductId() + ": Not found");
-			}
-		}
-		if (!errors.isEmpty()) {
-			throw new BadRequestException("Cannot place order:\n" + String.join("\n", errors));
+			quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
 		}
-	}
 
-	private void rollbackReservations(List<CartItem> items) {
-		for (CartItem item : items) {
-			try {
-				inventoryService.releaseReserved(item.getProductId(), item.getQuantity());
-			} catch (Exception e) {
-				log.error("Rollback failed for product {}", item.getProductId());
+		List<StockShortage> shortages = inventoryService.reserveAll(quantities);
+		if (!shortages.isEmpty()) {
+			List<String> errors = new ArrayList<>();
+			for (StockShortage s : shortages) {
+				errors.add("Product " + s.getProductId() + ": Insufficient stock. Only " + s.getAvailable()
+						+ " units left.");
 			}
+			log.error("Inventory reservation failed for {} product(s)", shortages.size());
+			throw new BadRequestException("Cannot place order:\n" + String.join("\n", errors));
 		}
 	}
 
@@ -13,6 +13,7 @@ import com.ecommerce.service.PaymentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -48,7 +49,7 @@ public class PaymentServiceImpl implements PaymentService {
 	}
 
 	@Override
-	@Transactional
+	@Transactional(isolation = Isolation.READ_COMMITTED)
 	public Payment processPayment(PaymentRequest request) {
 		String correlationId = generateCorrelationId();
 		LocalDateTime startTime = LocalDateTime.now();
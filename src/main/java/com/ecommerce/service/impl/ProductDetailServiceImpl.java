@@ -0,0 +1,175 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.InventoryResponse;
+import com.ecommerce.dto.ProductVariantGroupDetailResponse;
+import com.ecommerce.dto.ProductDetailResponse;
+import com.ecommerce.dto.ProductResponse;
+import com.ecommerce.dto.RatingSummaryResponse;
+import com.ecommerce.dto.ReviewResponse;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.ecommerce.model.ProductImage;
+import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.ProductDetailService;
+import com.ecommerce.service.ProductImageService;
+import com.ecommerce.service.ProductService;
+import com.ecommerce.service.ProductVariantService;
+import com.ecommerce.service.ReviewService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/*
+ * Everything a product page needs in one call. The product and each section
+ * are fetched concurrently on a small bounded pool. Every fetch holds a
+ * connection, so the pool is kept to at most half the Hikari pool and a fetch
+ * it has no room for is rejected rather than run on the request thread. A
+ * section that is rejected, fails or misses the deadline is left empty and
+ * named in "unavailable" instead of failing the page. Only the product itself
+ * is mandatory: if it is rejected or misses the deadline the request fails
+ * with 503. Cancelling a future does not stop a
+ * running JDBC call, so each fetch runs in a transaction whose timeout becomes
+ * the statement's query timeout and MySQL kills it once the budget is spent.
+ */
+@Service
+public class ProductDetailServiceImpl implements ProductDetailService {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductDetailServiceImpl.class);
+
+	private final ProductService productService;
+	private final ProductImageService productImageService;
+	private final ProductVariantService productVariantService;
+	private final InventoryService inventoryService;
+	private final ReviewService reviewService;
+	private final ThreadPoolExecutor executor;
+	private final TransactionTemplate transactionTemplate;
+	private final long timeoutMs;
+	private final int reviewPageSize;
+
+	public ProductDetailServiceImpl(ProductService productService, ProductImageService productImageService,
+			ProductVariantService productVariantService, InventoryService inventoryService,
+			ReviewService reviewService, PlatformTransactionManager transactionManager,
+			@Value("${product.detail.pool-size:8}") int poolSize,
+			@Value("${product.detail.queue-capacity:200}") int queueCapacity,
+			@Value("${product.detail.timeout-ms:1000}") long timeoutMs,
+			@Value("${product.detail.review-page-size:5}") int reviewPageSize,
+			@Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+		this.productService = productService;
+		this.productImageService = productImageService;
+		this.productVariantService = productVariantService;
+		this.inventoryService = inventoryService;
+		this.reviewService = reviewService;
+		this.timeoutMs = timeoutMs;
+		this.reviewPageSize = reviewPageSize;
+		// JDBC query timeouts are whole seconds
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setTimeout((int) Math.max(1, (timeoutMs + 999) / 1000));
+		// Leave the other half of the connections to request threads and the rest of the app
+		int threads = Math.max(1, Math.min(poolSize, connectionPoolSize / 2));
+		if (threads < poolSize)
+			log.warn("product.detail.pool-size {} capped at {} for a connection pool of {}", poolSize, threads,
+					connectionPoolSize);
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("product-detail-"),
+				new ThreadPoolExecutor.AbortPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	@Override
+	public Optional<ProductDetailResponse> getProductDetail(Long productId) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+		CompletableFuture<Optional<ProductResponse>> product = fetch(() -> productService.getProductById(productId));
+		CompletableFuture<List<ProductImage>> images = fetch(() -> productImageService.getImagesByProduct(productId));
+		CompletableFuture<List<ProductVariantGroupDetailResponse>> variants = fetch(
+				() -> productVariantService.getVariantMatrix(productId));
+		CompletableFuture<InventoryResponse> inventory = fetch(() -> inventoryService.getInventory(productId));
+		CompletableFuture<RatingSummaryResponse> rating = fetch(() -> reviewService.getRatingSummary(productId));
+		CompletableFuture<List<ReviewResponse>> reviews = fetch(
+				() -> reviewService.getNewestReviews(productId, reviewPageSize));
+
+		Optional<ProductResponse> p;
+		try {
+			p = product.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			List.of(product, images, variants, inventory, rating, reviews).forEach(f -> f.cancel(true));
+			log.warn("Product {} detail: product timed out after {} ms", productId, timeoutMs);
+			throw new ServiceUnavailableException("Product " + productId + " could not be loaded in time");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading product " + productId, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RejectedExecutionException) {
+				List.of(images, variants, inventory, rating, reviews).forEach(f -> f.cancel(true));
+				log.warn("Product {} detail: pool saturated, product fetch rejected", productId);
+				throw new ServiceUnavailableException("Product " + productId + " could not be loaded, try again");
+			}
+			throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+		}
+		if (p.isEmpty()) {
+			List.of(images, variants, inventory, rating, reviews).forEach(f -> f.cancel(true));
+			return Optional.empty();
+		}
+
+		ProductDetailResponse resp = new ProductDetailResponse();
+		resp.setProduct(p.get());
+		resp.setImages(await(images, "images", List.of(), deadline, resp, productId));
+		resp.setVariants(await(variants, "variants", List.of(), deadline, resp, productId));
+		resp.setInventory(await(inventory, "inventory", null, deadline, resp, productId));
+		resp.setRating(await(rating, "rating", new RatingSummaryResponse(0.0, 0, Map.of()), deadline, resp,
+				productId));
+		resp.setReviews(await(reviews, "reviews", List.of(), deadline, resp, productId));
+		return Optional.of(resp);
+	}
+
+	// A rejected fetch comes back as a failed future, so it is reported like any other failure
+	private <T> CompletableFuture<T> fetch(Supplier<T> supplier) {
+		try {
+			return CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> supplier.get()),
+					executor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private <T> T await(CompletableFuture<T> future, String section, T fallback, long deadline,
+			ProductDetailResponse resp, Long productId) {
+		try {
+			return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			log.warn("Product {} detail: {} timed out after {} ms", productId, section, timeoutMs);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RejectedExecutionException)
+				log.warn("Product {} detail: {} rejected, pool saturated", productId, section);
+			else
+				log.warn("Product {} detail: {} failed: {}", productId, section, e.getCause().getMessage());
+		}
+		resp.getUnavailable().add(section);
+		return fallback;
+	}
+}
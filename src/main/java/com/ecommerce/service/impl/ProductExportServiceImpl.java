@@ -0,0 +1,153 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Writes the catalog row by row as it comes off the database cursor. Nothing
+ * is collected, so memory use does not grow with the number of products.
+ */
+@Service
+public class ProductExportServiceImpl implements ProductExportService {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductExportServiceImpl.class);
+
+	private static final int FLUSH_EVERY_ROWS = 1000;
+
+	private static final String[] CSV_COLUMNS = { "id", "shop_id", "category_id", "sku", "name",
+			"short_description", "description", "selling_price", "mrp", "is_active", "created_at", "updated_at" };
+
+	private final ProductRepository productRepository;
+	private final ObjectMapper objectMapper;
+
+	public ProductExportServiceImpl(ProductRepository productRepository, ObjectMapper objectMapper) {
+		this.productRepository = productRepository;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public void exportNdjson(Long shopId, boolean activeOnly, OutputStream out) throws IOException {
+		long start = System.currentTimeMillis();
+		long[] rows = { 0 };
+
+		try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+			gen.setRootValueSeparator(null);
+			stream(shopId, activeOnly, p -> {
+				gen.writeStartObject();
+				gen.writeNumberField("id", p.getId());
+				gen.writeNumberField("shopId", p.getShopId());
+				if (p.getCategoryId() != null)
+					gen.writeNumberField("categoryId", p.getCategoryId());
+				else
+					gen.writeNullField("categoryId");
+				gen.writeStringField("sku", p.getSku());
+				gen.writeStringField("name", p.getName());
+				gen.writeStringField("shortDescription", p.getShortDescription());
+				gen.writeStringField("description", p.getDescription());
+				writeNumber(gen, "sellingPrice", p.getSellingPrice());
+				writeNumber(gen, "mrp", p.getMrp());
+				gen.writeBooleanField("isActive", Boolean.TRUE.equals(p.getIsActive()));
+				gen.writeStringField("createdAt", p.getCreatedAt() == null ? null : p.getCreatedAt().toString());
+				gen.writeStringField("updatedAt", p.getUpdatedAt() == null ? null : p.getUpdatedAt().toString());
+				gen.writeEndObject();
+				gen.writeRaw('\n');
+
+				if (++rows[0] % FLUSH_EVERY_ROWS == 0)
+					gen.flush();
+			});
+		}
+
+		log.info("Exported {} products as NDJSON in {} ms", rows[0], System.currentTimeMillis() - start);
+	}
+
+	@Override
+	public void exportCsv(Long shopId, boolean activeOnly, OutputStream out) throws IOException {
+		long start = System.currentTimeMillis();
+		long[] rows = { 0 };
+
+		try (Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+			w.write(String.join(",", CSV_COLUMNS));
+			w.write("\r\n");
+
+			stream(shopId, activeOnly, p -> {
+				w.write(String.valueOf(p.getId()));
+				w.write(',');
+				w.write(String.valueOf(p.getShopId()));
+				w.write(',');
+				w.write(p.getCategoryId() == null ? "" : String.valueOf(p.getCategoryId()));
+				w.write(',');
+				w.write(csv(p.getSku()));
+				w.write(',');
+				w.write(csv(p.getName()));
+				w.write(',');
+				w.write(csv(p.getShortDescription()));
+				w.write(',');
+				w.write(csv(p.getDescription()));
+				w.write(',');
+				w.write(p.getSellingPrice() == null ? "" : String.valueOf(p.getSellingPrice()));
+				w.write(',');
+				w.write(p.getMrp() == null ? "" : String.valueOf(p.getMrp()));
+				w.write(',');
+				w.write(String.valueOf(Boolean.TRUE.equals(p.getIsActive())));
+				w.write(',');
+				w.write(p.getCreatedAt() == null ? "" : p.getCreatedAt().toString());
+				w.write(',');
+				w.write(p.getUpdatedAt() == null ? "" : p.getUpdatedAt().toString());
+				w.write("\r\n");
+
+				if (++rows[0] % FLUSH_EVERY_ROWS == 0)
+					w.flush();
+			});
+		}
+
+		log.info("Exported {} products as CSV in {} ms", rows[0], System.currentTimeMillis() - start);
+	}
+
+	private interface RowWriter {
+		void write(Product p) throws IOException;
+	}
+
+	private void stream(Long shopId, boolean activeOnly, RowWriter writer) throws IOException {
+		try {
+			productRepository.streamAll(shopId, activeOnly, p -> {
+				try {
+					writer.write(p);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			// Usually the client went away; the repository cancels the query before the cursor is closed
+			throw e.getCause();
+		}
+	}
+
+	private void writeNumber(JsonGenerator gen, String field, Double value) throws IOException {
+		if (value == null)
+			gen.writeNullField(field);
+		else
+			gen.writeNumberField(field, value);
+	}
+
+	private String csv(String value) {
+		if (value == null)
+			return "";
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+			return value;
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+}
@@ -8,12 +8,14 @@ import com.ecommerce.repository.ProductImageRepository;
 import com.ecommerce.service.ProductImageService;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -25,7 +27,9 @@ public class ProductImageServiceImpl implements ProductImageService {
 		this.repo = repo;
 	}
 
+	// Every write below also refreshes products.primary_image, which cart and order reads use
 	@Override
+	@Transactional
 	public ProductImage addImageToProduct(Long productId, ProductImageRequest req) {
 
 		if (req.getImagePath() == null || req.getImagePath().isBlank())
@@ -43,11 +47,13 @@ public class ProductImageServiceImpl implements ProductImageService {
 
 		Long id = repo.save(img);
 		img.setId(id);
+		repo.refreshPrimaryImage(productId);
 
 		return img;
 	}
 
 	@Override
+	@Transactional
 	public ProductImage uploadAndSave(Long productId, MultipartFile file) {
 
 		if (file.isEmpty()) {
@@ -86,6 +92,7 @@ public class ProductImageServiceImpl implements ProductImageService {
 
 			Long id = repo.save(img);
 			img.setId(id);
+			repo.refreshPrimaryImage(productId);
 
 			return img;
 
@@ -100,6 +107,12 @@ public class ProductImageServiceImpl implements ProductImageService {
 	}
 
 	@Override
+	public LocalDateTime getImagesLastModified(Long productId) {
+		return repo.findLastModified(productId);
+	}
+
+	@Override
+	@Transactional
 	public ProductImage updateImage(Long imageId, ProductImageRequest req) {
 
 		ProductImage existing = repo.findById(imageId)
@@ -115,18 +128,22 @@ public class ProductImageServiceImpl implements ProductImageService {
 			existing.setSortImageOrder(req.getSortImageOrder());
 
 		repo.update(existing);
+		repo.refreshPrimaryImage(existing.getProductId());
 		return existing;
 	}
 
 	@Override
+	@Transactional
 	public void softDeleteImage(Long imageId) {
 		ProductImage existing = repo.findById(imageId)
 				.orElseThrow(() -> new ResourceNotFoundException("Image not found"));
 
 		repo.softDelete(existing.getId());
+		repo.refreshPrimaryImage(existing.getProductId());
 	}
 
 	@Override
+	@Transactional
 	public void setPrimaryImage(Long productId, Long imageId) {
 
 		ProductImage existing = repo.findById(imageId)
@@ -136,6 +153,7 @@ public class ProductImageServiceImpl implements ProductImageService {
 			throw new ResourceNotFoundException("Image does not belong to product");
 
 		repo.setPrimaryImage(productId, imageId);
+		repo.refreshPrimaryImage(productId);
 	}
 
 	@Override
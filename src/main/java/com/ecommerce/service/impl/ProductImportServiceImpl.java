@@ -0,0 +1,343 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.ProductImportError;
+import com.ecommerce.dto.ProductImportResponse;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.InventoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ShopRepository;
+import com.ecommerce.search.ProductFacetIndex;
+import com.ecommerce.search.ProductSearchIndex;
+import com.ecommerce.search.ProductSuggestionIndex;
+import com.ecommerce.search.ProductTrigramIndex;
+import com.ecommerce.service.ProductImportService;
+import com.ecommerce.util.CsvRowReader;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Streams a shop's catalog from CSV or NDJSON. Rows are validated as they are
+ * read and written in chunks: one IN query checks the chunk's SKUs, then the
+ * products and their inventory rows go in as JDBC batches in one transaction.
+ * A chunk the database rejects fails as a whole; earlier chunks stay committed.
+ */
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+	private static final int BATCH_SIZE = 1000;
+	private static final int MAX_REPORTED_ERRORS = 1000;
+
+	private static final int MAX_SKU_LENGTH = 100;
+	private static final int MAX_NAME_LENGTH = 150;
+	private static final int MAX_SHORT_DESCRIPTION_LENGTH = 200;
+
+	private final ProductRepository productRepository;
+	private final InventoryRepository inventoryRepository;
+	private final CategoryRepository categoryRepository;
+	private final ShopRepository shopRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectMapper objectMapper;
+	private final ProductSearchIndex searchIndex;
+	private final ProductSuggestionIndex suggestionIndex;
+	private final ProductFacetIndex facetIndex;
+	private final ProductTrigramIndex trigramIndex;
+
+	public ProductImportServiceImpl(ProductRepository productRepository, InventoryRepository inventoryRepository,
+			CategoryRepository categoryRepository, ShopRepository shopRepository,
+			TransactionTemplate transactionTemplate, ObjectMapper objectMapper, ProductSearchIndex searchIndex,
+			ProductSuggestionIndex suggestionIndex, ProductFacetIndex facetIndex, ProductTrigramIndex trigramIndex) {
+		this.productRepository = productRepository;
+		this.inventoryRepository = inventoryRepository;
+		this.categoryRepository = categoryRepository;
+		this.shopRepository = shopRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.objectMapper = objectMapper;
+		this.searchIndex = searchIndex;
+		this.suggestionIndex = suggestionIndex;
+		this.facetIndex = facetIndex;
+		this.trigramIndex = trigramIndex;
+	}
+
+	@Override
+	public ProductImportResponse importCsv(Long shopId, InputStream in) {
+		Importer importer = new Importer(requireShop(shopId));
+		CsvRowReader reader = new CsvRowReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+		try {
+			List<String> header = reader.next();
+			if (header == null)
+				return importer.finish();
+
+			List<String> columns = header.stream().map(this::normalizeKey).toList();
+			List<String> values;
+			while ((values = reader.next()) != null) {
+				if (values.stream().allMatch(String::isBlank))
+					continue;
+
+				Map<String, String> fields = new HashMap<>();
+				for (int i = 0; i < columns.size() && i < values.size(); i++) {
+					fields.put(columns.get(i), values.get(i));
+				}
+				importer.accept(reader.getLineNumber(), fields);
+			}
+		} catch (IOException e) {
+			importer.abort(reader.getLineNumber() + 1, "Malformed CSV: " + e.getMessage());
+		}
+
+		return importer.finish();
+	}
+
+	@Override
+	public ProductImportResponse importNdjson(Long shopId, InputStream in) {
+		Importer importer = new Importer(requireShop(shopId));
+		long line = 0;
+
+		try (MappingIterator<Map<String, Object>> it = objectMapper.readerFor(Map.class).readValues(in)) {
+			while (it.hasNextValue()) {
+				Map<String, Object> json = it.nextValue();
+				line = it.getCurrentLocation().getLineNr();
+
+				Map<String, String> fields = new HashMap<>();
+				json.forEach((key, value) -> fields.put(normalizeKey(key), value == null ? null : value.toString()));
+				importer.accept(line, fields);
+			}
+		} catch (IOException e) {
+			importer.abort(line + 1, "Malformed JSON: " + e.getMessage());
+		}
+
+		return importer.finish();
+	}
+
+	private Long requireShop(Long shopId) {
+		if (shopId == null || shopRepository.getShopById(shopId).isEmpty())
+			throw new ResourceNotFoundException("Shop not found");
+		return shopId;
+	}
+
+	// "selling_price", "sellingPrice" and "Selling Price" all map to "sellingprice"
+	private String normalizeKey(String key) {
+		return key.trim().toLowerCase(Locale.ROOT).replaceAll("[\\s_-]", "");
+	}
+
+	private record PendingRow(long row, Product product, int quantity) {
+	}
+
+	private static final class RowException extends Exception {
+		RowException(String message) {
+			super(message, null, false, false);
+		}
+	}
+
+	private final class Importer {
+
+		private final Long shopId;
+		private final long start = System.currentTimeMillis();
+		private final ProductImportResponse response = new ProductImportResponse();
+		private final List<PendingRow> pending = new ArrayList<>(BATCH_SIZE);
+		private final Set<String> seenSkus = new HashSet<>();
+		private final Map<Long, Boolean> categoryExists = new HashMap<>();
+
+		Importer(Long shopId) {
+			this.shopId = shopId;
+		}
+
+		void accept(long row, Map<String, String> fields) {
+			response.setTotalRows(response.getTotalRows() + 1);
+			String sku = trimToNull(fields.get("sku"));
+
+			try {
+				pending.add(parse(row, sku, fields));
+			} catch (RowException e) {
+				fail(row, sku, e.getMessage());
+				return;
+			}
+
+			if (pending.size() >= BATCH_SIZE)
+				flush();
+		}
+
+		void abort(long row, String message) {
+			fail(row, null, message);
+		}
+
+		ProductImportResponse finish() {
+			flush();
+
+			long elapsed = Math.max(1, System.currentTimeMillis() - start);
+			response.setElapsedMs(elapsed);
+			response.setRowsPerSecond(Math.round(response.getTotalRows() * 1000.0 / elapsed * 10) / 10.0);
+
+			log.info("Import for shop {}: {} rows, {} imported, {} failed in {} ms", shopId, response.getTotalRows(),
+					response.getImported(), response.getFailed(), elapsed);
+			return response;
+		}
+
+		private PendingRow parse(long row, String sku, Map<String, String> fields) throws RowException {
+			if (sku == null)
+				throw new RowException("SKU is required");
+			if (sku.length() > MAX_SKU_LENGTH)
+				throw new RowException("SKU is longer than " + MAX_SKU_LENGTH + " characters");
+			if (!seenSkus.add(sku))
+				throw new RowException("Duplicate SKU in file");
+
+			String name = trimToNull(fields.get("name"));
+			if (name == null)
+				throw new RowException("Name is required");
+			if (name.length() > MAX_NAME_LENGTH)
+				throw new RowException("Name is longer than " + MAX_NAME_LENGTH + " characters");
+
+			String shortDescription = trimToNull(fields.get("shortdescription"));
+			if (shortDescription != null && shortDescription.length() > MAX_SHORT_DESCRIPTION_LENGTH)
+				throw new RowException(
+						"Short description is longer than " + MAX_SHORT_DESCRIPTION_LENGTH + " characters");
+
+			Double sellingPrice = parseDouble(fields.get("sellingprice"), "selling price");
+			if (sellingPrice == null)
+				throw new RowException("Selling price required");
+			if (sellingPrice < 0)
+				throw new RowException("Selling price cannot be negative");
+
+			Double mrp = parseDouble(fields.get("mrp"), "mrp");
+			if (mrp != null && mrp < 0)
+				throw new RowException("MRP cannot be negative");
+
+			Long categoryId = parseLong(fields.get("categoryid"), "category id");
+			if (categoryId != null
+					&& !categoryExists.computeIfAbsent(categoryId, categoryRepository::existsById))
+				throw new RowException("Category not found: " + categoryId);
+
+			Long quantity = parseLong(fields.get("quantity"), "quantity");
+			if (quantity != null && (quantity < 0 || quantity > Integer.MAX_VALUE))
+				throw new RowException("Quantity must be between 0 and " + Integer.MAX_VALUE);
+
+			String active = trimToNull(fields.get("isactive"));
+			if (active != null && !active.equalsIgnoreCase("true") && !active.equalsIgnoreCase("false"))
+				throw new RowException("isActive must be true or false");
+
+			Product p = new Product();
+			p.setShopId(shopId);
+			p.setCategoryId(categoryId);
+			p.setSku(sku);
+			p.setName(name);
+			p.setShortDescription(shortDescription);
+			p.setDescription(trimToNull(fields.get("description")));
+			p.setSellingPrice(sellingPrice);
+			p.setMrp(mrp);
+			p.setIsActive(active == null || Boolean.parseBoolean(active));
+			return new PendingRow(row, p, quantity == null ? 0 : quantity.intValue());
+		}
+
+		private void flush() {
+			if (pending.isEmpty())
+				return;
+
+			List<String> skus = pending.stream().map(r -> r.product().getSku()).toList();
+			Set<String> existing = productRepository.findExistingSkus(skus);
+
+			List<PendingRow> rows = new ArrayList<>(pending.size());
+			for (PendingRow r : pending) {
+				if (existing.contains(r.product().getSku()))
+					fail(r.row(), r.product().getSku(), "SKU already exists");
+				else
+					rows.add(r);
+			}
+			pending.clear();
+			if (rows.isEmpty())
+				return;
+
+			List<Long> ids;
+			try {
+				ids = transactionTemplate.execute(status -> {
+					List<Long> generated = productRepository.saveAll(rows.stream().map(PendingRow::product).toList());
+					Map<Long, Integer> quantities = new LinkedHashMap<>();
+					for (int i = 0; i < generated.size(); i++) {
+						quantities.put(generated.get(i), rows.get(i).quantity());
+					}
+					inventoryRepository.createInventories(quantities);
+					return generated;
+				});
+			} catch (DataAccessException e) {
+				log.warn("Import batch for shop {} rejected: {}", shopId, e.getMostSpecificCause().getMessage());
+				for (PendingRow r : rows) {
+					fail(r.row(), r.product().getSku(),
+							"Batch rejected by database: " + e.getMostSpecificCause().getMessage());
+				}
+				return;
+			}
+
+			for (int i = 0; i < rows.size(); i++) {
+				Product p = rows.get(i).product();
+				p.setId(ids.get(i));
+				searchIndex.index(p);
+				suggestionIndex.index(p);
+				facetIndex.index(p);
+				trigramIndex.index(p);
+				if (rows.get(i).quantity() > 0)
+					facetIndex.updateStock(p.getId(), true);
+			}
+			response.setImported(response.getImported() + rows.size());
+		}
+
+		private void fail(long row, String sku, String message) {
+			response.setFailed(response.getFailed() + 1);
+			if (response.getErrors().size() < MAX_REPORTED_ERRORS)
+				response.getErrors().add(new ProductImportError(row, sku, message));
+			else
+				response.setErrorsTruncated(true);
+		}
+
+		private Double parseDouble(String value, String field) throws RowException {
+			String v = trimToNull(value);
+			if (v == null)
+				return null;
+			try {
+				double d = Double.parseDouble(v);
+				if (Double.isNaN(d) || Double.isInfinite(d))
+					throw new NumberFormatException();
+				return d;
+			} catch (NumberFormatException e) {
+				throw new RowException("Invalid " + field + ": " + v);
+			}
+		}
+
+		private Long parseLong(String value, String field) throws RowException {
+			String v = trimToNull(value);
+			if (v == null)
+				return null;
+			try {
+				return Long.parseLong(v);
+			} catch (NumberFormatException e) {
+				throw new RowException("Invalid " + field + ": " + v);
+			}
+		}
+
+		private String trimToNull(String value) {
+			if (value == null)
+				return null;
+			String t = value.trim();
+			return t.isEmpty() ? null : t;
+		}
+	}
+}
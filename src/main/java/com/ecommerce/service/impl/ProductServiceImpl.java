@@ -1,29 +1,90 @@
 package com.ecommerce.service.impl;
 
+import com.ecommerce.dto.FacetCount;
+import com.ecommerce.dto.FacetedSearchResponse;
+import com.ecommerce.dto.ProductChangeFeedResponse;
+import com.ecommerce.dto.ProductPageResponse;
 import com.ecommerce.dto.ProductRequest;
 import com.ecommerce.dto.ProductResponse;
+import com.ecommerce.dto.ProductSummaryResponse;
+import com.ecommerce.dto.ShopProductSummaryResponse;
+import com.ecommerce.enums.ProductSort;
 import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductChange;
 import com.ecommerce.model.ProductImage;
+import com.ecommerce.model.ProductSearchCriteria;
+import com.ecommerce.model.ProductSummary;
+import com.ecommerce.model.ShopProductSummary;
+import com.ecommerce.repository.ProductChangeRepository;
 import com.ecommerce.repository.ProductImageRepository; // ✅ Import
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.search.CategoryTree;
+import com.ecommerce.search.ProductFacetIndex;
+import com.ecommerce.search.ProductSearchIndex;
+import com.ecommerce.search.ProductSuggestionIndex;
+import com.ecommerce.search.ProductTrigramIndex;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.util.PageCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+	private static final Logger log = LoggerFactory.getLogger(ProductServiceImpl.class);
+
+	private static final String CURSOR_RELEVANCE = "relevance";
+	private static final int SUGGESTION_LIMIT = 10;
+	private static final int MAX_CHANGES_PAGE = 1000;
+	private static final int CHANGES_PURGE_BATCH = 1000;
+
 	private final ProductRepository productRepository;
 	private final ProductImageRepository productImageRepository;
+	private final ProductSearchIndex searchIndex;
+	private final ProductSuggestionIndex suggestionIndex;
+	private final ProductFacetIndex facetIndex;
+	private final ProductTrigramIndex trigramIndex;
+	private final CategoryTree categoryTree;
+	private final ProductChangeRepository changeRepository;
+	private final int changesGapTimeoutMillis;
+	private final int changesRetentionDays;
+	private final Set<Long> popularityChanged = ConcurrentHashMap.newKeySet();
 
-	public ProductServiceImpl(ProductRepository productRepository, ProductImageRepository productImageRepository) {
+	public ProductServiceImpl(ProductRepository productRepository, ProductImageRepository productImageRepository,
+			ProductSearchIndex searchIndex, ProductSuggestionIndex suggestionIndex, ProductFacetIndex facetIndex,
+			ProductTrigramIndex trigramIndex, CategoryTree categoryTree, ProductChangeRepository changeRepository,
+			@Value("${product.changes.gap-timeout-ms:60000}") int changesGapTimeoutMillis,
+			@Value("${product.changes.retention-days:7}") int changesRetentionDays) {
 		this.productRepository = productRepository;
 		this.productImageRepository = productImageRepository;
+		this.searchIndex = searchIndex;
+		this.suggestionIndex = suggestionIndex;
+		this.facetIndex = facetIndex;
+		this.trigramIndex = trigramIndex;
+		this.categoryTree = categoryTree;
+		this.changeRepository = changeRepository;
+		this.changesGapTimeoutMillis = changesGapTimeoutMillis;
+		this.changesRetentionDays = changesRetentionDays;
 	}
 
 	@Override
@@ -51,12 +112,18 @@ public class ProductServiceImpl implements ProductService {
 
 		Long id = productRepository.save(p);
 		p.setId(id);
+		searchIndex.index(p);
+		suggestionIndex.index(p);
+		facetIndex.index(p);
+		trigramIndex.index(p);
 		return mapToResponse(p);
 	}
 
+	// Locks the row and rewrites it from what MySQL holds, never from a cached copy that may be stale
 	@Override
+	@Transactional
 	public ProductResponse updateProduct(Long id, ProductRequest request) {
-		Product existing = productRepository.findById(id)
+		Product existing = productRepository.lockById(id)
 				.orElseThrow(() -> new ResourceNotFoundException("Product not found"));
 
 		if (request.getSku() != null && !request.getSku().equals(existing.getSku())) {
@@ -84,6 +151,12 @@ public class ProductServiceImpl implements ProductService {
 			existing.setIsActive(request.getIsActive());
 
 		productRepository.update(existing);
+		afterCommit(() -> {
+			searchIndex.index(existing);
+			suggestionIndex.index(existing);
+			facetIndex.index(existing);
+			trigramIndex.index(existing);
+		});
 		return mapToResponse(existing);
 	}
 
@@ -92,19 +165,133 @@ public class ProductServiceImpl implements ProductService {
 		return productRepository.findById(id).map(this::mapToResponse);
 	}
 
+	// Product row or any of its images, whichever changed last
 	@Override
-	public List<ProductResponse> getAllActiveProducts() {
-		return productRepository.findAllActive().stream().map(this::mapToResponse).collect(Collectors.toList());
+	public LocalDateTime getProductLastModified(Long id) {
+		Product p = productRepository.findById(id).orElse(null);
+		if (p == null)
+			return null;
+		return latest(p.getUpdatedAt(), productImageRepository.findLastModified(id));
 	}
 
+	// Queued on commit, so the refresh that picks a product up can already see its new order or view
 	@Override
-	public List<ProductResponse> getProductsByShop(Long shopId) {
-		return productRepository.findByShopId(shopId).stream().map(this::mapToResponse).collect(Collectors.toList());
+	public void popularityChanged(Collection<Long> productIds) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			popularityChanged.addAll(productIds);
+			return;
+		}
+		List<Long> ids = List.copyOf(productIds);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				popularityChanged.addAll(ids);
+			}
+		});
+	}
+
+	// Recomputes the denormalized popularity column behind sort=popularity, for products with new orders or views
+	@Scheduled(initialDelayString = "${product.popularity.refresh-interval-ms:600000}", fixedDelayString = "${product.popularity.refresh-interval-ms:600000}")
+	public void refreshPopularity() {
+		if (popularityChanged.isEmpty())
+			return;
+
+		List<Long> ids = new ArrayList<>(popularityChanged);
+		popularityChanged.removeAll(ids);
+		try {
+			int changed = productRepository.refreshPopularity(ids);
+			log.info("Product popularity refreshed: {} of {} touched products changed", changed, ids.size());
+		} catch (Exception e) {
+			popularityChanged.addAll(ids);
+			log.error("Product popularity refresh failed: {}", e.getMessage());
+		}
+	}
+
+	// Catches what the queue cannot: views trimmed from users' history and queues lost on restart
+	@Scheduled(initialDelayString = "${product.popularity.refresh-interval-ms:600000}", fixedDelayString = "${product.popularity.full-refresh-interval-ms:86400000}")
+	public void reconcilePopularity() {
+		try {
+			int changed = productRepository.refreshPopularity();
+			log.info("Product popularity reconciled: {} products changed", changed);
+		} catch (Exception e) {
+			log.error("Product popularity reconcile failed: {}", e.getMessage());
+		}
+	}
+
+	// Consumers pass back nextSince; an empty page means they are caught up
+	@Override
+	public ProductChangeFeedResponse getChangesSince(long since, int limit) {
+		if (since < 0)
+			throw new BadRequestException("since must not be negative");
+		int pageSize = Math.max(1, Math.min(limit, MAX_CHANGES_PAGE));
+
+		List<ProductChange> changes = changeRepository.findSince(since, changesGapTimeoutMillis, pageSize);
+		long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+		return new ProductChangeFeedResponse(changes, next, changes.size() == pageSize);
+	}
+
+	// Keeps the change log to the retention window, a batch at a time
+	@Scheduled(initialDelayString = "${product.changes.purge-interval-ms:3600000}", fixedDelayString = "${product.changes.purge-interval-ms:3600000}")
+	public void purgeChanges() {
+		try {
+			int total = 0;
+			int deleted;
+			do {
+				deleted = changeRepository.deleteOlderThan(changesRetentionDays, CHANGES_PURGE_BATCH);
+				total += deleted;
+			} while (deleted == CHANGES_PURGE_BATCH);
+			if (total > 0)
+				log.info("Purged {} product changes older than {} days", total, changesRetentionDays);
+		} catch (Exception e) {
+			log.error("Product change purge failed: {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public LocalDateTime getCatalogLastModified() {
+		return latest(productRepository.findLastModified(), productImageRepository.findLastModified(null));
+	}
+
+	// A category filter expands to the cached subtree, so re-parenting or deactivating a category changes the listing too
+	@Override
+	public LocalDateTime getCatalogLastModified(Long categoryId) {
+		LocalDateTime catalog = getCatalogLastModified();
+		return categoryId == null ? catalog : latest(catalog, categoryTree.getCategoriesLastModified());
+	}
+
+	private LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		return a.isAfter(b) ? a : b;
+	}
+
+	@Override
+	public List<ProductSummaryResponse> getAllActiveProducts() {
+		return mapToSummaries(productRepository.findActiveSummaries());
+	}
+
+	@Override
+	public List<ShopProductSummaryResponse> getProductsByShop(Long shopId) {
+		List<ShopProductSummary> products = productRepository.findSummariesByShopId(shopId);
+		Map<Long, String> images = primaryImages(products);
+
+		List<ShopProductSummaryResponse> responses = new ArrayList<>(products.size());
+		for (ShopProductSummary p : products) {
+			ShopProductSummaryResponse r = new ShopProductSummaryResponse();
+			fillSummary(r, p, images);
+			r.setCategoryId(p.getCategoryId());
+			r.setSku(p.getSku());
+			r.setIsActive(p.isActive());
+			responses.add(r);
+		}
+		return responses;
 	}
 
 	@Override
 	public List<ProductResponse> getAllProducts() {
-		return productRepository.findAll().stream().map(this::mapToResponse).collect(Collectors.toList());
+		return mapToResponses(productRepository.findAll());
 	}
 
 	@Override
@@ -112,15 +299,183 @@ public class ProductServiceImpl implements ProductService {
 		if (productRepository.findById(id).isEmpty()) {
 			throw new ResourceNotFoundException("Product not found");
 		}
-		return productRepository.softDelete(id);
+		boolean deleted = productRepository.softDelete(id);
+		if (deleted) {
+			searchIndex.remove(id);
+			suggestionIndex.remove(id);
+			facetIndex.remove(id);
+			trigramIndex.remove(id);
+		}
+		return deleted;
+	}
+
+	@Override
+	public List<ProductSummaryResponse> searchProducts(String q, Long categoryId, BigDecimal minPrice,
+			BigDecimal maxPrice, String sort, int page, int size) {
+		int limit = size <= 0 ? 20 : size;
+		int offset = Math.max(0, page) * limit;
+		ProductSort order = ProductSort.fromParam(sort);
+		Set<Long> categories = categoryScope(categoryId);
+		ProductSearchCriteria criteria = criteria(q, categories, minPrice, maxPrice);
+
+		if (useRelevance(criteria, order)) {
+			ProductSearchIndex.Hits hits = searchIndex.search(q, categories, limit, offset);
+			// Nothing matched as typed: retry with typo tolerance rather than return an empty page
+			if (hits.getTotal() == 0 && trigramIndex.isReady())
+				hits = trigramIndex.search(q, categories, limit, offset);
+			return mapToSummaries(productRepository.findSummariesByIds(hits.getProductIds()));
+		}
+
+		return mapToSummaries(productRepository.search(criteria, order == null ? ProductSort.NEWEST : order, limit,
+				offset));
+	}
+
+	@Override
+	public List<ProductSummaryResponse> fuzzySearchProducts(String q, Long categoryId, int page, int size) {
+		if (q == null || q.isBlank() || !trigramIndex.isReady())
+			return searchProducts(q, categoryId, null, null, null, page, size);
+
+		int limit = size <= 0 ? 20 : size;
+		int offset = Math.max(0, page) * limit;
+		ProductSearchIndex.Hits hits = trigramIndex.search(q, categoryScope(categoryId), limit, offset);
+		return mapToSummaries(productRepository.findSummariesByIds(hits.getProductIds()));
+	}
+
+	@Override
+	public ProductPageResponse searchProductsPage(String q, Long categoryId, BigDecimal minPrice,
+			BigDecimal maxPrice, String sort, String cursor, int size) {
+		int limit = size <= 0 ? 20 : size;
+		PageCursor after = (cursor == null || cursor.isBlank()) ? null : PageCursor.decode(cursor);
+		ProductSort order = ProductSort.fromParam(sort);
+		Set<Long> categories = categoryScope(categoryId);
+		ProductSearchCriteria criteria = criteria(q, categories, minPrice, maxPrice);
+
+		if (useRelevance(criteria, order)) {
+			// Relevance cursors carry an offset, not a keyset: BM25 scores shift as the
+			// index changes, so (score, id) is no stabler a seek key than the position
+			int offset = 0;
+			if (after != null) {
+				requireCursorSort(after, CURSOR_RELEVANCE);
+				offset = parseOffset(after.getKey());
+			}
+
+			ProductSearchIndex.Hits hits = searchIndex.search(q, categories, limit, offset);
+			List<ProductSummaryResponse> items = mapToSummaries(
+					productRepository.findSummariesByIds(hits.getProductIds()));
+
+			int nextOffset = offset + hits.getProductIds().size();
+			String next = nextOffset < hits.getTotal()
+					? new PageCursor(CURSOR_RELEVANCE, String.valueOf(nextOffset), 0).encode()
+					: null;
+			return new ProductPageResponse(items, next);
+		}
+
+		if (order == null)
+			order = ProductSort.NEWEST;
+
+		Object afterKey = null;
+		Long lastId = null;
+		if (after != null) {
+			requireCursorSort(after, order.param());
+			afterKey = order.parseKey(after.getKey());
+			lastId = after.getId();
+		}
+
+		// Fetch one extra row to learn whether another page exists
+		List<ProductSummary> rows = productRepository.searchAfter(criteria, order, afterKey, lastId, limit + 1);
+		String next = null;
+		if (rows.size() > limit) {
+			rows = rows.subList(0, limit);
+			ProductSummary last = rows.get(limit - 1);
+			next = new PageCursor(order.param(), order.keyOf(last), last.getId()).encode();
+		}
+
+		return new ProductPageResponse(mapToSummaries(rows), next);
 	}
 
 	@Override
-	public List<ProductResponse> searchProducts(String q, Long categoryId, int page, int size) {
+	public FacetedSearchResponse facetedSearch(String q, List<Long> categoryIds, List<Long> shopIds,
+			List<String> priceBands, Boolean inStock, int page, int size) {
 		int limit = size <= 0 ? 20 : size;
 		int offset = Math.max(0, page) * limit;
-		return productRepository.search(q, categoryId, limit, offset).stream().map(this::mapToResponse)
-				.collect(Collectors.toList());
+		FacetedSearchResponse resp = new FacetedSearchResponse();
+
+		boolean hasText = q != null && !q.isBlank();
+		if (!facetIndex.isReady() || (hasText && !searchIndex.isReady())) {
+			// Still warming up: one bounded page of plain search on the first category, without counts
+			Long categoryId = categoryIds == null || categoryIds.isEmpty() ? null : categoryIds.get(0);
+			List<ProductSummaryResponse> items = searchProducts(q, categoryId, null, null, null, page, limit);
+			resp.setItems(items);
+			resp.setTotal(items.size());
+			resp.setCategories(List.of());
+			resp.setShops(List.of());
+			resp.setPriceBands(List.of());
+			resp.setStock(List.of());
+			return resp;
+		}
+
+		// Text only narrows the set; the facet index pages it newest first
+		long[] textMatches = hasText ? searchIndex.matchIds(q) : null;
+
+		// Selecting a category selects its whole subtree
+		List<Long> categoryFilter = null;
+		if (categoryIds != null && !categoryIds.isEmpty()) {
+			Set<Long> expanded = new LinkedHashSet<>();
+			for (Long id : categoryIds) {
+				expanded.addAll(categoryTree.subtreeIds(id));
+			}
+			categoryFilter = new ArrayList<>(expanded);
+		}
+
+		ProductFacetIndex.Result result = facetIndex.query(textMatches, categoryFilter, shopIds, priceBands, inStock, limit,
+				offset);
+
+		resp.setItems(mapToSummaries(productRepository.findSummariesByIds(result.getProductIds())));
+		resp.setTotal(result.getTotal());
+		resp.setCategories(toFacetCounts(result.getCategoryCounts()));
+		resp.setShops(toFacetCounts(result.getShopCounts()));
+		resp.setPriceBands(toFacetCounts(result.getPriceBandCounts()));
+		resp.setStock(List.of(new FacetCount("IN_STOCK", result.getInStockCount()),
+				new FacetCount("OUT_OF_STOCK", result.getOutOfStockCount())));
+		return resp;
+	}
+
+	// Ranked by the search index only for a bare text query; explicit sorts and price ranges go to SQL
+	private boolean useRelevance(ProductSearchCriteria criteria, ProductSort order) {
+		return order == null && !criteria.hasPriceRange() && criteria.getQuery() != null
+				&& !criteria.getQuery().isBlank() && searchIndex.isReady();
+	}
+
+	private ProductSearchCriteria criteria(String q, Set<Long> categories, BigDecimal minPrice,
+			BigDecimal maxPrice) {
+		if ((minPrice != null && minPrice.signum() < 0) || (maxPrice != null && maxPrice.signum() < 0))
+			throw new BadRequestException("Price filters cannot be negative");
+		if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0)
+			throw new BadRequestException("minPrice cannot be greater than maxPrice");
+		return new ProductSearchCriteria(q, categories, minPrice, maxPrice);
+	}
+
+	private Set<Long> categoryScope(Long categoryId) {
+		return categoryId == null ? null : categoryTree.subtreeIds(categoryId);
+	}
+
+	private List<FacetCount> toFacetCounts(Map<?, Long> counts) {
+		List<FacetCount> list = new ArrayList<>(counts.size());
+		counts.forEach((value, count) -> list.add(new FacetCount(String.valueOf(value), count)));
+		return list;
+	}
+
+	private void requireCursorSort(PageCursor cursor, String sort) {
+		if (!sort.equals(cursor.getSort()))
+			throw new BadRequestException("Cursor does not belong to this listing");
+	}
+
+	private int parseOffset(String key) {
+		try {
+			return Math.max(0, Integer.parseInt(key));
+		} catch (NumberFormatException e) {
+			throw new BadRequestException("Invalid cursor");
+		}
 	}
 
 	@Override
@@ -146,23 +501,71 @@ public class ProductServiceImpl implements ProductService {
 	public List<String> searchSuggestions(String query) {
 		if (query == null || query.trim().isEmpty())
 			return List.of();
+		if (suggestionIndex.isReady())
+			return suggestionIndex.suggest(query, SUGGESTION_LIMIT);
 		return productRepository.searchSuggestions(query.trim());
 	}
 
-	private ProductResponse mapToResponse(Product p) {
-		ProductResponse r = new ProductResponse();
+	private List<ProductResponse> mapToResponses(List<Product> products) {
+		if (products.isEmpty())
+			return List.of();
+
+		Map<Long, String> images = Map.of();
+		try {
+			images = productImageRepository
+					.findPrimaryImagePaths(products.stream().map(Product::getId).collect(Collectors.toList()));
+		} catch (Exception e) {
+			// Ignore image fetch errors to prevent crashing the list
+		}
+
+		List<ProductResponse> responses = new ArrayList<>(products.size());
+		for (Product p : products) {
+			ProductResponse r = toResponse(p);
+			r.setImage(images.get(p.getId()));
+			responses.add(r);
+		}
+		return responses;
+	}
+
+	private List<ProductSummaryResponse> mapToSummaries(List<ProductSummary> products) {
+		if (products.isEmpty())
+			return List.of();
+
+		Map<Long, String> images = primaryImages(products);
+
+		List<ProductSummaryResponse> responses = new ArrayList<>(products.size());
+		for (ProductSummary p : products) {
+			ProductSummaryResponse r = new ProductSummaryResponse();
+			fillSummary(r, p, images);
+			responses.add(r);
+		}
+		return responses;
+	}
+
+	private Map<Long, String> primaryImages(List<? extends ProductSummary> products) {
+		if (products.isEmpty())
+			return Map.of();
+		try {
+			return productImageRepository
+					.findPrimaryImagePaths(products.stream().map(ProductSummary::getId).collect(Collectors.toList()));
+		} catch (Exception e) {
+			// Ignore image fetch errors to prevent crashing the list
+			return Map.of();
+		}
+	}
+
+	private static void fillSummary(ProductSummaryResponse r, ProductSummary p, Map<Long, String> images) {
 		r.setId(p.getId());
 		r.setShopId(p.getShopId());
-		r.setCategoryId(p.getCategoryId());
-		r.setSku(p.getSku());
 		r.setName(p.getName());
-		r.setShortDescription(p.getShortDescription());
-		r.setDescription(p.getDescription());
 		r.setSellingPrice(p.getSellingPrice());
 		r.setMrp(p.getMrp());
-		r.setIsActive(p.getIsActive());
-		r.setCreatedAt(p.getCreatedAt());
-		r.setUpdatedAt(p.getUpdatedAt());
+		r.setRating(p.getAvgRating());
+		r.setImage(images.get(p.getId()));
+	}
+
+	private ProductResponse mapToResponse(Product p) {
+		ProductResponse r = toResponse(p);
 
 		try {
 			List<ProductImage> images = productImageRepository.findByProductId(p.getId());
@@ -176,4 +579,34 @@ public class ProductServiceImpl implements ProductService {
 
 		return r;
 	}
-}
\ No newline at end of file
+
+	private ProductResponse toResponse(Product p) {
+		ProductResponse r = new ProductResponse();
+		r.setId(p.getId());
+		r.setShopId(p.getShopId());
+		r.setCategoryId(p.getCategoryId());
+		r.setSku(p.getSku());
+		r.setName(p.getName());
+		r.setShortDescription(p.getShortDescription());
+		r.setDescription(p.getDescription());
+		r.setSellingPrice(p.getSellingPrice());
+		r.setMrp(p.getMrp());
+		r.setIsActive(p.getIsActive());
+		r.setCreatedAt(p.getCreatedAt());
+		r.setUpdatedAt(p.getUpdatedAt());
+		return r;
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+}
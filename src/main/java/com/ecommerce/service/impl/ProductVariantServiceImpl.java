@@ -10,7 +10,11 @@ import com.ecommerce.service.ProductVariantService;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -176,6 +180,38 @@ public class ProductVariantServiceImpl implements ProductVariantService {
 		return stockRepository.findByProductId(productId).stream().map(this::mapStock).collect(Collectors.toList());
 	}
 
+	// Groups, values and per-value stock in three queries instead of one per group
+	@Override
+	public List<ProductVariantGroupDetailResponse> getVariantMatrix(Long productId) {
+		Map<Long, ProductVariantStock> stockByValue = new HashMap<>();
+		for (ProductVariantStock s : stockRepository.findByProductId(productId)) {
+			stockByValue.put(s.getVariantValueId(), s);
+		}
+
+		Map<Long, ProductVariantGroupDetailResponse> groups = new LinkedHashMap<>();
+		for (ProductVariantGroup g : groupRepository.findByProductId(productId)) {
+			ProductVariantGroupDetailResponse r = new ProductVariantGroupDetailResponse();
+			r.setId(g.getId());
+			r.setGroupName(g.getGroupName());
+			groups.put(g.getId(), r);
+		}
+
+		for (ProductVariantValue v : valueRepository.findByProductId(productId)) {
+			ProductVariantGroupDetailResponse group = groups.get(v.getGroupId());
+			if (group == null)
+				continue;
+
+			ProductVariantStock stock = stockByValue.get(v.getId());
+			ProductVariantValueDetailResponse r = new ProductVariantValueDetailResponse();
+			r.setId(v.getId());
+			r.setValueName(v.getValueName());
+			r.setQuantity(stock == null ? 0 : stock.getQuantity());
+			r.setPriceOffset(stock == null ? BigDecimal.ZERO : stock.getPriceOffset());
+			group.getValues().add(r);
+		}
+		return new ArrayList<>(groups.values());
+	}
+
 	private ProductVariantGroupResponse mapGroup(ProductVariantGroup g) {
 		ProductVariantGroupResponse r = new ProductVariantGroupResponse();
 		r.setId(g.getId());
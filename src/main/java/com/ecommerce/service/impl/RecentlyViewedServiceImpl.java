@@ -3,6 +3,7 @@ package com.ecommerce.service.impl;
 import com.ecommerce.dto.RecentlyViewedResponse;
 import com.ecommerce.model.RecentlyViewed;
 import com.ecommerce.repository.RecentlyViewedRepository;
+import com.ecommerce.service.ProductService;
 import com.ecommerce.service.RecentlyViewedService;
 
 import org.springframework.stereotype.Service;
@@ -14,14 +15,17 @@ import java.util.stream.Collectors;
 public class RecentlyViewedServiceImpl implements RecentlyViewedService {
 
 	private final RecentlyViewedRepository recentlyViewedRepo;
+	private final ProductService productService;
 
-	public RecentlyViewedServiceImpl(RecentlyViewedRepository recentlyViewedRepo) {
+	public RecentlyViewedServiceImpl(RecentlyViewedRepository recentlyViewedRepo, ProductService productService) {
 		this.recentlyViewedRepo = recentlyViewedRepo;
+		this.productService = productService;
 	}
 
 	@Override
 	public void addViewedProduct(Long userId, Long productId) {
 		recentlyViewedRepo.saveOrUpdate(userId, productId);
+		productService.popularityChanged(List.of(productId));
 	}
 
 	@Override
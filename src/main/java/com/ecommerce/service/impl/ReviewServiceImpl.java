@@ -1,11 +1,14 @@
 package com.ecommerce.service.impl;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.ecommerce.dto.RatingSummaryResponse;
 import com.ecommerce.dto.ReviewRequest;
 import com.ecommerce.dto.ReviewResponse;
 import com.ecommerce.exception.BadRequestException;
@@ -42,6 +45,7 @@ public class ReviewServiceImpl implements ReviewService{
 	        review.setBody(request.getBody());
 
 	        reviewRepository.save(review);
+	        productRepository.refreshRating(request.getProductId());
 
 	        ReviewResponse resp = new ReviewResponse();
 	        resp.setRating(review.getRating());
@@ -122,8 +126,9 @@ public class ReviewServiceImpl implements ReviewService{
 
 	@Override
 	public void deleteReview(Long reviewId, Long userId) {
+		Optional<Review> review = reviewRepository.findById(reviewId);
 		reviewRepository.delete(reviewId, userId);
-		
+		review.ifPresent(r -> productRepository.refreshRating(r.getProductId()));
 	}
 
 	@Override
@@ -131,5 +136,39 @@ public class ReviewServiceImpl implements ReviewService{
 		return reviewRepository.avgRating(productId);
 	}
 
+	@Override
+	public List<ReviewResponse> getNewestReviews(Long productId, int limit) {
+		return reviewRepository.findNewest(productId, limit)
+				.stream()
+				.map(review->new ReviewResponse(
+						review.getId(),
+						review.getProductId(),
+						review.getUserId(),
+						review.getRating(),
+						review.getTitle(),
+						review.getBody(),
+						review.getCreatedAt().toString()
+						))
+				.toList();
+	}
+
+	// Average, total and per-star counts from one GROUP BY
+	@Override
+	public RatingSummaryResponse getRatingSummary(Long productId) {
+		Map<Integer, Long> counts = reviewRepository.countByRating(productId);
+
+		Map<Integer, Long> distribution = new LinkedHashMap<>();
+		long total = 0;
+		long sum = 0;
+		for (int star = 5; star >= 1; star--) {
+			long n = counts.getOrDefault(star, 0L);
+			distribution.put(star, n);
+			total += n;
+			sum += n * star;
+		}
+		double average = total == 0 ? 0.0 : Math.round(sum * 100.0 / total) / 100.0;
+		return new RatingSummaryResponse(average, total, distribution);
+	}
+
 
 }
\ No newline at end of file
@@ -0,0 +1,779 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.CartOperationRequest;
+import com.ecommerce.dto.CartResponse;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.ProductAvailability;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CartService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/*
+ * In-process cart tier in front of CartServiceImpl. A user's cart is loaded
+ * once, then edited in memory; edits only mark it dirty, and a background
+ * flush writes every dirty cart back in a handful of batched statements,
+ * touching carts.updated_at once per cart per flush rather than once per
+ * click. Lines added since the last flush carry negative ids until they are
+ * written; those ids keep working for as long as the cart stays in memory.
+ * Product names, live prices and the active check are still read from MySQL
+ * whenever the cart is shown, and checkout reads the stored cart itself.
+ *
+ * Each cart is flushed by one thread at a time and callers that need it
+ * written wait only for that cart. If a batch fails, its carts are retried
+ * one transaction each, and a cart that fails max-flush-attempts times in a
+ * row (say its products were deleted) loses its unsaved edits and is
+ * reloaded from MySQL rather than blocking the others.
+ *
+ * Unflushed state is bounded: a crash loses at most one flush interval of
+ * edits, and once more than max-dirty-carts carts are dirty an editor writes
+ * its own cart straight away. Clean carts are dropped after idle-ms, or
+ * oldest first when the store outgrows max-carts.
+ *
+ * The store lives in one JVM: with several instances behind a load balancer
+ * two nodes would hold diverging copies of a cart and overwrite each other's
+ * edits. It is therefore off unless cart.store.enabled=true, which is only
+ * safe for a single instance or with user-sticky routing.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "cart.store.enabled", havingValue = "true")
+public class SessionCartServiceImpl implements CartService {
+
+	private static final Logger log = LoggerFactory.getLogger(SessionCartServiceImpl.class);
+
+	private final CartServiceImpl delegate;
+	private final CartRepository cartRepository;
+	private final ProductRepository productRepository;
+	private final TransactionTemplate flushTransaction;
+	private final int maxCarts;
+	private final int maxDirtyCarts;
+	private final long idleMillis;
+	private final int maxFlushAttempts;
+
+	private final Map<Long, SessionCart> carts = new ConcurrentHashMap<>();
+	private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+	private final AtomicLong lastPlaceholderId = new AtomicLong();
+	private final AtomicLong sweeps = new AtomicLong();
+
+	public SessionCartServiceImpl(CartServiceImpl delegate, CartRepository cartRepository,
+			ProductRepository productRepository, PlatformTransactionManager transactionManager,
+			@Value("${cart.store.max-carts:50000}") int maxCarts,
+			@Value("${cart.store.max-dirty-carts:2000}") int maxDirtyCarts,
+			@Value("${cart.store.idle-ms:1800000}") long idleMillis,
+			@Value("${cart.store.max-flush-attempts:3}") int maxFlushAttempts) {
+		this.delegate = delegate;
+		this.cartRepository = cartRepository;
+		this.productRepository = productRepository;
+		this.maxCarts = maxCarts;
+		this.maxDirtyCarts = maxDirtyCarts;
+		this.idleMillis = idleMillis;
+		this.maxFlushAttempts = maxFlushAttempts;
+
+		// Flushes commit on their own: a checkout that rolls back must not undo edits already marked as stored
+		this.flushTransaction = new TransactionTemplate(transactionManager);
+		this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	@Override
+	public Cart getOrCreateCart(Long userId) {
+		CartServiceImpl.validateUserId(userId);
+		return new Cart(cart(userId).cartId, userId, null);
+	}
+
+	@Override
+	public CartResponse getUserCart(Long userId) {
+		log.info("Fetching cart for user: {}", userId);
+
+		CartServiceImpl.validateUserId(userId);
+
+		SessionCart cart = cart(userId);
+		List<CartItem> lines = new ArrayList<>();
+		synchronized (cart) {
+			for (Line line : cart.lines.values()) {
+				lines.add(copy(line.item));
+			}
+		}
+
+		// Same filter and live fields as the stored cart's join, in one IN-list query
+		Map<Long, ProductAvailability> products = lines.isEmpty() ? Map.of()
+				: productRepository.findAvailability(lines.stream().map(CartItem::getProductId).toList());
+		List<CartItem> items = new ArrayList<>(lines.size());
+		for (CartItem item : lines) {
+			ProductAvailability product = products.get(item.getProductId());
+			if (product == null || !product.isAvailable())
+				continue;
+			item.setProductName(product.getName());
+			item.setCurrentPrice(product.getCurrentPrice());
+			item.setShopId(product.getShopId());
+			item.setShopName(product.getShopName());
+			item.setImagePath(product.getPrimaryImage());
+			items.add(item);
+		}
+		return delegate.buildCartResponse(new Cart(cart.cartId, userId, null), items);
+	}
+
+	// Checkout never trusts the in-memory copy: the edits are written, then the cart is read back from MySQL
+	@Override
+	public CartResponse getCheckoutCart(Long userId) {
+		CartServiceImpl.validateUserId(userId);
+
+		flushCart(userId);
+		return delegate.getUserCart(userId);
+	}
+
+	@Override
+	public CartItem addToCart(Long userId, Long productId, Integer quantity) {
+		log.info("Adding to cart - User: {}, Product: {}, Quantity: {}", userId, productId, quantity);
+
+		CartServiceImpl.validateUserId(userId);
+		CartServiceImpl.validateProductId(productId);
+		CartServiceImpl.validateQuantity(quantity, "Quantity must be greater than zero");
+
+		return edit(userId, cart -> {
+			Line line = cart.lines.get(productId);
+			if (line != null) {
+				int newQuantity = line.item.getQuantity() + quantity;
+				if (newQuantity > CartServiceImpl.MAX_QUANTITY_PER_ITEM) {
+					log.warn("Combined quantity {} exceeds maximum {}", newQuantity,
+							CartServiceImpl.MAX_QUANTITY_PER_ITEM);
+					throw new BadRequestException("Cannot add more. Maximum " + CartServiceImpl.MAX_QUANTITY_PER_ITEM
+							+ " items allowed. You already have " + line.item.getQuantity() + " in cart.");
+				}
+				line.item.setQuantity(newQuantity);
+				log.info("Updated existing cart item. New quantity: {}", newQuantity);
+				return copy(line.item);
+			}
+
+			// A new line needs the product's live price and display fields once
+			ProductAvailability product = productRepository.findAvailability(List.of(productId)).get(productId);
+			if (product == null || !product.isAvailable() || product.getCurrentPrice() == null) {
+				log.error("Product not found with ID: {}", productId);
+				throw new ResourceNotFoundException("Product not found with ID: " + productId);
+			}
+			line = cart.add(product, quantity, -lastPlaceholderId.incrementAndGet());
+			log.info("Added new item to cart. Item ID: {}", line.item.getId());
+			return copy(line.item);
+		});
+	}
+
+	@Override
+	public CartItem updateCartItemQuantity(Long userId, Long cartItemId, Integer quantity) {
+		log.info("Updating cart item - User: {}, ItemId: {}, NewQuantity: {}", userId, cartItemId, quantity);
+
+		CartServiceImpl.validateUserId(userId);
+		validateItemId(cartItemId);
+		CartServiceImpl.validateQuantity(quantity,
+				"Quantity must be greater than zero. Use remove endpoint to delete item.");
+
+		CartItem updated = edit(userId, cart -> {
+			Line line = cart.find(cartItemId);
+			if (line == null)
+				return null;
+			line.item.setQuantity(quantity);
+			return copy(line.item);
+		});
+		if (updated != null) {
+			log.info("Cart item {} updated to quantity {}", cartItemId, quantity);
+			return updated;
+		}
+
+		// Not in this user's session cart: MySQL has the ownership checks and error messages
+		requireStoredItemId(cartItemId);
+		return delegate.updateCartItemQuantity(userId, cartItemId, quantity);
+	}
+
+	@Override
+	public void removeFromCart(Long userId, Long cartItemId) {
+		log.info("Removing from cart - User: {}, ItemId: {}", userId, cartItemId);
+
+		CartServiceImpl.validateUserId(userId);
+		validateItemId(cartItemId);
+
+		Boolean removed = edit(userId, cart -> {
+			Line line = cart.find(cartItemId);
+			if (line == null)
+				return null;
+			cart.remove(line);
+			return Boolean.TRUE;
+		});
+		if (removed != null) {
+			log.info("Cart item {} removed successfully", cartItemId);
+			return;
+		}
+
+		requireStoredItemId(cartItemId);
+		delegate.removeFromCart(userId, cartItemId);
+	}
+
+	// Unflushed edits are discarded along with everything else in the cart
+	@Override
+	public void clearCart(Long userId) {
+		CartServiceImpl.validateUserId(userId);
+
+		detach(userId, false);
+		delegate.clearCart(userId);
+		refreshAfterCommit(userId);
+	}
+
+	@Override
+	public CartResponse applyOperations(Long userId, List<CartOperationRequest> operations) {
+		CartServiceImpl.validateUserId(userId);
+
+		detach(userId, true);
+		CartResponse response = delegate.applyOperations(userId, operations);
+		refreshAfterCommit(userId);
+		return response;
+	}
+
+	// Writes the user's cart now, after any flush of it already in flight; failures reach the caller
+	@Override
+	public void flushCart(Long userId) {
+		SessionCart cart = carts.get(userId);
+		if (cart == null)
+			return;
+
+		PendingFlush pending;
+		synchronized (cart) {
+			cart.awaitIdle();
+			if (cart.evicted || !cart.dirty)
+				return;
+			dirtyUsers.remove(userId);
+			pending = cart.startFlush();
+		}
+		RuntimeException failure = store(List.of(pending));
+		if (failure != null)
+			throw failure;
+	}
+
+	/*
+	 * A cart held in memory is in use and is left out of the delete. Every
+	 * other cart gets a placeholder for the duration, so a request that
+	 * wants it waits for the delete to commit and then loads whatever is
+	 * left rather than editing rows that are about to go.
+	 */
+	@Override
+	public List<Long> sweepCarts(Map<Long, Long> userByCart, Function<Collection<Long>, List<Long>> delete) {
+		Map<Long, SessionCart> held = new LinkedHashMap<>();
+		for (Map.Entry<Long, Long> entry : userByCart.entrySet()) {
+			SessionCart hold = new SessionCart(entry.getValue(), entry.getKey());
+			if (carts.putIfAbsent(entry.getValue(), hold) == null)
+				held.put(entry.getKey(), hold);
+		}
+		if (held.isEmpty())
+			return List.of();
+
+		try {
+			return delete.apply(held.keySet());
+		} finally {
+			sweeps.incrementAndGet();
+			for (SessionCart hold : held.values()) {
+				carts.remove(hold.userId, hold);
+				synchronized (hold) {
+					hold.evicted = true;
+					hold.sweeping = false;
+					hold.notifyAll();
+				}
+			}
+		}
+	}
+
+	@Override
+	public CartResponse validateCart(Long userId) {
+		CartServiceImpl.validateUserId(userId);
+
+		flushCart(userId);
+		return delegate.validateCart(userId);
+	}
+
+	@Scheduled(initialDelayString = "${cart.store.flush-interval-ms:5000}", fixedDelayString = "${cart.store.flush-interval-ms:5000}")
+	public void flushDirty() {
+		try {
+			List<PendingFlush> batch = new ArrayList<>();
+			for (Long userId : new ArrayList<>(dirtyUsers)) {
+				SessionCart cart = carts.get(userId);
+				if (cart == null) {
+					dirtyUsers.remove(userId);
+					continue;
+				}
+				synchronized (cart) {
+					// Being written by another thread, which marks it dirty again if it was edited meanwhile
+					if (cart.flushing)
+						continue;
+					dirtyUsers.remove(userId);
+					if (!cart.evicted && cart.dirty)
+						batch.add(cart.startFlush());
+				}
+			}
+			if (!batch.isEmpty())
+				store(batch);
+			evictIdle();
+		} catch (Exception e) {
+			log.error("Cart flush run failed: {}", e.getMessage());
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		flushDirty();
+	}
+
+	private SessionCart cart(Long userId) {
+		while (true) {
+			SessionCart cached = carts.get(userId);
+			if (cached != null) {
+				if (cached.placeholder) {
+					synchronized (cached) {
+						cached.awaitIdle();
+					}
+					continue;
+				}
+				cached.lastAccess = System.currentTimeMillis();
+				return cached;
+			}
+
+			// Loaded without holding any lock; when two requests race the first stored copy wins
+			long sweepsBefore = sweeps.get();
+			Cart cart = delegate.getOrCreateCart(userId);
+			SessionCart loaded = new SessionCart(userId, cart.getId(), cartRepository.findLinesByCartId(cart.getId()));
+			if (carts.putIfAbsent(userId, loaded) != null)
+				continue;
+
+			// A sweep that finished while this was loading may have deleted the cart just read
+			if (sweeps.get() != sweepsBefore && cartRepository.findById(cart.getId()).isEmpty()) {
+				detach(userId, false);
+				continue;
+			}
+
+			if (carts.size() > maxCarts)
+				evictOldest();
+			return loaded;
+		}
+	}
+
+	// Applies change under the cart's lock; a null result means nothing was changed
+	private <T> T edit(Long userId, Function<SessionCart, T> change) {
+		while (true) {
+			SessionCart cart = cart(userId);
+			T result;
+			synchronized (cart) {
+				if (cart.evicted)
+					continue;
+				result = change.apply(cart);
+				if (result == null)
+					return null;
+				cart.dirty = true;
+			}
+			dirtyUsers.add(userId);
+
+			// Past the limit each editor writes its own cart rather than growing the backlog
+			if (dirtyUsers.size() > maxDirtyCarts) {
+				log.warn("{} dirty carts exceed the limit of {}, writing cart of user {} now", dirtyUsers.size(),
+						maxDirtyCarts, userId);
+				try {
+					flushCart(userId);
+				} catch (RuntimeException e) {
+					log.error("Cart flush failed for user {}, kept for the next run: {}", userId, e.getMessage());
+				}
+			}
+			return result;
+		}
+	}
+
+	/*
+	 * Writes the carts in one transaction. If that fails the carts are retried
+	 * one transaction each, so a single bad cart cannot hold back the rest.
+	 * Returns the last failure, or null when every cart was stored.
+	 */
+	private RuntimeException store(List<PendingFlush> batch) {
+		long start = System.currentTimeMillis();
+		try {
+			Map<String, Long> insertedIds = flushTransaction.execute(status -> write(batch));
+			for (PendingFlush pending : batch) {
+				if (pending.stored(insertedIds))
+					dirtyUsers.add(pending.cart.userId);
+			}
+			log.info("Flushed {} carts in {} ms", batch.size(), System.currentTimeMillis() - start);
+			return null;
+		} catch (RuntimeException e) {
+			if (batch.size() == 1) {
+				failed(batch.get(0), e);
+				return e;
+			}
+			log.warn("Flush of {} carts failed, retrying them one at a time: {}", batch.size(), e.getMessage());
+		}
+
+		RuntimeException failure = null;
+		for (PendingFlush pending : batch) {
+			RuntimeException e = store(List.of(pending));
+			if (e != null)
+				failure = e;
+		}
+		return failure;
+	}
+
+	private void failed(PendingFlush pending, RuntimeException e) {
+		SessionCart cart = pending.cart;
+		int attempts = pending.failed();
+		if (attempts < maxFlushAttempts) {
+			dirtyUsers.add(cart.userId);
+			log.warn("Flush of cart {} failed ({} of {}), kept for the next run: {}", cart.cartId, attempts,
+					maxFlushAttempts, e.getMessage());
+			return;
+		}
+
+		// Dropped so the next request reloads whatever MySQL has for the user
+		synchronized (cart) {
+			cart.evicted = true;
+		}
+		carts.remove(cart.userId, cart);
+		dirtyUsers.remove(cart.userId);
+		log.error("Dropping unsaved edits of cart {} for user {} after {} failed flushes: {}", cart.cartId,
+				cart.userId, attempts, e.getMessage());
+	}
+
+	// One DELETE, one batched upsert and one timestamp UPDATE for the whole batch
+	private Map<String, Long> write(List<PendingFlush> batch) {
+		List<Long> removedIds = new ArrayList<>();
+		List<CartItem> rows = new ArrayList<>();
+		Set<Long> cartIds = new LinkedHashSet<>();
+		Set<Long> cartsWithInserts = new LinkedHashSet<>();
+		for (PendingFlush pending : batch) {
+			removedIds.addAll(pending.removedIds);
+			for (FlushedLine f : pending.inserts) {
+				rows.add(row(pending.cart.cartId, f));
+				cartsWithInserts.add(pending.cart.cartId);
+			}
+			for (FlushedLine f : pending.updates) {
+				rows.add(row(pending.cart.cartId, f));
+			}
+			cartIds.add(pending.cart.cartId);
+		}
+
+		cartRepository.removeItems(removedIds);
+		cartRepository.upsertItems(rows);
+		cartRepository.touchCarts(cartIds);
+
+		// Row ids of the inserted lines, matched on the (cart_id, product_id) key
+		Map<String, Long> ids = new HashMap<>();
+		for (CartItem stored : cartRepository.findLinesByCartIds(cartsWithInserts)) {
+			ids.put(lineKey(stored.getCartId(), stored.getProductId()), stored.getId());
+		}
+		return ids;
+	}
+
+	private void refreshAfterCommit(Long userId) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					refresh(userId);
+				}
+			});
+		} else {
+			refresh(userId);
+		}
+	}
+
+	// A read racing the write-through may have cached the old rows; keep any later edits, then reload
+	private void refresh(Long userId) {
+		try {
+			detach(userId, true);
+		} catch (Exception e) {
+			log.error("Cart refresh failed for user {}: {}", userId, e.getMessage());
+		}
+	}
+
+	/*
+	 * Takes the user's cart out of memory ahead of a write that goes straight
+	 * to MySQL, once any flush or sweep of it has finished. With keepEdits the cart is
+	 * written first, and again if it was edited in between.
+	 */
+	private void detach(Long userId, boolean keepEdits) {
+		while (true) {
+			if (keepEdits)
+				flushCart(userId);
+			SessionCart cart = carts.get(userId);
+			if (cart == null)
+				return;
+			synchronized (cart) {
+				cart.awaitIdle();
+				if (keepEdits && cart.dirty && !cart.evicted)
+					continue;
+				cart.evicted = true;
+			}
+			carts.remove(userId, cart);
+			dirtyUsers.remove(userId);
+			return;
+		}
+	}
+
+	private boolean evictIfClean(SessionCart cart) {
+		synchronized (cart) {
+			if (cart.dirty || cart.flushing || cart.sweeping)
+				return false;
+			cart.evicted = true;
+		}
+		carts.remove(cart.userId, cart);
+		return true;
+	}
+
+	private void evictIdle() {
+		long cutoff = System.currentTimeMillis() - idleMillis;
+		int evicted = 0;
+		for (SessionCart cart : carts.values()) {
+			if (cart.lastAccess < cutoff && evictIfClean(cart))
+				evicted++;
+		}
+		if (evicted > 0)
+			log.info("Evicted {} idle carts, {} remain in memory", evicted, carts.size());
+	}
+
+	// Trims to 90% of the limit so the scan is not repeated on every load
+	private void evictOldest() {
+		List<SessionCart> byAge = new ArrayList<>(carts.values());
+		byAge.sort(Comparator.comparingLong(c -> c.lastAccess));
+		int target = maxCarts - maxCarts / 10;
+		for (SessionCart cart : byAge) {
+			if (carts.size() <= target)
+				break;
+			evictIfClean(cart);
+		}
+	}
+
+	private static void validateItemId(Long cartItemId) {
+		if (cartItemId == null) {
+			log.error("Cart item ID is null");
+			throw new BadRequestException("Cart item ID is required");
+		}
+		if (cartItemId == 0) {
+			log.error("Invalid cart item ID: {}", cartItemId);
+			throw new BadRequestException("Invalid cart item ID");
+		}
+	}
+
+	// Negative ids only ever name unflushed lines of a cart still in memory
+	private static void requireStoredItemId(Long cartItemId) {
+		if (cartItemId < 0) {
+			log.error("Cart item not found: {}", cartItemId);
+			throw new ResourceNotFoundException("Cart item not found with ID: " + cartItemId);
+		}
+	}
+
+	private static CartItem row(Long cartId, FlushedLine f) {
+		CartItem row = new CartItem();
+		row.setCartId(cartId);
+		row.setProductId(f.line.item.getProductId());
+		row.setQuantity(f.quantity);
+		row.setPriceAtAdd(f.line.item.getPriceAtAdd());
+		return row;
+	}
+
+	private static String lineKey(Long cartId, Long productId) {
+		return cartId + ":" + productId;
+	}
+
+	private static CartItem copy(CartItem item) {
+		CartItem c = new CartItem();
+		c.setId(item.getId());
+		c.setCartId(item.getCartId());
+		c.setProductId(item.getProductId());
+		c.setQuantity(item.getQuantity());
+		c.setPriceAtAdd(item.getPriceAtAdd());
+		c.setProductName(item.getProductName());
+		c.setCurrentPrice(item.getCurrentPrice());
+		c.setShopId(item.getShopId());
+		c.setShopName(item.getShopName());
+		c.setImagePath(item.getImagePath());
+		return c;
+	}
+
+	// All fields below are guarded by the SessionCart's monitor, except lastAccess
+	private static final class SessionCart {
+
+		final Long userId;
+		final Long cartId;
+		final boolean placeholder;
+		final Map<Long, Line> lines = new LinkedHashMap<>();
+		final List<Long> removedIds = new ArrayList<>();
+		boolean dirty;
+		boolean flushing;
+		boolean sweeping;
+		boolean evicted;
+		int failedFlushes;
+		volatile long lastAccess = System.currentTimeMillis();
+
+		// Stands in for a cart that is being swept
+		SessionCart(Long userId, Long cartId) {
+			this.userId = userId;
+			this.cartId = cartId;
+			this.placeholder = true;
+			this.sweeping = true;
+		}
+
+		SessionCart(Long userId, Long cartId, List<CartItem> stored) {
+			this.userId = userId;
+			this.cartId = cartId;
+			this.placeholder = false;
+			for (CartItem item : stored) {
+				Line line = new Line(item, 0);
+				line.rowId = item.getId();
+				line.storedQuantity = item.getQuantity();
+				lines.put(item.getProductId(), line);
+			}
+		}
+
+		// Waits out a flush or sweep of this cart running on another thread; the caller holds the monitor
+		void awaitIdle() {
+			boolean interrupted = false;
+			while (flushing || sweeping) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+
+		Line add(ProductAvailability product, int quantity, long placeholderId) {
+			CartItem item = new CartItem();
+			item.setId(placeholderId);
+			item.setCartId(cartId);
+			item.setProductId(product.getProductId());
+			item.setQuantity(quantity);
+			item.setPriceAtAdd(product.getCurrentPrice());
+			item.setProductName(product.getName());
+			item.setCurrentPrice(product.getCurrentPrice());
+			item.setShopId(product.getShopId());
+			item.setShopName(product.getShopName());
+			item.setImagePath(product.getPrimaryImage());
+
+			Line line = new Line(item, placeholderId);
+			lines.put(product.getProductId(), line);
+			return line;
+		}
+
+		Line find(Long cartItemId) {
+			for (Line line : lines.values()) {
+				if (cartItemId.equals(line.rowId) || cartItemId == line.placeholderId)
+					return line;
+			}
+			return null;
+		}
+
+		void remove(Line line) {
+			lines.remove(line.item.getProductId());
+			if (line.rowId != null)
+				removedIds.add(line.rowId);
+		}
+
+		PendingFlush startFlush() {
+			PendingFlush pending = new PendingFlush(this, new ArrayList<>(removedIds));
+			for (Line line : lines.values()) {
+				int quantity = line.item.getQuantity();
+				if (line.storedQuantity == null)
+					pending.inserts.add(new FlushedLine(line, quantity));
+				else if (line.storedQuantity != quantity)
+					pending.updates.add(new FlushedLine(line, quantity));
+			}
+			removedIds.clear();
+			dirty = false;
+			flushing = true;
+			return pending;
+		}
+	}
+
+	private static final class Line {
+
+		final CartItem item;
+		final long placeholderId;
+		Long rowId;
+		Integer storedQuantity;
+
+		Line(CartItem item, long placeholderId) {
+			this.item = item;
+			this.placeholderId = placeholderId;
+		}
+	}
+
+	private record FlushedLine(Line line, int quantity) {
+	}
+
+	private static final class PendingFlush {
+
+		final SessionCart cart;
+		final List<Long> removedIds;
+		final List<FlushedLine> inserts = new ArrayList<>();
+		final List<FlushedLine> updates = new ArrayList<>();
+
+		PendingFlush(SessionCart cart, List<Long> removedIds) {
+			this.cart = cart;
+			this.removedIds = removedIds;
+		}
+
+		// Returns true when edits made during the flush left the cart dirty again
+		boolean stored(Map<String, Long> insertedIds) {
+			synchronized (cart) {
+				cart.flushing = false;
+				cart.failedFlushes = 0;
+				cart.notifyAll();
+				for (FlushedLine f : inserts) {
+					Long rowId = insertedIds.get(lineKey(cart.cartId, f.line.item.getProductId()));
+					f.line.rowId = rowId;
+					f.line.storedQuantity = f.quantity;
+					f.line.item.setId(rowId);
+					// Removed while its insert was in flight
+					if (cart.lines.get(f.line.item.getProductId()) != f.line && rowId != null) {
+						cart.removedIds.add(rowId);
+						cart.dirty = true;
+					}
+				}
+				for (FlushedLine f : updates) {
+					f.line.storedQuantity = f.quantity;
+				}
+				return cart.dirty;
+			}
+		}
+
+		// Returns how many flushes of the cart have now failed in a row
+		int failed() {
+			synchronized (cart) {
+				cart.flushing = false;
+				cart.notifyAll();
+				cart.removedIds.addAll(removedIds);
+				cart.dirty = true;
+				return ++cart.failedFlushes;
+			}
+		}
+	}
+}
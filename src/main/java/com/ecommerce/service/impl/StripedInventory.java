@@ -0,0 +1,328 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.Inventory;
+import com.ecommerce.model.InventoryStripe;
+import com.ecommerce.repository.InventoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Opt-in striping for flash-sale products. A striped product's stock is
+ * split across N inventory_stripes rows, so concurrent checkouts lock
+ * different rows instead of queueing on its single inventory row. The
+ * inventory row stays part of the pool, so stock written there by a node
+ * that has not yet seen the product become striped still counts, and
+ * totals are the sums over all of its rows.
+ *
+ * A product's rows are always locked in one order: the inventory row, then
+ * stripes by index. A reservation reads the stripes to find those that can
+ * take the whole amount and tries each of them once, from a random one and
+ * wrapping around. Checkout runs under READ COMMITTED, where the read sees
+ * committed stock and an update that matches no row keeps no lock, so a
+ * failed try holds nothing and the pool can still be locked in order
+ * afterwards: when no single stripe takes the amount, it is split across the
+ * inventory row and stripes. Under REPEATABLE READ a failed update keeps its
+ * lock until commit, so there the tries run upward only and never fall back.
+ *
+ * Which products are striped is cached per node and reloaded on a timer;
+ * callers recheck a product after a failure.
+ */
+@Component
+public class StripedInventory {
+
+	private static final Logger log = LoggerFactory.getLogger(StripedInventory.class);
+
+	static final int MAX_STRIPES = 64;
+
+	private final InventoryRepository inventoryRepo;
+
+	private volatile Map<Long, Integer> stripeCounts = Map.of();
+
+	public StripedInventory(InventoryRepository inventoryRepo) {
+		this.inventoryRepo = inventoryRepo;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		refresh();
+	}
+
+	@Scheduled(initialDelayString = "${inventory.stripes.refresh-interval-ms:10000}", fixedDelayString = "${inventory.stripes.refresh-interval-ms:10000}")
+	public synchronized void refresh() {
+		try {
+			stripeCounts = Map.copyOf(inventoryRepo.findStripeCounts());
+		} catch (Exception e) {
+			log.error("Striped product reload failed, keeping previous set: {}", e.getMessage());
+		}
+	}
+
+	public boolean isStriped(Long productId) {
+		return stripeCounts.containsKey(productId);
+	}
+
+	// Re-reads one product's stripe count; true if this node had it wrong
+	public boolean recheck(Long productId) {
+		int count = inventoryRepo.countStripes(productId);
+		if (stripeCounts.getOrDefault(productId, 0) == count)
+			return false;
+		setStripeCount(productId, count);
+		return true;
+	}
+
+	// Sums the inventory row and all stripes; works whether or not the product is striped
+	public Inventory totals(Long productId) {
+		Inventory total = new Inventory();
+		total.setProductId(productId);
+		total.setQuantity(0);
+		total.setReserved(0);
+		inventoryRepo.findByProductId(productId).ifPresent(main -> {
+			total.setQuantity(main.getQuantity());
+			total.setReserved(main.getReserved());
+		});
+		for (InventoryStripe s : inventoryRepo.findStripes(productId)) {
+			total.setQuantity(total.getQuantity() + s.getQuantity());
+			total.setReserved(total.getReserved() + s.getReserved());
+		}
+		return total;
+	}
+
+	// Moves all stock of the product into count stripes; count 1 folds it back into the inventory row
+	@Transactional
+	public void restripe(Long productId, int count) {
+		Inventory main = inventoryRepo.lockByProductIds(List.of(productId)).get(productId);
+		if (main == null)
+			throw new BadRequestException("No inventory for product " + productId);
+
+		int quantity = main.getQuantity();
+		int reserved = main.getReserved();
+		for (InventoryStripe s : inventoryRepo.lockStripes(productId)) {
+			quantity += s.getQuantity();
+			reserved += s.getReserved();
+		}
+		inventoryRepo.deleteStripes(productId);
+
+		if (count <= 1) {
+			main.setQuantity(quantity);
+			main.setReserved(reserved);
+			inventoryRepo.update(main);
+			afterCommit(() -> setStripeCount(productId, 0));
+		} else {
+			main.setQuantity(0);
+			main.setReserved(0);
+			inventoryRepo.update(main);
+			inventoryRepo.createStripes(split(productId, quantity, reserved, count));
+			afterCommit(() -> setStripeCount(productId, count));
+		}
+		log.info("Product {} inventory now in {} stripe(s): quantity {}, reserved {}", productId, Math.max(count, 1),
+				quantity, reserved);
+	}
+
+	// Sets the total quantity, keeping what is reserved and spreading the rest evenly
+	@Transactional
+	public void setQuantity(Long productId, int quantity) {
+		Inventory main = inventoryRepo.lockByProductIds(List.of(productId)).get(productId);
+		List<InventoryStripe> stripes = inventoryRepo.lockStripes(productId);
+		if (main == null || stripes.isEmpty())
+			throw new BadRequestException("Product " + productId + " is not striped");
+
+		int reserved = main.getReserved();
+		for (InventoryStripe s : stripes) {
+			reserved += s.getReserved();
+		}
+		if (quantity < reserved)
+			throw new BadRequestException("Quantity cannot be less than the " + reserved + " units already reserved");
+
+		main.setQuantity(0);
+		main.setReserved(0);
+		inventoryRepo.update(main);
+		inventoryRepo.updateStripes(split(productId, quantity, reserved, stripes.size()));
+	}
+
+	@Transactional(isolation = Isolation.READ_COMMITTED)
+	public boolean reserve(Long productId, int quantity) {
+		return apply(productId, quantity, Op.RESERVE);
+	}
+
+	@Transactional(isolation = Isolation.READ_COMMITTED)
+	public boolean release(Long productId, int quantity) {
+		return apply(productId, quantity, Op.RELEASE);
+	}
+
+	@Transactional(isolation = Isolation.READ_COMMITTED)
+	public boolean consume(Long productId, int quantity) {
+		return apply(productId, quantity, Op.CONSUME);
+	}
+
+	@Transactional
+	public boolean decrease(Long productId, int quantity) {
+		return spill(productId, quantity, Op.DECREASE);
+	}
+
+	@Transactional
+	public boolean add(Long productId, int quantity) {
+		List<InventoryStripe> stripes = inventoryRepo.lockStripes(productId);
+		if (stripes.isEmpty())
+			return inventoryRepo.increaseStock(productId, quantity);
+
+		for (int i = 0; i < stripes.size(); i++) {
+			InventoryStripe s = stripes.get(i);
+			s.setQuantity(s.getQuantity() + share(quantity, stripes.size(), i));
+		}
+		inventoryRepo.updateStripes(stripes);
+		return true;
+	}
+
+	private boolean apply(Long productId, int quantity, Op op) {
+		if (stripeCounts.containsKey(productId)) {
+			List<Integer> candidates = new ArrayList<>();
+			for (InventoryStripe s : inventoryRepo.findStripes(productId)) {
+				if (op.capacity(s.getQuantity(), s.getReserved()) >= quantity)
+					candidates.add(s.getStripe());
+			}
+			if (!candidates.isEmpty()) {
+				boolean keepsLocks = failedUpdatesKeepLocks();
+				int start = ThreadLocalRandom.current().nextInt(candidates.size());
+				// Held locks only ever go upward, so wrap around only when failed tries hold none
+				int end = keepsLocks ? candidates.size() : start + candidates.size();
+				for (int i = start; i < end; i++) {
+					if (tryStripe(productId, candidates.get(i % candidates.size()), quantity, op))
+						return true;
+				}
+				if (keepsLocks) {
+					// The pool lock would come after the stripes just tried, out of order
+					log.warn("Lost the race on every stripe tried for product {} ({} {}) under REPEATABLE READ",
+							productId, op, quantity);
+					return false;
+				}
+			}
+		}
+		return spill(productId, quantity, op);
+	}
+
+	// Under REPEATABLE READ InnoDB keeps the lock of a row an UPDATE examined but did not change
+	private static boolean failedUpdatesKeepLocks() {
+		if (!TransactionSynchronizationManager.isActualTransactionActive())
+			return false;
+		Integer level = TransactionSynchronizationManager.getCurrentTransactionIsolationLevel();
+		return level == null || level != Connection.TRANSACTION_READ_COMMITTED;
+	}
+
+	private boolean tryStripe(Long productId, int stripe, int quantity, Op op) {
+		return switch (op) {
+		case RESERVE -> inventoryRepo.reserveOnStripe(productId, stripe, quantity);
+		case RELEASE -> inventoryRepo.releaseOnStripe(productId, stripe, quantity);
+		case CONSUME -> inventoryRepo.consumeOnStripe(productId, stripe, quantity);
+		case DECREASE -> false;
+		};
+	}
+
+	// Locks the whole pool and takes the amount from as many rows as it needs
+	private boolean spill(Long productId, int quantity, Op op) {
+		Inventory main = inventoryRepo.lockByProductIds(List.of(productId)).get(productId);
+		List<InventoryStripe> stripes = inventoryRepo.lockStripes(productId);
+
+		int capacity = main != null ? op.capacity(main.getQuantity(), main.getReserved()) : 0;
+		for (InventoryStripe s : stripes) {
+			capacity += op.capacity(s.getQuantity(), s.getReserved());
+		}
+		if (capacity < quantity)
+			return false;
+
+		int left = quantity;
+		List<InventoryStripe> changed = new ArrayList<>();
+		for (InventoryStripe s : stripes) {
+			int take = Math.min(left, op.capacity(s.getQuantity(), s.getReserved()));
+			if (take > 0) {
+				s.setQuantity(s.getQuantity() - op.quantityDelta(take));
+				s.setReserved(s.getReserved() + op.reservedDelta(take));
+				changed.add(s);
+				left -= take;
+			}
+		}
+		if (left > 0) {
+			main.setQuantity(main.getQuantity() - op.quantityDelta(left));
+			main.setReserved(main.getReserved() + op.reservedDelta(left));
+			inventoryRepo.update(main);
+		}
+		inventoryRepo.updateStripes(changed);
+		return true;
+	}
+
+	private synchronized void setStripeCount(Long productId, int count) {
+		Map<Long, Integer> next = new HashMap<>(stripeCounts);
+		if (count > 1)
+			next.put(productId, count);
+		else
+			next.remove(productId);
+		stripeCounts = Map.copyOf(next);
+	}
+
+	// Free and reserved stock are each spread evenly, so no stripe starts over-reserved
+	private static List<InventoryStripe> split(Long productId, int quantity, int reserved, int count) {
+		List<InventoryStripe> stripes = new ArrayList<>(count);
+		int free = Math.max(quantity - reserved, 0);
+		for (int i = 0; i < count; i++) {
+			int r = share(reserved, count, i);
+			stripes.add(new InventoryStripe(productId, i, share(free, count, i) + r, r));
+		}
+		return stripes;
+	}
+
+	private static int share(int total, int count, int index) {
+		return total / count + (index < total % count ? 1 : 0);
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+
+	private enum Op {
+		RESERVE, RELEASE, CONSUME, DECREASE;
+
+		// How much of this op one row can absorb
+		int capacity(int quantity, int reserved) {
+			return switch (this) {
+			case RESERVE, DECREASE -> Math.max(quantity - reserved, 0);
+			case RELEASE -> reserved;
+			case CONSUME -> Math.min(quantity, reserved);
+			};
+		}
+
+		int quantityDelta(int amount) {
+			return this == CONSUME || this == DECREASE ? amount : 0;
+		}
+
+		int reservedDelta(int amount) {
+			return switch (this) {
+			case RESERVE -> amount;
+			case RELEASE, CONSUME -> -amount;
+			case DECREASE -> 0;
+			};
+		}
+	}
+}
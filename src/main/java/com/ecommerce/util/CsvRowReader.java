@@ -0,0 +1,98 @@
+package com.ecommerce.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Forward-only RFC 4180 reader: quoted fields, doubled quotes and line breaks
+ * inside quotes are supported. Only the current record is held in memory, so
+ * arbitrarily large uploads can be streamed straight from the request body.
+ */
+public class CsvRowReader {
+
+	private final Reader in;
+	private final char[] buf = new char[8192];
+	private int pos;
+	private int len;
+	private boolean started;
+	private long lineNumber;
+
+	public CsvRowReader(Reader in) {
+		this.in = in;
+	}
+
+	// Line on which the last returned record ended (1-based)
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	public List<String> next() throws IOException {
+		int c = read();
+		if (!started) {
+			started = true;
+			if (c == '\uFEFF')
+				c = read();
+		}
+		if (c == -1)
+			return null;
+
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		boolean fieldWasQuoted = false;
+
+		while (true) {
+			if (quoted) {
+				if (c == -1)
+					throw new IOException("Unterminated quoted field near line " + (lineNumber + 1));
+				if (c == '"') {
+					int peek = read();
+					if (peek == '"') {
+						field.append('"');
+					} else {
+						quoted = false;
+						c = peek;
+						continue;
+					}
+				} else {
+					if (c == '\n')
+						lineNumber++;
+					field.append((char) c);
+				}
+			} else if (c == '"' && field.length() == 0 && !fieldWasQuoted) {
+				quoted = true;
+				fieldWasQuoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+				fieldWasQuoted = false;
+			} else if (c == '\r' || c == '\n' || c == -1) {
+				if (c == '\r') {
+					int peek = read();
+					if (peek != '\n' && peek != -1)
+						pos--;
+				}
+				fields.add(field.toString());
+				lineNumber++;
+				return fields;
+			} else {
+				field.append((char) c);
+			}
+			c = read();
+		}
+	}
+
+	private int read() throws IOException {
+		if (pos == len) {
+			len = in.read(buf, 0, buf.length);
+			pos = 0;
+			if (len <= 0) {
+				len = 0;
+				return -1;
+			}
+		}
+		return buf[pos++];
+	}
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.util;
+
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/*
+ * Conditional GET support for catalog reads. The ETag is built from the
+ * resource's last-modified timestamp, so controllers can answer 304 before
+ * loading or mapping anything.
+ */
+public final class HttpCaching {
+
+	private HttpCaching() {
+	}
+
+	// Sets ETag / Last-Modified on the response; true means a 304 has been prepared
+	public static boolean notModified(WebRequest request, String scope, LocalDateTime lastModified) {
+		if (lastModified == null)
+			return false;
+
+		long millis = lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		String etag = "\"" + scope + "-" + Long.toString(millis, 36) + "\"";
+		return request.checkNotModified(etag, millis);
+	}
+}
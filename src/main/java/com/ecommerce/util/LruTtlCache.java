@@ -0,0 +1,125 @@
+package com.ecommerce.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+ * Small bounded cache: least recently used entries are evicted once maxSize is
+ * reached and every entry expires ttlMillis after it was written. Counters are
+ * kept for hits, misses, size evictions and expirations.
+ *
+ * Read-through callers take a stamp() before loading and store the result with
+ * putIfUnchanged(), which drops it if the key was invalidated in between, so a
+ * slow reader cannot put back a row that a writer has just replaced. Stamps
+ * are kept per stripe of keys, so an unrelated invalidation can occasionally
+ * cost a put but never lets a stale one through.
+ */
+public class LruTtlCache<K, V> {
+
+	private static final int STRIPES = 64;
+
+	private final int maxSize;
+	private final long ttlMillis;
+	private final LongSupplier clock;
+	private final LinkedHashMap<K, Entry<V>> map;
+	private final long[] generations = new long[STRIPES];
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong expirations = new AtomicLong();
+
+	public LruTtlCache(int maxSize, long ttlMillis) {
+		this(maxSize, ttlMillis, System::currentTimeMillis);
+	}
+
+	public LruTtlCache(int maxSize, long ttlMillis, LongSupplier clock) {
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+		this.clock = clock;
+		this.map = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true);
+	}
+
+	public synchronized V get(K key) {
+		Entry<V> entry = map.get(key);
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		if (entry.expiresAt <= clock.getAsLong()) {
+			map.remove(key);
+			expirations.incrementAndGet();
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.value;
+	}
+
+	public synchronized void put(K key, V value) {
+		if (maxSize <= 0)
+			return;
+
+		map.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+		if (map.size() > maxSize) {
+			Iterator<K> eldest = map.keySet().iterator();
+			eldest.next();
+			eldest.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	public synchronized long stamp(K key) {
+		return generations[stripe(key)];
+	}
+
+	// Returns false, storing nothing, when the key was invalidated after the stamp was taken
+	public synchronized boolean putIfUnchanged(K key, V value, long stamp) {
+		if (generations[stripe(key)] != stamp)
+			return false;
+		put(key, value);
+		return true;
+	}
+
+	public synchronized void invalidate(K key) {
+		map.remove(key);
+		generations[stripe(key)]++;
+	}
+
+	public synchronized void invalidateAll() {
+		map.clear();
+		for (int i = 0; i < STRIPES; i++) {
+			generations[i]++;
+		}
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		long h = hits.get();
+		long m = misses.get();
+		stats.put("size", size());
+		stats.put("maxSize", maxSize);
+		stats.put("ttlMillis", ttlMillis);
+		stats.put("hits", h);
+		stats.put("misses", m);
+		stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+		stats.put("evictions", evictions.get());
+		stats.put("expirations", expirations.get());
+		return stats;
+	}
+
+	private static int stripe(Object key) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & (STRIPES - 1);
+	}
+
+	private record Entry<V>(V value, long expiresAt) {
+	}
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.util;
+
+import com.ecommerce.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * Opaque keyset pagination cursor: the sort it belongs to, the sort key of the
+ * last row returned and that row's id as a tie-breaker. Relevance listings put
+ * the next offset in the key instead. Clients only ever echo it back, so the
+ * encoding can change without breaking them.
+ */
+public final class PageCursor {
+
+	private final String sort;
+	private final String key;
+	private final long id;
+
+	public PageCursor(String sort, String key, long id) {
+		this.sort = sort;
+		this.key = key;
+		this.id = id;
+	}
+
+	public String getSort() {
+		return sort;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String encode() {
+		String raw = sort + "|" + key + "|" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static PageCursor decode(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] parts = raw.split("\\|", -1);
+			if (parts.length != 3)
+				throw new BadRequestException("Invalid cursor");
+			return new PageCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid cursor");
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.repository.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartRepositoryImplTest {
+
+	@Mock
+	private JdbcTemplate jdbc;
+
+	@InjectMocks
+	private CartRepositoryImpl repository;
+
+	@Test
+	void upsertCart_returnsTheFirstGeneratedKey() {
+
+		when(jdbc.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(inv -> {
+			KeyHolder keys = inv.getArgument(1);
+			keys.getKeyList().add(Map.of("GENERATED_KEY", 12L));
+			keys.getKeyList().add(Map.of("GENERATED_KEY", 13L));
+			return 2;
+		});
+
+		assertEquals(12L, repository.upsertCart(5L));
+		verify(jdbc, never()).queryForObject(anyString(), eq(Long.class), any(Object[].class));
+	}
+
+	@Test
+	void upsertCart_looksUpTheCartWhenNoKeyComesBack() {
+
+		when(jdbc.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenReturn(2);
+		when(jdbc.queryForObject("SELECT id FROM carts WHERE user_id = ?", Long.class, 5L)).thenReturn(12L);
+
+		assertEquals(12L, repository.upsertCart(5L));
+	}
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.repository.impl;
+
+import com.ecommerce.enums.ProductSort;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.ProductSearchCriteria;
+import com.ecommerce.model.ProductSummary;
+import com.ecommerce.repository.ProductChangeRepository;
+import com.ecommerce.repository.rowmapper.ProductSummaryRowMapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductRepositoryImplTest {
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private ProductChangeRepository changeRepository;
+
+	@InjectMocks
+	private ProductRepositoryImpl repository;
+
+	@Test
+	void searchAfter_seeksPastTheLastRowOfADescendingSort() {
+
+		Timestamp createdAt = Timestamp.valueOf(LocalDateTime.parse("2026-03-01T10:15:30"));
+
+		repository.searchAfter(new ProductSearchCriteria(null, Set.of(4L), null, null), ProductSort.NEWEST,
+				createdAt, 42L, 21);
+
+		Query query = captureQuery();
+		assertTrue(query.sql.contains(" AND (created_at < ? OR (created_at = ? AND id < ?))"), query.sql);
+		assertTrue(query.sql.endsWith(" ORDER BY created_at DESC, id DESC LIMIT ?"), query.sql);
+		assertArrayEquals(new Object[] { 4L, createdAt, createdAt, 42L, 21 }, query.params);
+	}
+
+	@Test
+	void searchAfter_seeksUpwardForAnAscendingSort() {
+
+		BigDecimal price = new BigDecimal("19.99");
+
+		repository.searchAfter(new ProductSearchCriteria(null, null, null, new BigDecimal("50")),
+				ProductSort.PRICE_ASC, price, 7L, 11);
+
+		Query query = captureQuery();
+		assertTrue(query.sql.contains(" AND (selling_price > ? OR (selling_price = ? AND id > ?))"), query.sql);
+		assertTrue(query.sql.endsWith(" ORDER BY selling_price ASC, id ASC LIMIT ?"), query.sql);
+		assertArrayEquals(new Object[] { new BigDecimal("50"), price, price, 7L, 11 }, query.params);
+	}
+
+	@Test
+	void searchAfter_firstPageHasNoSeekPredicate() {
+
+		repository.searchAfter(new ProductSearchCriteria(), ProductSort.RATING, null, null, 21);
+
+		Query query = captureQuery();
+		assertFalse(query.sql.contains(" id <"), query.sql);
+		assertTrue(query.sql.endsWith(" ORDER BY avg_rating DESC, id DESC LIMIT ?"), query.sql);
+		assertArrayEquals(new Object[] { 21 }, query.params);
+	}
+
+	@Test
+	void cursorKey_roundTripsThroughTheSortColumn() {
+
+		ProductSummary last = new ProductSummary();
+		last.setCreatedAt(LocalDateTime.parse("2026-03-01T10:15:30.250"));
+		last.setSellingPrice(19.99);
+		last.setPopularity(1234L);
+
+		assertEquals(Timestamp.valueOf(last.getCreatedAt()),
+				ProductSort.NEWEST.parseKey(ProductSort.NEWEST.keyOf(last)));
+		assertEquals(new BigDecimal("19.99"), ProductSort.PRICE_DESC.parseKey(ProductSort.PRICE_DESC.keyOf(last)));
+		assertEquals(1234L, ProductSort.POPULARITY.parseKey(ProductSort.POPULARITY.keyOf(last)));
+		assertThrows(BadRequestException.class, () -> ProductSort.NEWEST.parseKey("19.99"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void streamAll_cancelsTheQueryBeforeClosingWhenTheConsumerFails() throws Exception {
+
+		PreparedStatement ps = mock(PreparedStatement.class);
+		ResultSet rs = mock(ResultSet.class);
+		when(ps.executeQuery()).thenReturn(rs);
+		when(rs.next()).thenReturn(true);
+		when(jdbcTemplate.execute(any(PreparedStatementCreator.class), any(PreparedStatementCallback.class)))
+				.thenAnswer(inv -> inv.<PreparedStatementCallback<?>>getArgument(1).doInPreparedStatement(ps));
+
+		UncheckedIOException broken = new UncheckedIOException(new IOException("Broken pipe"));
+		assertSame(broken, assertThrows(UncheckedIOException.class,
+				() -> repository.streamAll(null, true, p -> { throw broken; })));
+
+		InOrder order = inOrder(ps, rs);
+		order.verify(ps).cancel();
+		order.verify(rs).close();
+	}
+
+	private Query captureQuery() {
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<Object[]> params = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate).query(sql.capture(), any(ProductSummaryRowMapper.class), params.capture());
+		return new Query(sql.getValue(), params.getValue());
+	}
+
+	private record Query(String sql, Object[] params) {
+	}
+}
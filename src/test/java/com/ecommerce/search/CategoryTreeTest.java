@@ -0,0 +1,109 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.CategoryResponse;
+import com.ecommerce.dto.CategoryTreeNode;
+import com.ecommerce.model.Category;
+import com.ecommerce.repository.CategoryRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryTreeTest {
+
+	private static final LocalDateTime CATEGORIES_MODIFIED = LocalDateTime.of(2024, 5, 1, 10, 0);
+	private static final LocalDateTime PRODUCTS_MODIFIED = LocalDateTime.of(2024, 5, 2, 9, 30);
+
+	@Mock
+	private CategoryRepository categoryRepository;
+
+	@InjectMocks
+	private CategoryTree tree;
+
+	@BeforeEach
+	void setup() {
+		// Clothing > Men > Shirts, Clothing > Women; Toys has an inactive parent and is unreachable
+		when(categoryRepository.findAllActive()).thenReturn(List.of(
+				category(1L, null, "Clothing"),
+				category(2L, 1L, "Men"),
+				category(3L, 2L, "Shirts"),
+				category(4L, 1L, "Women"),
+				category(5L, 99L, "Toys")));
+		when(categoryRepository.countActiveProductsByCategory()).thenReturn(Map.of(1L, 1L, 2L, 2L, 3L, 4L, 4L, 8L));
+		when(categoryRepository.findLastModified()).thenReturn(CATEGORIES_MODIFIED);
+		when(categoryRepository.findProductsLastModified()).thenReturn(PRODUCTS_MODIFIED);
+		tree.rebuild();
+	}
+
+	@Test
+	void rebuild_nestsChildrenByNameAndDropsUnreachableCategories() {
+
+		List<CategoryTreeNode> roots = tree.getRoots();
+
+		assertEquals(1, roots.size());
+		CategoryTreeNode clothing = roots.get(0);
+		assertEquals(List.of("Men", "Women"), clothing.getChildren().stream().map(CategoryTreeNode::getName).toList());
+		assertEquals("Shirts", clothing.getChildren().get(0).getChildren().get(0).getName());
+		assertFalse(tree.contains(5L));
+	}
+
+	@Test
+	void rebuild_sumsProductCountsOverEachSubtree() {
+
+		CategoryTreeNode clothing = tree.getRoots().get(0);
+		CategoryTreeNode men = clothing.getChildren().get(0);
+
+		assertEquals(1, clothing.getProductCount());
+		assertEquals(15, clothing.getSubtreeProductCount());
+		assertEquals(6, men.getSubtreeProductCount());
+		assertEquals(Set.of(1L, 2L, 3L, 4L), tree.subtreeIds(1L));
+		assertEquals(Set.of(2L, 3L), tree.subtreeIds(2L));
+		assertEquals(Set.of(42L), tree.subtreeIds(42L));
+	}
+
+	@Test
+	void breadcrumbs_runFromRootToTheCategory() {
+
+		List<CategoryResponse> trail = tree.breadcrumbs(3L);
+
+		assertEquals(List.of(1L, 2L, 3L), trail.stream().map(CategoryResponse::getId).toList());
+		assertTrue(tree.breadcrumbs(5L).isEmpty());
+	}
+
+	@Test
+	void lastModified_comesFromTheRowsTheSnapshotWasBuiltFrom() {
+
+		assertEquals(CATEGORIES_MODIFIED, tree.getCategoriesLastModified());
+		assertEquals(PRODUCTS_MODIFIED, tree.getLastModified());
+
+		// Read before the rows, so a change landing mid-build moves the validator on the next rebuild
+		InOrder order = inOrder(categoryRepository);
+		order.verify(categoryRepository).findLastModified();
+		order.verify(categoryRepository).findProductsLastModified();
+		order.verify(categoryRepository).findAllActive();
+	}
+
+	private static Category category(Long id, Long parentId, String name) {
+		Category c = new Category();
+		c.setId(id);
+		c.setParentCategoryId(parentId);
+		c.setName(name);
+		c.setSlug(name.toLowerCase());
+		c.setIsActive(true);
+		return c;
+	}
+}
@@ -0,0 +1,147 @@
+package com.ecommerce.search;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.InventoryRepository;
+import com.ecommerce.repository.ProductRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductFacetIndexTest {
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@Mock
+	private InventoryRepository inventoryRepository;
+
+	@InjectMocks
+	private ProductFacetIndex index;
+
+	@BeforeEach
+	void setup() {
+		when(productRepository.findAllActive()).thenReturn(List.of(
+				product(1L, 2L, 1L, 499.0),
+				product(2L, 3L, 1L, 1499.0),
+				product(3L, 3L, 2L, 799.0),
+				product(4L, 3L, 2L, 12000.0)));
+		when(inventoryRepository.findInStockProductIds()).thenReturn(List.of(1L, 3L));
+		index.rebuild();
+	}
+
+	@Test
+	void query_intersectsFiltersAndReturnsNewestFirst() {
+
+		ProductFacetIndex.Result result = index.query(null, List.of(3L), null, null, null, 10, 0);
+
+		assertEquals(3, result.getTotal());
+		assertEquals(List.of(4L, 3L, 2L), result.getProductIds());
+	}
+
+	@Test
+	void query_countsEachFacetWithoutItsOwnFilter() {
+
+		ProductFacetIndex.Result result = index.query(null, List.of(3L), List.of(2L), null, true, 10, 0);
+
+		assertEquals(List.of(3L), result.getProductIds());
+		assertEquals(1L, result.getCategoryCounts().get(3L));
+		assertNull(result.getCategoryCounts().get(2L));
+		assertEquals(1L, result.getShopCounts().get(2L));
+		assertNull(result.getShopCounts().get(1L));
+		assertEquals(1L, result.getInStockCount());
+		assertEquals(1L, result.getOutOfStockCount());
+		assertEquals(1L, result.getPriceBandCounts().get("500-1000"));
+	}
+
+	@Test
+	void query_restrictsToTextMatchesAndTracksUpdates() {
+
+		index.updateStock(2L, true);
+		index.remove(3L);
+
+		ProductFacetIndex.Result result = index.query(new long[] { 1L, 3L, 2L }, null, null, null, true, 10, 0);
+
+		assertEquals(List.of(2L, 1L), result.getProductIds());
+		assertEquals(2, result.getTotal());
+	}
+
+	@Test
+	void query_ordersByCreatedAtRatherThanId() {
+
+		Product backfilled = product(5L, 3L, 1L, 99.0);
+		backfilled.setCreatedAt(LocalDateTime.of(2020, 1, 1, 0, 0));
+		index.index(backfilled);
+
+		ProductFacetIndex.Result firstPage = index.query(null, List.of(3L), null, null, null, 2, 0);
+		ProductFacetIndex.Result secondPage = index.query(null, List.of(3L), null, null, null, 2, 2);
+
+		assertEquals(List.of(4L, 3L), firstPage.getProductIds());
+		assertEquals(List.of(2L, 5L), secondPage.getProductIds());
+	}
+
+	@Test
+	void query_pagesMatchAFullSortAfterRedatingAndReactivating() {
+
+		Random random = new Random(42);
+		Map<Long, Product> products = new HashMap<>();
+		for (long id = 1; id <= 2000; id++) {
+			Product p = product(id, 10L + random.nextInt(3), 1L, 100.0);
+			// Plenty of ties on created_at, broken by id
+			p.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(random.nextInt(400)));
+			products.put(id, p);
+		}
+		when(productRepository.findAllActive()).thenReturn(List.copyOf(products.values()));
+		index.rebuild();
+
+		for (int i = 0; i < 3000; i++) {
+			long id = 1 + random.nextInt(2200);
+			Product p = products.computeIfAbsent(id, k -> product(k, 10L, 1L, 100.0));
+			switch (random.nextInt(3)) {
+			case 0 -> p.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(random.nextInt(400)));
+			case 1 -> p.setIsActive(!p.getIsActive());
+			default -> p.setCategoryId(10L + random.nextInt(3));
+			}
+			index.index(p);
+		}
+
+		List<Long> expected = products.values().stream()
+				.filter(p -> p.getIsActive() && p.getCategoryId() == 11L)
+				.sorted(Comparator.comparing(Product::getCreatedAt).thenComparing(Product::getId).reversed())
+				.map(Product::getId)
+				.toList();
+		for (int offset = 0; offset < expected.size() + 50; offset += 97) {
+			ProductFacetIndex.Result result = index.query(null, List.of(11L), null, null, null, 50, offset);
+			assertEquals(expected.size(), result.getTotal());
+			assertEquals(expected.subList(Math.min(offset, expected.size()), Math.min(offset + 50, expected.size())),
+					result.getProductIds(), "offset " + offset);
+		}
+	}
+
+	private Product product(Long id, Long categoryId, Long shopId, Double price) {
+		Product p = new Product();
+		p.setId(id);
+		p.setCategoryId(categoryId);
+		p.setShopId(shopId);
+		p.setName("Product " + id);
+		p.setSellingPrice(price);
+		p.setIsActive(true);
+		p.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(id));
+		return p;
+	}
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.search;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@InjectMocks
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	void setup() {
+		when(productRepository.findAllActive()).thenReturn(List.of(
+				product(1L, 2L, "TSHIRT001", "Women Yellow T-Shirt", "Comfort fit", "High-quality cotton"),
+				product(2L, 3L, "SHIRT002", "Men Formal Shirt", "Slim fit", "Cotton blend shirt for office"),
+				product(3L, 3L, "JEANS003", "Men Blue Jeans", "Regular fit", "Denim")));
+		index.rebuild();
+	}
+
+	@Test
+	void search_ranksNameMatchesAboveDescriptionMatches() {
+
+		ProductSearchIndex.Hits hits = index.search("shirt", null, 10, 0);
+
+		assertEquals(2, hits.getTotal());
+		assertEquals(List.of(2L, 1L), hits.getProductIds());
+	}
+
+	@Test
+	void search_filtersByCategory() {
+
+		ProductSearchIndex.Hits hits = index.search("cotton", Set.of(2L), 10, 0);
+
+		assertEquals(List.of(1L), hits.getProductIds());
+	}
+
+	@Test
+	void search_filtersByCategorySubtree() {
+
+		ProductSearchIndex.Hits hits = index.search("cotton", Set.of(2L, 3L), 10, 0);
+
+		assertEquals(2, hits.getTotal());
+	}
+
+	@Test
+	void search_expandsLastTermAsPrefix() {
+
+		ProductSearchIndex.Hits hits = index.search("jea", null, 10, 0);
+
+		assertEquals(List.of(3L), hits.getProductIds());
+	}
+
+	@Test
+	void matchIds_returnsEveryMatchWithoutRanking() {
+
+		assertEquals(Set.of(2L, 3L), ids(index.matchIds("men")));
+		assertEquals(Set.of(2L), ids(index.matchIds("men shirt")));
+		// Nothing has both terms, so either one will do
+		assertEquals(Set.of(1L, 3L), ids(index.matchIds("yellow jeans")));
+		assertEquals(0, index.matchIds("sandals").length);
+	}
+
+	@Test
+	void index_updatesAndRemovesIncrementally() {
+
+		index.index(product(4L, 3L, "POLO004", "Men Polo Shirt", null, null));
+		assertTrue(index.search("polo", null, 10, 0).getProductIds().contains(4L));
+
+		Product inactive = product(2L, 3L, "SHIRT002", "Men Formal Shirt", null, null);
+		inactive.setIsActive(false);
+		index.index(inactive);
+		index.remove(4L);
+
+		ProductSearchIndex.Hits hits = index.search("shirt", null, 10, 0);
+		assertEquals(List.of(1L), hits.getProductIds());
+	}
+
+	@Test
+	void index_compactsDeadOrdinalsUnderChurn() {
+
+		for (int i = 0; i < 5000; i++) {
+			index.index(product(1L, 2L, "TSHIRT001", "Women Yellow T-Shirt " + (i % 7), "Comfort fit", null));
+		}
+
+		assertTrue(index.ordinalCount() < 2000, "ordinals: " + index.ordinalCount());
+		ProductSearchIndex.Hits hits = index.search("shirt", null, 10, 0);
+		assertEquals(List.of(2L, 1L), hits.getProductIds());
+		assertEquals(List.of(3L), index.search("denim", null, 10, 0).getProductIds());
+	}
+
+	private static Set<Long> ids(long[] ids) {
+		return Arrays.stream(ids).boxed().collect(Collectors.toSet());
+	}
+
+	private Product product(Long id, Long categoryId, String sku, String name, String shortDescription,
+			String description) {
+		Product p = new Product();
+		p.setId(id);
+		p.setShopId(1L);
+		p.setCategoryId(categoryId);
+		p.setSku(sku);
+		p.setName(name);
+		p.setShortDescription(shortDescription);
+		p.setDescription(description);
+		p.setSellingPrice(499.0);
+		p.setIsActive(true);
+		return p;
+	}
+}
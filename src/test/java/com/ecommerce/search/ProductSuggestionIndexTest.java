@@ -0,0 +1,98 @@
+package com.ecommerce.search;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductPopularity;
+import com.ecommerce.repository.ProductRepository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSuggestionIndexTest {
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@InjectMocks
+	private ProductSuggestionIndex index;
+
+	@Test
+	void suggest_returnsNamesStartingWithThePrefix() {
+
+		build(popularity(1L, "Men Blue Jeans", 3, 0), popularity(2L, "Men Formal Shirt", 1, 0),
+				popularity(3L, "Women Yellow T-Shirt", 9, 0));
+
+		assertEquals(List.of("Men Blue Jeans", "Men Formal Shirt"), index.suggest("men", 10));
+		assertEquals(List.of("Men Formal Shirt"), index.suggest("MEN  F", 10));
+		assertEquals(List.of("Women Yellow T-Shirt"), index.suggest("wo", 10));
+		assertEquals(List.of(), index.suggest("kids", 10));
+		assertEquals(List.of(), index.suggest("  ", 10));
+	}
+
+	@Test
+	void suggest_ranksByWeightedScoreAndKeepsTheTopTen() {
+
+		List<ProductPopularity> rows = new ArrayList<>();
+		for (long id = 1; id <= 12; id++) {
+			rows.add(popularity(id, "Shirt " + (char) ('a' + id), 0, id));
+		}
+		// One unit ordered outweighs four views
+		rows.add(popularity(20L, "Shirt ordered", 3, 0));
+		build(rows.toArray(ProductPopularity[]::new));
+
+		List<String> names = index.suggest("shirt", 20);
+
+		assertEquals(10, names.size());
+		assertEquals("Shirt ordered", names.get(0));
+		assertEquals("Shirt m", names.get(1));
+		assertEquals("Shirt e", names.get(9));
+		assertEquals(List.of("Shirt ordered", "Shirt m", "Shirt l"), index.suggest("sh", 3));
+	}
+
+	@Test
+	void index_addsRenamesAndRemovesWithoutARebuild() {
+
+		build(popularity(1L, "Men Blue Jeans", 3, 0));
+
+		index.index(product(2L, "Men Black Jeans", true));
+		assertEquals(List.of("Men Blue Jeans", "Men Black Jeans"), index.suggest("men b", 10));
+
+		index.index(product(1L, "Denim Jacket", true));
+		assertEquals(List.of("Men Black Jeans"), index.suggest("men", 10));
+		assertEquals(List.of("Denim Jacket"), index.suggest("den", 10));
+
+		index.remove(2L);
+		assertEquals(List.of(), index.suggest("men", 10));
+
+		index.index(product(1L, "Denim Jacket", false));
+		assertEquals(List.of(), index.suggest("d", 10));
+	}
+
+	private void build(ProductPopularity... rows) {
+		when(productRepository.findActiveProductPopularity()).thenReturn(List.of(rows));
+		index.rebuild();
+		assertTrue(index.isReady());
+	}
+
+	private static ProductPopularity popularity(Long id, String name, long orderVolume, long views) {
+		return new ProductPopularity(id, name, orderVolume, views);
+	}
+
+	private static Product product(Long id, String name, boolean active) {
+		Product p = new Product();
+		p.setId(id);
+		p.setName(name);
+		p.setIsActive(active);
+		return p;
+	}
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.search;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductTrigramIndexTest {
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@InjectMocks
+	private ProductTrigramIndex index;
+
+	@BeforeEach
+	void setup() {
+		when(productRepository.findAllActive()).thenReturn(List.of(
+				product(1L, 5L, "IPH15-128", "Apple iPhone 15"),
+				product(2L, 6L, "SNK-RUN-01", "Running Sneakers"),
+				product(3L, 6L, "SNK-CAN-02", "Canvas Sneakers White"),
+				product(4L, 5L, "PHN-CASE", "Phone Case")));
+		index.rebuild();
+	}
+
+	@Test
+	void search_toleratesTranspositionsAndSubstitutions() {
+
+		assertEquals(List.of(1L), index.search("iphnoe", null, 10, 0).getProductIds());
+		assertEquals(List.of(3L, 2L), index.search("sneekers", null, 10, 0).getProductIds());
+	}
+
+	@Test
+	void search_ranksDocumentsMatchingMoreWordsFirst() {
+
+		ProductSearchIndex.Hits hits = index.search("canvs sneekers", null, 10, 0);
+
+		assertEquals(List.of(3L), hits.getProductIds());
+		assertEquals(List.of(3L), index.search("sneekers", Set.of(6L), 1, 0).getProductIds());
+	}
+
+	@Test
+	void search_matchesSkusAndDropsRemovedProducts() {
+
+		assertEquals(List.of(1L), index.search("iph15", null, 10, 0).getProductIds());
+
+		index.remove(1L);
+		assertTrue(index.search("iphnoe", null, 10, 0).getProductIds().isEmpty());
+	}
+
+	@Test
+	void index_compactsDeadOrdinalsUnderChurn() {
+
+		for (int i = 0; i < 5000; i++) {
+			index.index(product(4L, 5L, "PHN-CASE", "Phone Case " + i));
+		}
+
+		assertTrue(index.ordinalCount() < 2000, "ordinals: " + index.ordinalCount());
+		assertEquals(List.of(4L), index.search("phnoe case", null, 10, 0).getProductIds());
+		assertEquals(List.of(3L, 2L), index.search("sneekers", null, 10, 0).getProductIds());
+	}
+
+	@Test
+	void editDistance_countsAdjacentSwapAsOneEdit() {
+
+		assertEquals(1, ProductTrigramIndex.editDistance("iphnoe", "iphone", 2));
+		assertEquals(3, ProductTrigramIndex.editDistance("abc", "xyz", 2));
+	}
+
+	private Product product(Long id, Long categoryId, String sku, String name) {
+		Product p = new Product();
+		p.setId(id);
+		p.setShopId(1L);
+		p.setCategoryId(categoryId);
+		p.setSku(sku);
+		p.setName(name);
+		p.setSellingPrice(499.0);
+		p.setIsActive(true);
+		return p;
+	}
+}
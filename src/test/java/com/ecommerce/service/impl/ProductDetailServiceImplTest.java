@@ -0,0 +1,72 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.ProductDetailResponse;
+import com.ecommerce.dto.ProductResponse;
+import com.ecommerce.service.InventoryService;
+import com.ecommerce.service.ProductImageService;
+import com.ecommerce.service.ProductService;
+import com.ecommerce.service.ProductVariantService;
+import com.ecommerce.service.ReviewService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductDetailServiceImplTest {
+
+	@Mock
+	private ProductService productService;
+
+	@Mock
+	private ProductImageService productImageService;
+
+	@Mock
+	private ProductVariantService productVariantService;
+
+	@Mock
+	private InventoryService inventoryService;
+
+	@Mock
+	private ReviewService reviewService;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	private ProductDetailServiceImpl service;
+
+	@AfterEach
+	void shutdown() {
+		service.shutdown();
+	}
+
+	@Test
+	void getProductDetail_reportsFetchesThePoolRejectsAsUnavailable() {
+
+		// Asking for 16 threads against 2 connections leaves one thread with a one-slot queue
+		service = new ProductDetailServiceImpl(productService, productImageService, productVariantService,
+				inventoryService, reviewService, transactionManager, 16, 1, 1000, 5, 2);
+		when(productService.getProductById(7L)).thenAnswer(inv -> {
+			Thread.sleep(100);
+			return Optional.of(new ProductResponse());
+		});
+		when(productImageService.getImagesByProduct(7L)).thenReturn(List.of());
+
+		ProductDetailResponse resp = service.getProductDetail(7L).orElseThrow();
+
+		assertEquals(List.of("variants", "inventory", "rating", "reviews"), resp.getUnavailable());
+		assertEquals(List.of(), resp.getImages());
+		verifyNoInteractions(productVariantService, inventoryService, reviewService);
+	}
+}
@@ -0,0 +1,182 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.ProductImportError;
+import com.ecommerce.dto.ProductImportResponse;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Shop;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.InventoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ShopRepository;
+import com.ecommerce.search.ProductFacetIndex;
+import com.ecommerce.search.ProductSearchIndex;
+import com.ecommerce.search.ProductSuggestionIndex;
+import com.ecommerce.search.ProductTrigramIndex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceImplTest {
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@Mock
+	private InventoryRepository inventoryRepository;
+
+	@Mock
+	private CategoryRepository categoryRepository;
+
+	@Mock
+	private ShopRepository shopRepository;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private ProductSearchIndex searchIndex;
+
+	@Mock
+	private ProductSuggestionIndex suggestionIndex;
+
+	@Mock
+	private ProductFacetIndex facetIndex;
+
+	@Mock
+	private ProductTrigramIndex trigramIndex;
+
+	private ProductImportServiceImpl service;
+
+	@BeforeEach
+	void setup() {
+		service = new ProductImportServiceImpl(productRepository, inventoryRepository, categoryRepository,
+				shopRepository, transactionTemplate, new ObjectMapper(), searchIndex, suggestionIndex, facetIndex,
+				trigramIndex);
+
+		when(shopRepository.getShopById(7L)).thenReturn(Optional.of(new Shop()));
+		lenient().when(transactionTemplate.execute(any()))
+				.thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		lenient().when(productRepository.findExistingSkus(anyCollection())).thenReturn(Set.of());
+	}
+
+	@Test
+	void importCsv_writesValidRowsAndReportsTheRestByLine() {
+
+		when(productRepository.saveAll(anyList())).thenReturn(List.of(11L, 12L));
+
+		ProductImportResponse resp = service.importCsv(7L, stream("SKU,Name,Selling Price,Quantity,Description\n"
+				+ "A1,\"Shirt, \"\"slim\"\"\",499,3,\"first line\nsecond line\"\n"
+				+ "B1,Jeans,abc,1,\n"
+				+ "A1,Copy,10,,\n"
+				+ "C1,Cap,99,,\n"));
+
+		assertEquals(4, resp.getTotalRows());
+		assertEquals(2, resp.getImported());
+		assertEquals(2, resp.getFailed());
+		assertError(resp.getErrors().get(0), 4, "B1", "Invalid selling price: abc");
+		assertError(resp.getErrors().get(1), 5, "A1", "Duplicate SKU in file");
+
+		List<Product> saved = savedProducts();
+		assertEquals("Shirt, \"slim\"", saved.get(0).getName());
+		assertEquals("first line\nsecond line", saved.get(0).getDescription());
+		assertEquals(7L, saved.get(0).getShopId());
+		assertEquals("C1", saved.get(1).getSku());
+		verify(inventoryRepository).createInventories(Map.of(11L, 3, 12L, 0));
+		verify(facetIndex).updateStock(11L, true);
+		verify(facetIndex, never()).updateStock(eq(12L), anyBoolean());
+	}
+
+	@Test
+	void importCsv_skipsSkusTheDatabaseAlreadyHas() {
+
+		when(productRepository.findExistingSkus(anyCollection())).thenReturn(Set.of("A1"));
+		when(productRepository.saveAll(anyList())).thenReturn(List.of(21L));
+
+		ProductImportResponse resp = service.importCsv(7L, stream("""
+				sku,name,selling_price
+				A1,Shirt,10
+				B1,Jeans,20
+				"""));
+
+		assertEquals(1, resp.getImported());
+		assertError(resp.getErrors().get(0), 2, "A1", "SKU already exists");
+		assertEquals(List.of("B1"), savedProducts().stream().map(Product::getSku).toList());
+	}
+
+	@Test
+	void importCsv_reportsAnUnterminatedQuoteAndKeepsEarlierRows() {
+
+		when(productRepository.saveAll(anyList())).thenReturn(List.of(31L));
+
+		ProductImportResponse resp = service.importCsv(7L, stream("sku,name,sellingPrice\nA1,Shirt,10\nB1,\"Jeans,20\n"));
+
+		assertEquals(1, resp.getImported());
+		assertEquals(1, resp.getFailed());
+		assertTrue(resp.getErrors().get(0).getMessage().startsWith("Malformed CSV"));
+	}
+
+	@Test
+	void importNdjson_acceptsAnyKeySpellingAndReportsBadLines() {
+
+		when(productRepository.saveAll(anyList())).thenReturn(List.of(41L));
+
+		ProductImportResponse resp = service.importNdjson(7L, stream("""
+				{"sku":"N1","name":"Mug","sellingPrice":120,"quantity":4,"is_active":false}
+				{"sku":"N2","name":"Bowl","Selling Price":"x"}
+				{"sku":"N1","name":"Copy","selling_price":1}
+				{"sku":"N3","name":"Plate","selling_price":-5}
+				{"sku":
+				"""));
+
+		assertEquals(4, resp.getTotalRows());
+		assertEquals(1, resp.getImported());
+		assertEquals(4, resp.getFailed());
+		assertError(resp.getErrors().get(0), 2, "N2", "Invalid selling price: x");
+		assertError(resp.getErrors().get(1), 3, "N1", "Duplicate SKU in file");
+		assertError(resp.getErrors().get(2), 4, "N3", "Selling price cannot be negative");
+		assertTrue(resp.getErrors().get(3).getMessage().startsWith("Malformed JSON"));
+
+		Product mug = savedProducts().get(0);
+		assertEquals(120.0, mug.getSellingPrice());
+		assertFalse(mug.getIsActive());
+		verify(inventoryRepository).createInventories(Map.of(41L, 4));
+	}
+
+	private List<Product> savedProducts() {
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<Product>> captor = ArgumentCaptor.forClass(List.class);
+		verify(productRepository).saveAll(captor.capture());
+		return captor.getValue();
+	}
+
+	private static void assertError(ProductImportError error, long row, String sku, String message) {
+		assertEquals(row, error.getRow());
+		assertEquals(sku, error.getSku());
+		assertEquals(message, error.getMessage());
+	}
+
+	private static ByteArrayInputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
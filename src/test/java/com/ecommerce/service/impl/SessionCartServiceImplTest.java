@@ -0,0 +1,227 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.CartResponse;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.ProductAvailability;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.ProductRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionCartServiceImplTest {
+
+	@Mock
+	private CartServiceImpl delegate;
+
+	@Mock
+	private CartRepository cartRepository;
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	private SessionCartServiceImpl service;
+
+	private final Map<Long, ProductAvailability> catalog = new HashMap<>();
+
+	@BeforeEach
+	void setup() {
+		service = new SessionCartServiceImpl(delegate, cartRepository, productRepository, transactionManager, 100, 100,
+				60_000, 3);
+
+		catalog.put(100L, product(100L, "50.00", true));
+		catalog.put(200L, product(200L, "20.00", true));
+		lenient().when(productRepository.findAvailability(anyCollection())).thenAnswer(inv -> {
+			Map<Long, ProductAvailability> found = new HashMap<>();
+			for (Object id : (Collection<?>) inv.getArgument(0)) {
+				if (catalog.containsKey(id))
+					found.put((Long) id, catalog.get(id));
+			}
+			return found;
+		});
+		lenient().when(delegate.getOrCreateCart(anyLong()))
+				.thenAnswer(inv -> new Cart(inv.<Long>getArgument(0) * 10, inv.getArgument(0), null));
+		lenient().when(delegate.buildCartResponse(any(), anyList())).thenCallRealMethod();
+	}
+
+	@Test
+	void flushDirty_writesEveryDirtyCartInOneBatch() {
+
+		service.addToCart(1L, 100L, 2);
+		service.addToCart(2L, 200L, 1);
+
+		service.flushDirty();
+
+		verify(cartRepository, times(1)).upsertItems(argThat(rows -> rows.size() == 2));
+		verify(cartRepository, times(1)).touchCarts(argThat(ids -> Set.copyOf(ids).equals(Set.of(10L, 20L))));
+
+		// Nothing left to write on the next run
+		service.flushDirty();
+		verify(cartRepository, times(1)).upsertItems(anyList());
+	}
+
+	@Test
+	void flushDirty_retriesCartsOneByOneWhenTheBatchFails() {
+
+		service.addToCart(1L, 100L, 2);
+		service.addToCart(2L, 200L, 1);
+		failWritesForCart(20L);
+
+		service.flushDirty();
+
+		// The batch, then cart 10 and cart 20 on their own
+		verify(cartRepository, times(3)).upsertItems(anyList());
+		verify(cartRepository).touchCarts(argThat(ids -> List.copyOf(ids).equals(List.of(10L))));
+
+		// Only the failing cart is written again
+		service.flushDirty();
+		verify(cartRepository, times(4)).upsertItems(anyList());
+		verify(cartRepository, times(1)).touchCarts(argThat(ids -> List.copyOf(ids).equals(List.of(10L))));
+	}
+
+	@Test
+	void flushDirty_dropsCartAfterRepeatedFailuresAndReloadsIt() {
+
+		service.addToCart(2L, 200L, 1);
+		failWritesForCart(20L);
+
+		service.flushDirty();
+		service.flushDirty();
+		service.flushDirty();
+		service.flushDirty();
+
+		// Three attempts, then the cart is dropped and no longer retried
+		verify(cartRepository, times(3)).upsertItems(anyList());
+
+		service.getUserCart(2L);
+		verify(cartRepository, times(2)).findLinesByCartId(20L);
+	}
+
+	@Test
+	void flushCart_reportsFailureToTheCaller() {
+
+		service.addToCart(2L, 200L, 1);
+		failWritesForCart(20L);
+
+		assertThrows(DataIntegrityViolationException.class, () -> service.flushCart(2L));
+	}
+
+	@Test
+	void getCheckoutCart_writesPendingEditsBeforeReadingMySql() {
+
+		service.addToCart(1L, 100L, 2);
+		CartResponse stored = new CartResponse();
+		when(delegate.getUserCart(1L)).thenReturn(stored);
+
+		assertSame(stored, service.getCheckoutCart(1L));
+
+		InOrder order = inOrder(cartRepository, delegate);
+		order.verify(cartRepository).upsertItems(argThat(rows -> rows.size() == 1 && rows.get(0).getQuantity() == 2));
+		order.verify(delegate).getUserCart(1L);
+	}
+
+	@Test
+	void getUserCart_showsLivePricesAndHidesUnavailableProducts() {
+
+		when(cartRepository.findLinesByCartId(10L))
+				.thenReturn(List.of(line(1L, 10L, 100L, "40.00"), line(2L, 10L, 200L, "20.00")));
+		service.getUserCart(1L);
+
+		catalog.put(200L, product(200L, "20.00", false));
+		CartResponse response = service.getUserCart(1L);
+
+		assertEquals(1, response.getItems().size());
+		CartItem item = response.getItems().get(0);
+		assertEquals(100L, item.getProductId());
+		assertEquals(new BigDecimal("40.00"), item.getPriceAtAdd());
+		assertEquals(new BigDecimal("50.00"), item.getCurrentPrice());
+		verify(cartRepository, times(1)).findLinesByCartId(10L);
+	}
+
+	@Test
+	void sweepCarts_leavesCartsInUseAlone() {
+
+		service.getUserCart(1L);
+		List<Long> candidates = new ArrayList<>();
+
+		service.sweepCarts(Map.of(10L, 1L, 20L, 2L), cartIds -> {
+			candidates.addAll(cartIds);
+			return List.copyOf(cartIds);
+		});
+
+		assertEquals(List.of(20L), candidates);
+	}
+
+	@Test
+	void sweepCarts_holdsLoadsUntilTheDeleteIsDone() throws Exception {
+
+		Thread reader = new Thread(() -> service.getUserCart(2L));
+
+		service.sweepCarts(Map.of(20L, 2L), cartIds -> {
+			reader.start();
+			awaitWaiting(reader);
+			verify(delegate, never()).getOrCreateCart(2L);
+			return List.copyOf(cartIds);
+		});
+		reader.join(5000);
+
+		assertFalse(reader.isAlive());
+		verify(delegate).getOrCreateCart(2L);
+	}
+
+	private static void awaitWaiting(Thread thread) {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (thread.getState() != Thread.State.WAITING) {
+			assertTrue(System.currentTimeMillis() < deadline, "reader never blocked on the sweep");
+			Thread.onSpinWait();
+		}
+	}
+
+	private void failWritesForCart(Long cartId) {
+		doAnswer(inv -> {
+			List<CartItem> rows = inv.getArgument(0);
+			if (rows.stream().anyMatch(r -> r.getCartId().equals(cartId)))
+				throw new DataIntegrityViolationException("cart " + cartId + " is gone");
+			return null;
+		}).when(cartRepository).upsertItems(anyList());
+	}
+
+	private static ProductAvailability product(Long id, String price, boolean available) {
+		return new ProductAvailability(id, "Product " + id, 7L, "Shop", null, new BigDecimal(price), available);
+	}
+
+	private static CartItem line(Long id, Long cartId, Long productId, String priceAtAdd) {
+		CartItem item = new CartItem();
+		item.setId(id);
+		item.setCartId(cartId);
+		item.setProductId(productId);
+		item.setQuantity(1);
+		item.setPriceAtAdd(new BigDecimal(priceAtAdd));
+		return item;
+	}
+}
@@ -0,0 +1,165 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.model.Inventory;
+import com.ecommerce.repository.impl.InventoryRepositoryImpl;
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Checkout throughput on one hot product against a real MySQL, for 1 (the
+ * plain inventory row), 2, 4 and 8 stripes. Each simulated checkout reserves
+ * one unit under READ COMMITTED, as placeOrder does, and then holds its
+ * transaction open for a few milliseconds while it would write the orders.
+ * Opt-in: it only runs when pointed at a scratch database loaded from
+ * "Database Creation.sql":
+ *
+ *   mvn test -Dtest=StripedInventoryBenchmarkTest \
+ *       -Dinventory.benchmark.url=jdbc:mysql://localhost:3306/ecommerce_bench \
+ *       -Dinventory.benchmark.user=root -Dinventory.benchmark.password=...
+ *
+ * Reservations per second for each stripe count are logged. The product's
+ * stock is restored afterwards.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "inventory.benchmark.url", matches = ".+")
+class StripedInventoryBenchmarkTest {
+
+	private static final Logger log = LoggerFactory.getLogger(StripedInventoryBenchmarkTest.class);
+
+	private static final int THREADS = Integer.getInteger("inventory.benchmark.threads", 32);
+	private static final long RUN_MILLIS = Long.getLong("inventory.benchmark.run-ms", 5000);
+	private static final long HOLD_MILLIS = Long.getLong("inventory.benchmark.hold-ms", 2);
+	private static final Long PRODUCT_ID = Long.getLong("inventory.benchmark.product-id", 1L);
+	private static final int[] STRIPE_COUNTS = { 1, 2, 4, 8 };
+
+	private HikariDataSource dataSource;
+	private InventoryRepositoryImpl inventoryRepo;
+	private StripedInventory striped;
+	private TransactionTemplate tx;
+	private Inventory original;
+
+	@BeforeEach
+	void setup() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(System.getProperty("inventory.benchmark.url"));
+		dataSource.setUsername(System.getProperty("inventory.benchmark.user", "root"));
+		dataSource.setPassword(System.getProperty("inventory.benchmark.password", ""));
+		dataSource.setMaximumPoolSize(THREADS + 2);
+
+		inventoryRepo = new InventoryRepositoryImpl(new JdbcTemplate(dataSource));
+		striped = new StripedInventory(inventoryRepo);
+		tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		tx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+
+		tx.executeWithoutResult(s -> striped.restripe(PRODUCT_ID, 1));
+		original = inventoryRepo.findByProductId(PRODUCT_ID).orElseThrow();
+	}
+
+	@AfterEach
+	void restore() {
+		tx.executeWithoutResult(s -> {
+			striped.restripe(PRODUCT_ID, 1);
+			inventoryRepo.update(original);
+		});
+		dataSource.close();
+	}
+
+	@Test
+	void reserve_throughputGrowsWithStripeCount() throws Exception {
+
+		Map<Integer, Long> perSecond = new LinkedHashMap<>();
+		for (int stripes : STRIPE_COUNTS) {
+			tx.executeWithoutResult(s -> {
+				striped.restripe(PRODUCT_ID, 1);
+				Inventory stock = inventoryRepo.findByProductId(PRODUCT_ID).orElseThrow();
+				stock.setQuantity(10_000_000);
+				stock.setReserved(0);
+				inventoryRepo.update(stock);
+				striped.restripe(PRODUCT_ID, stripes);
+			});
+
+			long reserved = run(stripes);
+			perSecond.put(stripes, reserved * 1000 / RUN_MILLIS);
+			log.info("stripes={} threads={} hold={}ms: {} reservations/s", stripes, THREADS, HOLD_MILLIS,
+					perSecond.get(stripes));
+		}
+
+		assertTrue(perSecond.values().stream().allMatch(n -> n > 0));
+		assertTrue(perSecond.get(8) > perSecond.get(1), "8 stripes should beat the single row: " + perSecond);
+	}
+
+	private long run(int stripes) throws InterruptedException {
+		AtomicLong reserved = new AtomicLong();
+		AtomicLong lost = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		long deadline = System.currentTimeMillis() + RUN_MILLIS;
+
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			Thread t = new Thread(() -> {
+				try {
+					start.await();
+					while (System.currentTimeMillis() < deadline) {
+						try {
+							Boolean ok = tx.execute(s -> {
+								boolean done = stripes == 1 ? inventoryRepo.reserveStock(PRODUCT_ID, 1)
+										: striped.reserve(PRODUCT_ID, 1);
+								sleep(HOLD_MILLIS);
+								return done;
+							});
+							if (Boolean.TRUE.equals(ok))
+								reserved.incrementAndGet();
+							else
+								lost.incrementAndGet();
+						} catch (RuntimeException e) {
+							// Lock wait timeouts and deadlock victims count as lost checkouts
+							lost.incrementAndGet();
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, "inventory-bench-" + i);
+			t.start();
+			threads.add(t);
+		}
+
+		start.countDown();
+		for (Thread t : threads) {
+			t.join();
+		}
+		if (lost.get() > 0)
+			log.warn("stripes={}: {} checkouts failed or were reported short", stripes, lost.get());
+		return reserved.get();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
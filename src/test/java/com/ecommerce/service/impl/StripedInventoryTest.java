@@ -0,0 +1,174 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.model.Inventory;
+import com.ecommerce.model.InventoryStripe;
+import com.ecommerce.repository.InventoryRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripedInventoryTest {
+
+	private static final Long PRODUCT_ID = 1L;
+
+	@Mock
+	private InventoryRepository inventoryRepo;
+
+	@InjectMocks
+	private StripedInventory striped;
+
+	@BeforeEach
+	void setup() {
+		when(inventoryRepo.findStripeCounts()).thenReturn(Map.of(PRODUCT_ID, 4));
+		striped.refresh();
+	}
+
+	@Test
+	void reserve_takesOnlyAStripeThatHasRoom() {
+
+		when(inventoryRepo.findStripes(PRODUCT_ID)).thenReturn(stripes(0, 5, 0, 0));
+		when(inventoryRepo.reserveOnStripe(PRODUCT_ID, 1, 3)).thenReturn(true);
+
+		assertTrue(striped.reserve(PRODUCT_ID, 3));
+
+		verify(inventoryRepo).reserveOnStripe(PRODUCT_ID, 1, 3);
+		verify(inventoryRepo, never()).lockByProductIds(any());
+		verify(inventoryRepo, never()).lockStripes(any());
+	}
+
+	@Test
+	void reserve_wrapsAroundToAStripeBelowTheRandomStart() {
+
+		// The read said every stripe had room; only stripe 0 still does
+		when(inventoryRepo.findStripes(PRODUCT_ID)).thenReturn(stripes(4, 4, 4, 4));
+		when(inventoryRepo.reserveOnStripe(eq(PRODUCT_ID), anyInt(), eq(2)))
+				.thenAnswer(inv -> inv.<Integer>getArgument(1) == 0);
+
+		for (int run = 0; run < 20; run++) {
+			assertTrue(striped.reserve(PRODUCT_ID, 2));
+		}
+
+		// Each run starts somewhere in 0..3 and climbs until it wraps back to 0
+		ArgumentCaptor<Integer> tried = ArgumentCaptor.forClass(Integer.class);
+		verify(inventoryRepo, atLeast(21)).reserveOnStripe(eq(PRODUCT_ID), tried.capture(), eq(2));
+		assertTrue(tried.getAllValues().stream().anyMatch(stripe -> stripe > 0));
+		verify(inventoryRepo, never()).lockByProductIds(any());
+		verify(inventoryRepo, never()).lockStripes(any());
+	}
+
+	@Test
+	void reserve_spillsOnceEveryStripeHasBeenTried() {
+
+		when(inventoryRepo.findStripes(PRODUCT_ID)).thenReturn(stripes(4, 4, 4, 4));
+		when(inventoryRepo.lockByProductIds(List.of(PRODUCT_ID))).thenReturn(Map.of(PRODUCT_ID, inventory(0)));
+		when(inventoryRepo.lockStripes(PRODUCT_ID)).thenReturn(stripes(1, 1, 1, 0));
+
+		assertTrue(striped.reserve(PRODUCT_ID, 3));
+
+		for (int stripe = 0; stripe < 4; stripe++) {
+			verify(inventoryRepo).reserveOnStripe(PRODUCT_ID, stripe, 3);
+		}
+		InOrder order = inOrder(inventoryRepo);
+		order.verify(inventoryRepo).lockByProductIds(List.of(PRODUCT_ID));
+		order.verify(inventoryRepo).lockStripes(PRODUCT_ID);
+		verify(inventoryRepo).updateStripes(argThat(changed -> changed.size() == 3));
+	}
+
+	@Test
+	void reserve_underRepeatableReadTriesUpwardOnlyAndNeverFallsBack() {
+
+		when(inventoryRepo.findStripes(PRODUCT_ID)).thenReturn(stripes(4, 4, 4, 4));
+
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			for (int run = 0; run < 20; run++) {
+				assertFalse(striped.reserve(PRODUCT_ID, 2));
+			}
+		} finally {
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+
+		ArgumentCaptor<Integer> tried = ArgumentCaptor.forClass(Integer.class);
+		verify(inventoryRepo, atLeast(20)).reserveOnStripe(eq(PRODUCT_ID), tried.capture(), eq(2));
+		// Each run ends on the last stripe, so a run's attempts are an increasing tail of 0..3
+		List<Integer> run = new ArrayList<>();
+		for (int stripe : tried.getAllValues()) {
+			run.add(stripe);
+			if (stripe == 3) {
+				for (int i = 1; i < run.size(); i++) {
+					assertEquals(run.get(i - 1) + 1, run.get(i));
+				}
+				run.clear();
+			}
+		}
+		assertTrue(run.isEmpty());
+		verify(inventoryRepo, never()).lockByProductIds(any());
+		verify(inventoryRepo, never()).lockStripes(any());
+	}
+
+	@Test
+	void reserve_locksInventoryRowThenStripesWhenNoStripeCanTakeTheAmount() {
+
+		when(inventoryRepo.findStripes(PRODUCT_ID)).thenReturn(stripes(2, 2, 2, 2));
+		when(inventoryRepo.lockByProductIds(List.of(PRODUCT_ID))).thenReturn(Map.of(PRODUCT_ID, inventory(1)));
+		when(inventoryRepo.lockStripes(PRODUCT_ID)).thenReturn(stripes(2, 2, 2, 2));
+
+		assertTrue(striped.reserve(PRODUCT_ID, 9));
+
+		InOrder order = inOrder(inventoryRepo);
+		order.verify(inventoryRepo).lockByProductIds(List.of(PRODUCT_ID));
+		order.verify(inventoryRepo).lockStripes(PRODUCT_ID);
+
+		ArgumentCaptor<Inventory> main = ArgumentCaptor.forClass(Inventory.class);
+		verify(inventoryRepo).update(main.capture());
+		assertEquals(1, main.getValue().getReserved());
+		verify(inventoryRepo, never()).reserveOnStripe(any(), anyInt(), anyInt());
+	}
+
+	@Test
+	void reserve_failsWithoutWritingWhenThePoolIsShort() {
+
+		when(inventoryRepo.findStripes(PRODUCT_ID)).thenReturn(stripes(1, 1, 1, 1));
+		when(inventoryRepo.lockByProductIds(List.of(PRODUCT_ID))).thenReturn(Map.of(PRODUCT_ID, inventory(0)));
+		when(inventoryRepo.lockStripes(PRODUCT_ID)).thenReturn(stripes(1, 1, 1, 1));
+
+		assertFalse(striped.reserve(PRODUCT_ID, 5));
+
+		verify(inventoryRepo, never()).update(any());
+		verify(inventoryRepo, never()).updateStripes(any());
+	}
+
+	private static List<InventoryStripe> stripes(int... free) {
+		List<InventoryStripe> stripes = new ArrayList<>();
+		for (int i = 0; i < free.length; i++) {
+			stripes.add(new InventoryStripe(PRODUCT_ID, i, free[i], 0));
+		}
+		return stripes;
+	}
+
+	private static Inventory inventory(int free) {
+		Inventory inv = new Inventory();
+		inv.setProductId(PRODUCT_ID);
+		inv.setQuantity(free);
+		inv.setReserved(0);
+		return inv;
+	}
+}
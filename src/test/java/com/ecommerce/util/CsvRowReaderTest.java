@@ -0,0 +1,69 @@
+package com.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRowReaderTest {
+
+	@Test
+	void next_splitsPlainFieldsAndKeepsEmptyOnes() throws IOException {
+
+		CsvRowReader reader = new CsvRowReader(new StringReader("sku,name,,mrp\nA1,Shirt,,\n"));
+
+		assertEquals(List.of("sku", "name", "", "mrp"), reader.next());
+		assertEquals(List.of("A1", "Shirt", "", ""), reader.next());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void next_unquotesFieldsWithCommasDoubledQuotesAndLineBreaks() throws IOException {
+
+		CsvRowReader reader = new CsvRowReader(
+				new StringReader("A1,\"Shirt, \"\"slim\"\"\",\"first line\nsecond line\"\r\nB2,\"\",x\"y\n"));
+
+		assertEquals(List.of("A1", "Shirt, \"slim\"", "first line\nsecond line"), reader.next());
+		assertEquals(2, reader.getLineNumber());
+
+		// An empty quoted field, and a quote inside an unquoted field taken literally
+		assertEquals(List.of("B2", "", "x\"y"), reader.next());
+		assertEquals(3, reader.getLineNumber());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void next_handlesBomCrLfAndAMissingFinalNewline() throws IOException {
+
+		CsvRowReader reader = new CsvRowReader(new StringReader("\uFEFFsku,name\r\nA1,Shirt\r\nB2,Jeans"));
+
+		assertEquals(List.of("sku", "name"), reader.next());
+		assertEquals(List.of("A1", "Shirt"), reader.next());
+		assertEquals(List.of("B2", "Jeans"), reader.next());
+		assertEquals(3, reader.getLineNumber());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void next_readsRecordsLongerThanTheBuffer() throws IOException {
+
+		String description = "x".repeat(20_000);
+		CsvRowReader reader = new CsvRowReader(new StringReader("A1,\"" + description + "\"\nB2,y\n"));
+
+		assertEquals(List.of("A1", description), reader.next());
+		assertEquals(List.of("B2", "y"), reader.next());
+	}
+
+	@Test
+	void next_rejectsAnUnterminatedQuote() throws IOException {
+
+		CsvRowReader reader = new CsvRowReader(new StringReader("sku,name\nA1,\"Shirt\n"));
+		reader.next();
+
+		IOException e = assertThrows(IOException.class, reader::next);
+		assertTrue(e.getMessage().contains("line 3"), e.getMessage());
+	}
+}
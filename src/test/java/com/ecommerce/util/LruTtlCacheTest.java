@@ -0,0 +1,82 @@
+package com.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruTtlCacheTest {
+
+	private final AtomicLong now = new AtomicLong(1_000);
+
+	@Test
+	void put_evictsLeastRecentlyUsedPastMaxSize() {
+
+		LruTtlCache<String, Integer> cache = new LruTtlCache<>(2, 60_000, now::get);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.get("a");
+		cache.put("c", 3);
+
+		assertEquals(1, cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals(3, cache.get("c"));
+		assertEquals(1L, cache.stats().get("evictions"));
+	}
+
+	@Test
+	void get_expiresEntriesAfterTtl() {
+
+		LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 500, now::get);
+		cache.put("a", 1);
+
+		now.addAndGet(499);
+		assertEquals(1, cache.get("a"));
+
+		now.addAndGet(1);
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+		assertEquals(1L, cache.stats().get("expirations"));
+	}
+
+	@Test
+	void stats_countHitsAndMisses() {
+
+		LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, 60_000, now::get);
+		cache.put("a", 1);
+		cache.get("a");
+		cache.get("a");
+		cache.get("b");
+
+		Map<String, Object> stats = cache.stats();
+		assertEquals(1, stats.get("size"));
+		assertEquals(2L, stats.get("hits"));
+		assertEquals(1L, stats.get("misses"));
+		assertEquals(2.0 / 3, (double) stats.get("hitRatio"), 1e-9);
+	}
+
+	@Test
+	void putIfUnchanged_dropsValueLoadedBeforeAnInvalidation() {
+
+		LruTtlCache<Long, String> cache = new LruTtlCache<>(10, 60_000, now::get);
+
+		long stamp = cache.stamp(7L);
+		cache.invalidate(7L);
+		assertFalse(cache.putIfUnchanged(7L, "old row", stamp));
+		assertNull(cache.get(7L));
+
+		assertTrue(cache.putIfUnchanged(7L, "new row", cache.stamp(7L)));
+		assertEquals("new row", cache.get(7L));
+	}
+
+	@Test
+	void maxSizeZero_disablesCaching() {
+
+		LruTtlCache<String, Integer> cache = new LruTtlCache<>(0, 60_000, now::get);
+		cache.put("a", 1);
+
+		assertNull(cache.get("a"));
+	}
+}
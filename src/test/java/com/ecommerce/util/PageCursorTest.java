@@ -0,0 +1,47 @@
+package com.ecommerce.util;
+
+import com.ecommerce.exception.BadRequestException;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+	@Test
+	void decode_readsBackWhatEncodeWrote() {
+
+		String encoded = new PageCursor("newest", "2026-03-01T10:15:30.250", 42L).encode();
+
+		PageCursor cursor = PageCursor.decode(encoded);
+
+		assertEquals("newest", cursor.getSort());
+		assertEquals("2026-03-01T10:15:30.250", cursor.getKey());
+		assertEquals(42L, cursor.getId());
+	}
+
+	@Test
+	void encode_isUrlSafe() {
+
+		String encoded = new PageCursor("price_asc", "1999.99", Long.MAX_VALUE).encode();
+
+		assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+	}
+
+	@Test
+	void decode_rejectsTamperedCursors() {
+
+		assertThrows(BadRequestException.class, () -> PageCursor.decode("not base64!"));
+		assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("newest|2026-03-01T10:15:30")));
+		assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("newest|2026-03-01T10:15:30|7|8")));
+		assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("newest|2026-03-01T10:15:30|abc")));
+		assertThrows(BadRequestException.class, () -> PageCursor.decode(""));
+	}
+
+	private static String raw(String value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+}